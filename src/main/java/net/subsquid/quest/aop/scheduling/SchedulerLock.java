@@ -0,0 +1,34 @@
+package net.subsquid.quest.aop.scheduling;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Run a scheduled method on a single instance of the cluster at a time: an instance firing it while another one holds
+ * its lock skips the run.
+ * <p>
+ * The annotated method must return {@code void}, as {@link org.springframework.scheduling.annotation.Scheduled} methods
+ * do.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SchedulerLock {
+    /**
+     * The name of the lock, unique among the scheduled methods.
+     *
+     * @return the name of the lock.
+     */
+    String name();
+
+    /**
+     * The time the lock is held for at least, as an ISO-8601 duration, so that instances whose clocks are slightly behind
+     * do not run a short job again once it is released.
+     *
+     * @return the minimum time the lock is held for.
+     */
+    String lockAtLeastFor() default "PT30S";
+}
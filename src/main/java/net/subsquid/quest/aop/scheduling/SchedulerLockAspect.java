@@ -0,0 +1,33 @@
+package net.subsquid.quest.aop.scheduling;
+
+import java.time.Duration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Aspect running the methods annotated with {@link SchedulerLock} under their lock.
+ */
+@Aspect
+public class SchedulerLockAspect {
+
+    private final SchedulerLockProvider schedulerLockProvider;
+
+    public SchedulerLockAspect(SchedulerLockProvider schedulerLockProvider) {
+        this.schedulerLockProvider = schedulerLockProvider;
+    }
+
+    /**
+     * Advice that runs a method if its lock is acquired, and skips it otherwise.
+     *
+     * @param joinPoint join point for advice.
+     * @param schedulerLock the lock of the method.
+     * @return {@code null}, the annotated methods returning {@code void}.
+     * @throws Throwable throws the error thrown by the method.
+     */
+    @Around("@annotation(schedulerLock)")
+    public Object runLocked(ProceedingJoinPoint joinPoint, SchedulerLock schedulerLock) throws Throwable {
+        schedulerLockProvider.runIfLocked(schedulerLock.name(), Duration.parse(schedulerLock.lockAtLeastFor()), joinPoint::proceed);
+        return null;
+    }
+}
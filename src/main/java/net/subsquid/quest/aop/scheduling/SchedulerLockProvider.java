@@ -0,0 +1,164 @@
+package net.subsquid.quest.aop.scheduling;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Locks held by an instance of the cluster over the scheduled jobs, as leases in the {@code jhi_scheduler_lock} table.
+ * <p>
+ * A lock is acquired by updating its row if its lease expired, or by inserting it the first time. The lease is renewed
+ * every {@code application.scheduler-lock.heartbeat-interval} while the job runs, so a lease only expires once the
+ * instance holding it stopped: after {@code application.scheduler-lock.lease-time}, another instance may take it. Each
+ * statement commits in its own transaction, and lease times are taken from the clock of the instance.
+ */
+public class SchedulerLockProvider {
+
+    private final Logger log = LoggerFactory.getLogger(SchedulerLockProvider.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolTaskScheduler heartbeatScheduler;
+
+    private final Duration leaseTime;
+
+    private final Duration heartbeatInterval;
+
+    private final String instanceId;
+
+    public SchedulerLockProvider(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        Duration leaseTime,
+        Duration heartbeatInterval,
+        String instanceId
+    ) {
+        if (heartbeatInterval.compareTo(leaseTime) >= 0) {
+            throw new IllegalArgumentException("The scheduler lock heartbeat interval must be shorter than the lease time");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.leaseTime = leaseTime;
+        this.heartbeatInterval = heartbeatInterval;
+        this.instanceId = instanceId;
+        // Not the scheduler of the jobs, whose single thread is busy running the job the heartbeat is for
+        this.heartbeatScheduler = new ThreadPoolTaskScheduler();
+        this.heartbeatScheduler.setThreadNamePrefix("scheduler-lock-heartbeat-");
+        this.heartbeatScheduler.setDaemon(true);
+        this.heartbeatScheduler.initialize();
+    }
+
+    /**
+     * Run a task if the lock is acquired, renewing its lease while the task runs.
+     *
+     * @param name the name of the lock.
+     * @param lockAtLeastFor the time the lock is held for at least, from its acquisition.
+     * @param task the task.
+     * @return {@code true} if the lock was acquired and the task run.
+     * @throws Throwable the error thrown by the task.
+     */
+    public boolean runIfLocked(String name, Duration lockAtLeastFor, LockedTask task) throws Throwable {
+        Instant lockedAt = Instant.now();
+        if (!tryAcquire(name, lockedAt)) {
+            log.debug("Skipped {}, locked by another instance", name);
+            return false;
+        }
+        ScheduledFuture<?> heartbeat = heartbeatScheduler.scheduleWithFixedDelay(() -> renew(name), heartbeatInterval);
+        try {
+            task.run();
+            return true;
+        } finally {
+            heartbeat.cancel(false);
+            release(name, lockedAt.plus(lockAtLeastFor));
+        }
+    }
+
+    boolean tryAcquire(String name, Instant now) {
+        Timestamp lockedAt = Timestamp.from(now);
+        Timestamp lockedUntil = Timestamp.from(now.plus(leaseTime));
+        Integer updated = transactionTemplate.execute(transaction ->
+            jdbcTemplate.update(
+                "update jhi_scheduler_lock set locked_until = ?, locked_at = ?, locked_by = ? where name = ? and locked_until <= ?",
+                lockedUntil,
+                lockedAt,
+                instanceId,
+                name,
+                lockedAt
+            )
+        );
+        if (updated != null && updated > 0) {
+            log.debug("Acquired scheduler lock {}", name);
+            return true;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(transaction ->
+                jdbcTemplate.update(
+                    "insert into jhi_scheduler_lock (name, locked_until, locked_at, locked_by) values (?, ?, ?, ?)",
+                    name,
+                    lockedUntil,
+                    lockedAt,
+                    instanceId
+                )
+            );
+            log.debug("Acquired new scheduler lock {}", name);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    void renew(String name) {
+        try {
+            Integer updated = transactionTemplate.execute(transaction ->
+                jdbcTemplate.update(
+                    "update jhi_scheduler_lock set locked_until = ? where name = ? and locked_by = ?",
+                    Timestamp.from(Instant.now().plus(leaseTime)),
+                    name,
+                    instanceId
+                )
+            );
+            if (updated == null || updated == 0) {
+                log.warn("Lost scheduler lock {}, its lease expired before it was renewed", name);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not renew scheduler lock {}: {}", name, e.getMessage());
+        }
+    }
+
+    void release(String name, Instant notBefore) {
+        Instant now = Instant.now();
+        transactionTemplate.executeWithoutResult(transaction ->
+            jdbcTemplate.update(
+                "update jhi_scheduler_lock set locked_until = ? where name = ? and locked_by = ?",
+                Timestamp.from(now.isAfter(notBefore) ? now : notBefore),
+                name,
+                instanceId
+            )
+        );
+        log.debug("Released scheduler lock {}", name);
+    }
+
+    public void shutdown() {
+        heartbeatScheduler.shutdown();
+    }
+
+    /**
+     * A task run under a lock.
+     */
+    @FunctionalInterface
+    public interface LockedTask {
+        void run() throws Throwable;
+    }
+}
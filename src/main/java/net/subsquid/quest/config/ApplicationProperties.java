@@ -1,5 +1,11 @@
 package net.subsquid.quest.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,4 +15,693 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Cache cache = new Cache();
+
+    private final Bulk bulk = new Bulk();
+
+    private final QuestLifecycle questLifecycle = new QuestLifecycle();
+
+    private final UserCleanup userCleanup = new UserCleanup();
+
+    private final Datasource datasource = new Datasource();
+
+    private final SqlStatements sqlStatements = new SqlStatements();
+
+    private final HibernateStatistics hibernateStatistics = new HibernateStatistics();
+
+    private final TokenRevocation tokenRevocation = new TokenRevocation();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final SchedulerLock schedulerLock = new SchedulerLock();
+
+    private final MailOutbox mailOutbox = new MailOutbox();
+
+    private final MailTransport mailTransport = new MailTransport();
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public QuestLifecycle getQuestLifecycle() {
+        return questLifecycle;
+    }
+
+    public UserCleanup getUserCleanup() {
+        return userCleanup;
+    }
+
+    public Datasource getDatasource() {
+        return datasource;
+    }
+
+    public SqlStatements getSqlStatements() {
+        return sqlStatements;
+    }
+
+    public HibernateStatistics getHibernateStatistics() {
+        return hibernateStatistics;
+    }
+
+    public TokenRevocation getTokenRevocation() {
+        return tokenRevocation;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public SchedulerLock getSchedulerLock() {
+        return schedulerLock;
+    }
+
+    public MailOutbox getMailOutbox() {
+        return mailOutbox;
+    }
+
+    public MailTransport getMailTransport() {
+        return mailTransport;
+    }
+
+    public static class Cache {
+
+        /**
+         * Per-region overrides of {@code jhipster.cache.ehcache}, keyed by the cache region name
+         * (for example {@code net.subsquid.quest.domain.Quest.applications}).
+         */
+        private Map<String, Region> regions = new HashMap<>();
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public void setRegions(Map<String, Region> regions) {
+            this.regions = regions;
+        }
+
+        public static class Region {
+
+            private Integer timeToLiveSeconds;
+
+            private Long maxEntries;
+
+            public Integer getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(Long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+    }
+
+    public static class Bulk {
+
+        /**
+         * Number of entities saved per transaction by the bulk endpoints. Best kept a multiple of
+         * {@code hibernate.jdbc.batch_size} and of the {@code sequence_generator} increment, so that each chunk is sent in
+         * full batches and draws whole blocks of ids.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Maximum number of entities accepted by a single bulk request.
+         */
+        private int maxItems = 10000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxItems() {
+            return maxItems;
+        }
+
+        public void setMaxItems(int maxItems) {
+            this.maxItems = maxItems;
+        }
+    }
+
+    public static class QuestLifecycle {
+
+        /**
+         * Number of quests moved per statement and transaction by the scheduled status transitions.
+         */
+        private int chunkSize = 1000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class UserCleanup {
+
+        /**
+         * Number of non-activated users removed per statement and transaction by the scheduled cleanup.
+         */
+        private int chunkSize = 1000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Datasource {
+
+        private final Replica replica = new Replica();
+
+        public Replica getReplica() {
+            return replica;
+        }
+
+        public static class Replica {
+
+            /**
+             * Whether read-only transactions are routed to the replica pool, the primary pool being configured by
+             * {@code spring.datasource}.
+             */
+            private boolean enabled = false;
+
+            private String url;
+
+            private String username;
+
+            private String password;
+
+            private String poolName = "Replica";
+
+            private int maximumPoolSize = 10;
+
+            /**
+             * Replication lag above which read-only transactions fall back to the primary pool.
+             */
+            private Duration maxLag = Duration.ofSeconds(10);
+
+            /**
+             * Query run on the replica returning its replication lag in seconds, {@code null} meaning no lag.
+             */
+            private String lagQuery = "select extract(epoch from now() - pg_last_xact_replay_timestamp())";
+
+            /**
+             * Delay between two runs of the lag query, in ISO-8601 format.
+             */
+            private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public void setUsername(String username) {
+                this.username = username;
+            }
+
+            public String getPassword() {
+                return password;
+            }
+
+            public void setPassword(String password) {
+                this.password = password;
+            }
+
+            public String getPoolName() {
+                return poolName;
+            }
+
+            public void setPoolName(String poolName) {
+                this.poolName = poolName;
+            }
+
+            public int getMaximumPoolSize() {
+                return maximumPoolSize;
+            }
+
+            public void setMaximumPoolSize(int maximumPoolSize) {
+                this.maximumPoolSize = maximumPoolSize;
+            }
+
+            public Duration getMaxLag() {
+                return maxLag;
+            }
+
+            public void setMaxLag(Duration maxLag) {
+                this.maxLag = maxLag;
+            }
+
+            public String getLagQuery() {
+                return lagQuery;
+            }
+
+            public void setLagQuery(String lagQuery) {
+                this.lagQuery = lagQuery;
+            }
+
+            public Duration getLagCheckInterval() {
+                return lagCheckInterval;
+            }
+
+            public void setLagCheckInterval(Duration lagCheckInterval) {
+                this.lagCheckInterval = lagCheckInterval;
+            }
+        }
+    }
+
+    public static class SqlStatements {
+
+        /**
+         * Number of SQL statements an HTTP request may execute before it is logged as a warning.
+         */
+        private int requestBudget = 20;
+
+        public int getRequestBudget() {
+            return requestBudget;
+        }
+
+        public void setRequestBudget(int requestBudget) {
+            this.requestBudget = requestBudget;
+        }
+    }
+
+    public static class HibernateStatistics {
+
+        /**
+         * Execution time from which a SQL statement is logged, with the {@code hibernate-statistics} profile.
+         */
+        private Duration slowQueryThreshold = Duration.ofMillis(500);
+
+        /**
+         * Delay between two registrations of the meters of the queries executed since.
+         */
+        private Duration queryMetersRefreshInterval = Duration.ofMinutes(1);
+
+        public Duration getSlowQueryThreshold() {
+            return slowQueryThreshold;
+        }
+
+        public void setSlowQueryThreshold(Duration slowQueryThreshold) {
+            this.slowQueryThreshold = slowQueryThreshold;
+        }
+
+        public Duration getQueryMetersRefreshInterval() {
+            return queryMetersRefreshInterval;
+        }
+
+        public void setQueryMetersRefreshInterval(Duration queryMetersRefreshInterval) {
+            this.queryMetersRefreshInterval = queryMetersRefreshInterval;
+        }
+    }
+
+    public static class TokenRevocation {
+
+        /**
+         * Delay between two rebuilds of the filter of the revoked tokens, bounding how long a revocation made on another
+         * instance goes unseen.
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(1);
+
+        /**
+         * Probability that the filter sends the lookup of a token that was not revoked to the database.
+         */
+        private double falsePositiveProbability = 0.01;
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+
+        public double getFalsePositiveProbability() {
+            return falsePositiveProbability;
+        }
+
+        public void setFalsePositiveProbability(double falsePositiveProbability) {
+            this.falsePositiveProbability = falsePositiveProbability;
+        }
+    }
+
+    public static class PasswordHashing {
+
+        /**
+         * Number of threads authenticating the logins, the number of processors if not positive: password hashing is
+         * CPU-bound.
+         */
+        private int poolSize = 0;
+
+        /**
+         * Number of logins waiting for a thread, beyond which logins are rejected with a 503 status.
+         */
+        private int queueCapacity = 100;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class RateLimit {
+
+        /**
+         * Whether the requests matching a route are rate limited.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Delay between two evictions of the rate limit buckets of the clients gone idle.
+         */
+        private Duration evictionInterval = Duration.ofMinutes(1);
+
+        /**
+         * Limits per route, keyed by route name. The first route matching a request applies.
+         */
+        private Map<String, Route> routes = new LinkedHashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getEvictionInterval() {
+            return evictionInterval;
+        }
+
+        public void setEvictionInterval(Duration evictionInterval) {
+            this.evictionInterval = evictionInterval;
+        }
+
+        public Map<String, Route> getRoutes() {
+            return routes;
+        }
+
+        public void setRoutes(Map<String, Route> routes) {
+            this.routes = routes;
+        }
+
+        public static class Route {
+
+            /**
+             * HTTP methods of the route, all methods if empty.
+             */
+            private List<String> methods = new ArrayList<>();
+
+            /**
+             * Ant patterns of the paths of the route.
+             */
+            private List<String> paths = new ArrayList<>();
+
+            /**
+             * Number of requests a client may make at once, refilled over the period.
+             */
+            private long capacity = 10;
+
+            private Duration period = Duration.ofMinutes(1);
+
+            /**
+             * Field of the JSON request body holding the login the request is made for, such as the username of an
+             * authentication. If set, each attempted login gets its own limit too, whatever the client.
+             */
+            private String loginField;
+
+            public List<String> getMethods() {
+                return methods;
+            }
+
+            public void setMethods(List<String> methods) {
+                this.methods = methods;
+            }
+
+            public List<String> getPaths() {
+                return paths;
+            }
+
+            public void setPaths(List<String> paths) {
+                this.paths = paths;
+            }
+
+            public long getCapacity() {
+                return capacity;
+            }
+
+            public void setCapacity(long capacity) {
+                this.capacity = capacity;
+            }
+
+            public Duration getPeriod() {
+                return period;
+            }
+
+            public void setPeriod(Duration period) {
+                this.period = period;
+            }
+
+            public String getLoginField() {
+                return loginField;
+            }
+
+            public void setLoginField(String loginField) {
+                this.loginField = loginField;
+            }
+        }
+    }
+
+    public static class SchedulerLock {
+
+        /**
+         * Time a scheduler lock is leased for, after which another instance may take the lock of an instance which
+         * stopped while running a job.
+         */
+        private Duration leaseTime = Duration.ofMinutes(1);
+
+        /**
+         * Delay between two renewals of the lease of a running job, shorter than the lease time.
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(20);
+
+        public Duration getLeaseTime() {
+            return leaseTime;
+        }
+
+        public void setLeaseTime(Duration leaseTime) {
+            this.leaseTime = leaseTime;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+    }
+
+    public static class MailOutbox {
+
+        /**
+         * Delay between two deliveries of the pending mails, as an ISO-8601 duration.
+         */
+        private Duration pollInterval = Duration.ofSeconds(5);
+
+        /**
+         * Number of pending mails read and delivered at once.
+         */
+        private int batchSize = 50;
+
+        /**
+         * Number of threads delivering the mails of a batch.
+         */
+        private int poolSize = 4;
+
+        /**
+         * Number of delivery attempts of a mail, after which it is left dead.
+         */
+        private int maxAttempts = 8;
+
+        /**
+         * Delay before the first retry of a mail, doubled at each of the next ones.
+         */
+        private Duration initialBackoff = Duration.ofSeconds(30);
+
+        /**
+         * Longest delay between two attempts of a mail.
+         */
+        private Duration maxBackoff = Duration.ofHours(1);
+
+        /**
+         * Time the sent mails are kept in the outbox.
+         */
+        private Duration retention = Duration.ofDays(7);
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+    }
+
+    public static class MailTransport {
+
+        /**
+         * Number of SMTP connections kept open, matching the threads delivering the mails.
+         */
+        private int maxSize = 4;
+
+        /**
+         * Time an unused connection is kept open, below the idle timeout of the SMTP server.
+         */
+        private Duration maxIdle = Duration.ofSeconds(30);
+
+        /**
+         * Number of mails sent through a connection before it is closed, below the limit of the SMTP server.
+         */
+        private int maxMessages = 100;
+
+        /**
+         * Time a send waits for a connection once all of them are in use.
+         */
+        private Duration borrowTimeout = Duration.ofSeconds(30);
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getMaxIdle() {
+            return maxIdle;
+        }
+
+        public void setMaxIdle(Duration maxIdle) {
+            this.maxIdle = maxIdle;
+        }
+
+        public int getMaxMessages() {
+            return maxMessages;
+        }
+
+        public void setMaxMessages(int maxMessages) {
+            this.maxMessages = maxMessages;
+        }
+
+        public Duration getBorrowTimeout() {
+            return borrowTimeout;
+        }
+
+        public void setBorrowTimeout(Duration borrowTimeout) {
+            this.borrowTimeout = borrowTimeout;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package net.subsquid.quest.config;
 
+import java.time.Duration;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import net.subsquid.quest.management.PasswordHashingMetersService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
@@ -23,8 +26,14 @@ public class AsyncConfiguration implements AsyncConfigurer {
 
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties) {
+    private final ApplicationProperties.PasswordHashing passwordHashing;
+
+    private final ApplicationProperties.MailOutbox mailOutbox;
+
+    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties, ApplicationProperties applicationProperties) {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.passwordHashing = applicationProperties.getPasswordHashing();
+        this.mailOutbox = applicationProperties.getMailOutbox();
     }
 
     @Override
@@ -39,6 +48,59 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * The executor the logins are authenticated on, so that hashing their passwords does not hold the web server threads.
+     * <p>
+     * Its queue is bounded: a login submitted while it is full is rejected with a {@link RejectedExecutionException}.
+     *
+     * @param passwordHashingMetersService the meters of the executor.
+     * @return the executor.
+     */
+    @Bean(name = "passwordHashingExecutor")
+    public ThreadPoolTaskExecutor passwordHashingExecutor(PasswordHashingMetersService passwordHashingMetersService) {
+        log.debug("Creating Password Hashing Task Executor");
+        int poolSize = passwordHashing.getPoolSize() > 0 ? passwordHashing.getPoolSize() : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(passwordHashing.getQueueCapacity());
+        executor.setThreadNamePrefix("password-hashing-");
+        executor.setTaskDecorator(task ->
+            () -> {
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    passwordHashingMetersService.trackDuration(Duration.ofNanos(System.nanoTime() - start));
+                }
+            }
+        );
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            passwordHashingMetersService.trackRejected();
+            throw new RejectedExecutionException("Password hashing queue is full");
+        });
+        passwordHashingMetersService.bindQueue(executor);
+        return executor;
+    }
+
+    /**
+     * The executor the mails of the outbox are delivered on, so that a slow SMTP server does not hold the shared executor.
+     * <p>
+     * It is handed one batch at a time, which its queue is sized for.
+     *
+     * @return the executor.
+     */
+    @Bean(name = "mailDeliveryExecutor")
+    public ThreadPoolTaskExecutor mailDeliveryExecutor() {
+        log.debug("Creating Mail Delivery Task Executor");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mailOutbox.getPoolSize());
+        executor.setMaxPoolSize(mailOutbox.getPoolSize());
+        executor.setQueueCapacity(mailOutbox.getBatchSize());
+        executor.setThreadNamePrefix("mail-delivery-");
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
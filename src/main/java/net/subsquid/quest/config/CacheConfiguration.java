@@ -0,0 +1,165 @@
+package net.subsquid.quest.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+import net.subsquid.quest.security.DomainUserDetailsService;
+import net.subsquid.quest.security.jwt.TokenProvider;
+import org.ehcache.config.builders.*;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.info.BuildProperties;
+import org.springframework.boot.info.GitProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.*;
+import tech.jhipster.config.JHipsterProperties;
+import tech.jhipster.config.cache.PrefixedKeyGenerator;
+
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    private GitProperties gitProperties;
+    private BuildProperties buildProperties;
+
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+
+    private final ApplicationProperties.Cache applicationCache;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.applicationCache = applicationProperties.getCache();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager cacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    @Bean
+    public JCacheManagerCustomizer cacheManagerCustomizer() {
+        return cm -> {
+            createCache(cm, net.subsquid.quest.domain.User.class.getName());
+            createCache(cm, net.subsquid.quest.domain.Authority.class.getName());
+            createCache(cm, net.subsquid.quest.domain.User.class.getName() + ".authorities");
+            createCache(cm, net.subsquid.quest.domain.Applicant.class.getName());
+            createCache(cm, net.subsquid.quest.domain.Applicant.class.getName() + ".applications");
+            createCache(cm, net.subsquid.quest.domain.Quest.class.getName());
+            createCache(cm, net.subsquid.quest.domain.Quest.class.getName() + ".applications");
+            createCache(cm, net.subsquid.quest.domain.QuestApplication.class.getName());
+            createCache(cm, TokenProvider.VERIFIED_TOKENS_CACHE, new VerifiedTokenExpiryPolicy());
+            createCache(cm, DomainUserDetailsService.USER_DETAILS_CACHE);
+            // jhipster-needle-ehcache-add-entry
+        };
+    }
+
+    /**
+     * The cache of the tokens verified by {@link TokenProvider}, each entry expiring with its token.
+     *
+     * @param cacheManager the cache manager.
+     * @return the cache.
+     */
+    @Bean
+    public javax.cache.Cache<String, TokenProvider.VerifiedToken> verifiedTokenCache(javax.cache.CacheManager cacheManager) {
+        return cacheManager.getCache(TokenProvider.VERIFIED_TOKENS_CACHE);
+    }
+
+    /**
+     * The cache of the users looked up by {@link DomainUserDetailsService}, by login and by email.
+     *
+     * @param cacheManager the cache manager.
+     * @return the cache.
+     */
+    @Bean
+    public javax.cache.Cache<String, DomainUserDetailsService.CachedUserDetails> userDetailsCache(javax.cache.CacheManager cacheManager) {
+        return cacheManager.getCache(DomainUserDetailsService.USER_DETAILS_CACHE);
+    }
+
+    private void createCache(javax.cache.CacheManager cm, String cacheName) {
+        createCache(cm, cacheName, null);
+    }
+
+    private void createCache(javax.cache.CacheManager cm, String cacheName, ExpiryPolicy<Object, Object> expiryPolicy) {
+        javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        } else {
+            cm.createCache(cacheName, jcacheConfiguration(cacheName, expiryPolicy));
+        }
+        // Exposes hit/miss counters through JMX, which Micrometer's JCacheMetrics reads from
+        cm.enableStatistics(cacheName, true);
+    }
+
+    private javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(
+        String cacheName,
+        ExpiryPolicy<Object, Object> expiryPolicy
+    ) {
+        long maxEntries = ehcache.getMaxEntries();
+        long timeToLiveSeconds = ehcache.getTimeToLiveSeconds();
+        ApplicationProperties.Cache.Region region = applicationCache.getRegions().get(cacheName);
+        if (region != null) {
+            if (region.getMaxEntries() != null) {
+                maxEntries = region.getMaxEntries();
+            }
+            if (region.getTimeToLiveSeconds() != null) {
+                timeToLiveSeconds = region.getTimeToLiveSeconds();
+            }
+        }
+        if (expiryPolicy == null) {
+            expiryPolicy = ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds));
+        }
+        log.debug("Configuring cache {} with {} entries and a time to live of {} seconds", cacheName, maxEntries, timeToLiveSeconds);
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(expiryPolicy)
+                .build()
+        );
+    }
+
+    @Autowired(required = false)
+    public void setGitProperties(GitProperties gitProperties) {
+        this.gitProperties = gitProperties;
+    }
+
+    @Autowired(required = false)
+    public void setBuildProperties(BuildProperties buildProperties) {
+        this.buildProperties = buildProperties;
+    }
+
+    @Bean
+    public KeyGenerator keyGenerator() {
+        return new PrefixedKeyGenerator(this.gitProperties, this.buildProperties);
+    }
+
+    /**
+     * Expires a {@link TokenProvider.VerifiedToken} at the expiration of its token, instead of after a fixed time to live.
+     */
+    private static final class VerifiedTokenExpiryPolicy implements ExpiryPolicy<Object, Object> {
+
+        @Override
+        public Duration getExpiryForCreation(Object key, Object value) {
+            Duration remaining = Duration.between(Instant.now(), ((TokenProvider.VerifiedToken) value).getExpiration());
+            return remaining.isNegative() ? Duration.ZERO : remaining;
+        }
+
+        @Override
+        public Duration getExpiryForAccess(Object key, Supplier<?> value) {
+            return null;
+        }
+
+        @Override
+        public Duration getExpiryForUpdate(Object key, Supplier<?> oldValue, Object newValue) {
+            return getExpiryForCreation(key, newValue);
+        }
+    }
+}
@@ -11,5 +11,8 @@ public final class Constants {
     public static final String SYSTEM = "system";
     public static final String DEFAULT_LANGUAGE = "en";
 
+    // Spring profile publishing the Hibernate statistics as meters and logging slow SQL statements
+    public static final String SPRING_PROFILE_HIBERNATE_STATISTICS = "hibernate-statistics";
+
     private Constants() {}
 }
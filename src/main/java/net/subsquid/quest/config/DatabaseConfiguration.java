@@ -1,14 +1,31 @@
 package net.subsquid.quest.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.sql.SQLException;
+import javax.sql.DataSource;
+import net.subsquid.quest.management.SqlStatementCountingDataSource;
+import net.subsquid.quest.management.SqlStatementInspector;
+import net.subsquid.quest.management.SqlStatementRecorder;
+import org.hibernate.cfg.AvailableSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseDataSource;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.config.h2.H2ConfigurationHelper;
@@ -19,6 +36,8 @@ import tech.jhipster.config.h2.H2ConfigurationHelper;
 @EnableTransactionManagement
 public class DatabaseConfiguration {
 
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
     private final Logger log = LoggerFactory.getLogger(DatabaseConfiguration.class);
 
     private final Environment env;
@@ -27,6 +46,34 @@ public class DatabaseConfiguration {
         this.env = env;
     }
 
+    /**
+     * Count the statements executed through the application data source, see {@link SqlStatementRecorder}.
+     *
+     * @return the post-processor wrapping the {@code dataSource} bean.
+     */
+    @Bean
+    public static BeanPostProcessor sqlStatementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource) {
+                    return new SqlStatementCountingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Collect the SQL of the statements prepared by Hibernate, see {@link SqlStatementRecorder}.
+     *
+     * @return the customizer registering the {@link SqlStatementInspector}.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementInspectorCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector());
+    }
+
     /**
      * Open the TCP port for the H2 database, so it is available remotely.
      *
@@ -54,4 +101,67 @@ public class DatabaseConfiguration {
         }
         return String.valueOf(port);
     }
+
+    /**
+     * Routes read-only transactions to a replica pool, when {@code application.datasource.replica.enabled} is set.
+     * <p>
+     * The primary pool is still configured by {@code spring.datasource}, and is the one Liquibase migrates. Both pools
+     * are beans, so that their Hikari metrics are published, tagged by pool name.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "application.datasource.replica", name = "enabled", havingValue = "true")
+    static class ReplicaRoutingConfiguration {
+
+        @Bean
+        @LiquibaseDataSource
+        @ConfigurationProperties("spring.datasource.hikari")
+        public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+            return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        }
+
+        @Bean
+        public HikariDataSource replicaDataSource(ApplicationProperties applicationProperties) {
+            ApplicationProperties.Datasource.Replica replica = applicationProperties.getDatasource().getReplica();
+            HikariDataSource dataSource = DataSourceBuilder
+                .create()
+                .type(HikariDataSource.class)
+                .url(replica.getUrl())
+                .username(replica.getUsername())
+                .password(replica.getPassword())
+                .build();
+            dataSource.setPoolName(replica.getPoolName());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setAutoCommit(false);
+            dataSource.setReadOnly(true);
+            return dataSource;
+        }
+
+        @Bean
+        public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ApplicationProperties applicationProperties,
+            MeterRegistry meterRegistry
+        ) {
+            ApplicationProperties.Datasource.Replica replica = applicationProperties.getDatasource().getReplica();
+            return new ReplicaLagMonitor(replicaDataSource, replica.getLagQuery(), replica.getMaxLag(), meterRegistry);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReplicaLagMonitor replicaLagMonitor,
+            MeterRegistry meterRegistry
+        ) {
+            ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(
+                primaryDataSource,
+                replicaDataSource,
+                replicaLagMonitor,
+                meterRegistry
+            );
+            routingDataSource.afterPropertiesSet();
+            return new LazyConnectionDataSourceProxy(routingDataSource);
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package net.subsquid.quest.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.SQLException;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import net.subsquid.quest.management.HibernateStatisticsMeterBinder;
+import net.subsquid.quest.management.SlowSqlStatementLog;
+import net.subsquid.quest.management.SqlStatementCountingDataSource;
+import org.hibernate.SessionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Publishes the Hibernate statistics as meters and logs slow SQL statements.
+ * <p>
+ * Statistics cost a few counters per statement and entity, so they are only turned on, by
+ * {@code application-hibernate-statistics.yml}, when running with the {@code hibernate-statistics} profile.
+ */
+@Configuration
+@Profile(Constants.SPRING_PROFILE_HIBERNATE_STATISTICS)
+public class HibernateStatisticsConfiguration {
+
+    @Bean
+    public HibernateStatisticsMeterBinder hibernateStatisticsMeterBinder(EntityManagerFactory entityManagerFactory) {
+        return new HibernateStatisticsMeterBinder(entityManagerFactory.unwrap(SessionFactory.class).getStatistics());
+    }
+
+    @Bean
+    public SlowSqlStatementLog slowSqlStatementLog(
+        DataSource dataSource,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) throws SQLException {
+        SlowSqlStatementLog slowStatementLog = new SlowSqlStatementLog(
+            applicationProperties.getHibernateStatistics().getSlowQueryThreshold(),
+            registry
+        );
+        dataSource.unwrap(SqlStatementCountingDataSource.class).setSlowStatementLog(slowStatementLog);
+        return slowStatementLog;
+    }
+}
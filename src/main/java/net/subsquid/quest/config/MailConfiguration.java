@@ -0,0 +1,84 @@
+package net.subsquid.quest.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import net.subsquid.quest.management.MailOutboxMetersService;
+import net.subsquid.quest.repository.OutboxMailRepository;
+import net.subsquid.quest.service.MailOutboxService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Replaces the {@link JavaMailSender} of Spring Boot, which opens a connection per mail, with a
+ * {@link PooledJavaMailSender} configured from the same {@code spring.mail} properties, and creates the
+ * {@link MailOutboxService} delivering the mails through it.
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfiguration {
+
+    @Bean
+    public PooledJavaMailSender javaMailSender(
+        MailProperties mailProperties,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.MailTransport mailTransport = applicationProperties.getMailTransport();
+        PooledJavaMailSender sender = new PooledJavaMailSender(
+            mailTransport.getMaxSize(),
+            mailTransport.getMaxIdle(),
+            mailTransport.getMaxMessages(),
+            mailTransport.getBorrowTimeout(),
+            meterRegistry
+        );
+        sender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            sender.setPort(mailProperties.getPort());
+        }
+        sender.setUsername(mailProperties.getUsername());
+        sender.setPassword(mailProperties.getPassword());
+        sender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        if (!mailProperties.getProperties().isEmpty()) {
+            Properties properties = new Properties();
+            properties.putAll(mailProperties.getProperties());
+            sender.setJavaMailProperties(properties);
+        }
+        return sender;
+    }
+
+    @Bean
+    public MailOutboxService mailOutboxService(
+        OutboxMailRepository outboxMailRepository,
+        JavaMailSender javaMailSender,
+        JHipsterProperties jHipsterProperties,
+        MailOutboxMetersService mailOutboxMetersService,
+        PlatformTransactionManager transactionManager,
+        @Qualifier("mailDeliveryExecutor") Executor mailDeliveryExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.MailOutbox mailOutbox = applicationProperties.getMailOutbox();
+        return new MailOutboxService(
+            outboxMailRepository,
+            javaMailSender,
+            jHipsterProperties,
+            mailOutboxMetersService,
+            transactionManager,
+            mailDeliveryExecutor,
+            mailOutbox.getBatchSize(),
+            mailOutbox.getMaxAttempts(),
+            mailOutbox.getInitialBackoff(),
+            mailOutbox.getMaxBackoff(),
+            mailOutbox.getRetention()
+        );
+    }
+}
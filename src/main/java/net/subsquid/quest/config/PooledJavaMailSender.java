@@ -0,0 +1,260 @@
+package net.subsquid.quest.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.mail.Address;
+import javax.mail.AuthenticationFailedException;
+import javax.mail.MessagingException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * {@link JavaMailSenderImpl} keeping its authenticated SMTP connections open between sends, instead of opening and
+ * closing one per send.
+ * <p>
+ * Up to {@code maxSize} connections are shared by the sending threads, the most recently used first, so that the
+ * others go idle. A connection is closed once idle for longer than {@code maxIdle}, before the server times it out,
+ * once it carried {@code maxMessages}, before the server refuses more, or once it no longer answers, which is checked
+ * before it is reused and after a send through it failed.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    public static final String CONNECTIONS_METER_NAME = "mail.transport.connections";
+    public static final String CONNECTIONS_METER_DESCRIPTION = "Indicates the number of SMTP connections opened.";
+    public static final String CONNECTIONS_METER_BASE_UNIT = "connections";
+
+    public static final String CLOSED_CONNECTIONS_METER_NAME = "mail.transport.connections.closed";
+    public static final String CLOSED_CONNECTIONS_METER_DESCRIPTION = "Indicates the number of SMTP connections closed, by reason.";
+    public static final String CLOSED_CONNECTIONS_METER_REASON_DIMENSION = "reason";
+
+    public static final String IDLE_CONNECTIONS_METER_NAME = "mail.transport.connections.idle";
+    public static final String IDLE_CONNECTIONS_METER_DESCRIPTION = "Indicates the number of open SMTP connections waiting for a mail.";
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    private final Logger log = LoggerFactory.getLogger(PooledJavaMailSender.class);
+
+    private final Deque<PooledTransport> idleTransports = new ArrayDeque<>();
+
+    private final Semaphore permits;
+
+    private final long maxIdleNanos;
+
+    private final int maxMessages;
+
+    private final Duration borrowTimeout;
+
+    private boolean destroyed;
+
+    private final Counter connectionsCounter;
+    private final Counter idleClosedCounter;
+    private final Counter exhaustedClosedCounter;
+    private final Counter brokenClosedCounter;
+
+    public PooledJavaMailSender(int maxSize, Duration maxIdle, int maxMessages, Duration borrowTimeout, MeterRegistry registry) {
+        this.permits = new Semaphore(maxSize, true);
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.maxMessages = maxMessages;
+        this.borrowTimeout = borrowTimeout;
+        this.connectionsCounter = Counter
+            .builder(CONNECTIONS_METER_NAME)
+            .baseUnit(CONNECTIONS_METER_BASE_UNIT)
+            .description(CONNECTIONS_METER_DESCRIPTION)
+            .register(registry);
+        this.idleClosedCounter = closedConnectionsCounterForReasonBuilder("idle").register(registry);
+        this.exhaustedClosedCounter = closedConnectionsCounterForReasonBuilder("exhausted").register(registry);
+        this.brokenClosedCounter = closedConnectionsCounterForReasonBuilder("broken").register(registry);
+        Gauge
+            .builder(IDLE_CONNECTIONS_METER_NAME, this, PooledJavaMailSender::getIdleConnections)
+            .baseUnit(CONNECTIONS_METER_BASE_UNIT)
+            .description(IDLE_CONNECTIONS_METER_DESCRIPTION)
+            .register(registry);
+    }
+
+    private Counter.Builder closedConnectionsCounterForReasonBuilder(String reason) {
+        return Counter
+            .builder(CLOSED_CONNECTIONS_METER_NAME)
+            .baseUnit(CONNECTIONS_METER_BASE_UNIT)
+            .description(CLOSED_CONNECTIONS_METER_DESCRIPTION)
+            .tag(CLOSED_CONNECTIONS_METER_REASON_DIMENSION, reason);
+    }
+
+    public int getIdleConnections() {
+        synchronized (idleTransports) {
+            return idleTransports.size();
+        }
+    }
+
+    /**
+     * Same as {@link JavaMailSenderImpl#doSend}, through a pooled connection.
+     */
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        PooledTransport pooled;
+        try {
+            pooled = borrow();
+        } catch (AuthenticationFailedException e) {
+            throw new MailAuthenticationException(e);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // Effectively, all messages failed...
+            for (int i = 0; i < mimeMessages.length; i++) {
+                failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessages[i], e);
+            }
+            throw new MailSendException("Mail server connection failed", e, failedMessages);
+        }
+
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                MimeMessage mimeMessage = mimeMessages[i];
+                try {
+                    if (mimeMessage.getSentDate() == null) {
+                        mimeMessage.setSentDate(new Date());
+                    }
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null) {
+                        // Preserve explicitly specified message id...
+                        mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+                    }
+                    Address[] addresses = mimeMessage.getAllRecipients();
+                    pooled.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+                    pooled.messages++;
+                } catch (Exception e) {
+                    failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessage, e);
+                    // A rejected mail leaves the connection usable, a dropped connection does not
+                    if (!pooled.broken && !pooled.transport.isConnected()) {
+                        pooled.broken = true;
+                    }
+                }
+            }
+        } finally {
+            release(pooled);
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    /**
+     * Take the most recently used connection still answering, or open a new one, waiting for one to be released once
+     * {@code maxSize} are in use.
+     */
+    private PooledTransport borrow() throws MessagingException, InterruptedException {
+        if (!permits.tryAcquire(borrowTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new MessagingException("No SMTP connection was released within " + borrowTimeout);
+        }
+        try {
+            PooledTransport pooled;
+            while ((pooled = pollIdle()) != null) {
+                // The server may have dropped it while idle, which would fail the mail
+                if (pooled.transport.isConnected()) {
+                    return pooled;
+                }
+                close(pooled, brokenClosedCounter);
+            }
+            pooled = new PooledTransport(connectTransport());
+            connectionsCounter.increment();
+            log.debug("Opened SMTP connection to {}:{}", getHost(), getPort());
+            return pooled;
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Take the most recently used idle connection, closing the expired ones.
+     */
+    @Nullable
+    private PooledTransport pollIdle() {
+        long now = System.nanoTime();
+        synchronized (idleTransports) {
+            // The least recently used ones are the first to expire
+            while (!idleTransports.isEmpty() && now - idleTransports.peekLast().releasedAt > maxIdleNanos) {
+                close(idleTransports.pollLast(), idleClosedCounter);
+            }
+            return idleTransports.pollFirst();
+        }
+    }
+
+    private void release(PooledTransport pooled) {
+        try {
+            if (pooled.broken) {
+                close(pooled, brokenClosedCounter);
+            } else if (pooled.messages >= maxMessages) {
+                close(pooled, exhaustedClosedCounter);
+            } else {
+                pooled.releasedAt = System.nanoTime();
+                synchronized (idleTransports) {
+                    if (!destroyed) {
+                        idleTransports.offerFirst(pooled);
+                        return;
+                    }
+                }
+                close(pooled, idleClosedCounter);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void close(PooledTransport pooled, Counter reasonCounter) {
+        reasonCounter.increment();
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Close the idle connections, the ones in use being closed once released.
+     */
+    @Override
+    public void destroy() {
+        synchronized (idleTransports) {
+            destroyed = true;
+            PooledTransport pooled;
+            while ((pooled = idleTransports.pollFirst()) != null) {
+                close(pooled, idleClosedCounter);
+            }
+        }
+    }
+
+    private static class PooledTransport {
+
+        private final Transport transport;
+
+        private int messages;
+
+        private boolean broken;
+
+        private long releasedAt;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
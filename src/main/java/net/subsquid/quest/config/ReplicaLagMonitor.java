@@ -0,0 +1,73 @@
+package net.subsquid.quest.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Measures the replication lag of the replica pool, telling {@link ReplicaRoutingDataSource} whether read-only
+ * transactions may use it.
+ * <p>
+ * The replica is not used until its lag has been measured once, nor while the lag query fails.
+ */
+public class ReplicaLagMonitor {
+
+    public static final String LAG_METER_NAME = "datasource.replica.lag";
+    public static final String LAG_METER_DESCRIPTION = "Indicates the replication lag last measured on the replica.";
+    public static final String LAG_METER_BASE_UNIT = "seconds";
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String lagQuery;
+
+    private final Duration maxLag;
+
+    private volatile double lagSeconds = Double.NaN;
+
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, String lagQuery, Duration maxLag, MeterRegistry registry) {
+        this.jdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        Gauge
+            .builder(LAG_METER_NAME, this, monitor -> monitor.lagSeconds)
+            .baseUnit(LAG_METER_BASE_UNIT)
+            .description(LAG_METER_DESCRIPTION)
+            .register(registry);
+    }
+
+    /**
+     * Run the lag query on the replica.
+     * <p>
+     * This is scheduled to get fired every {@code application.datasource.replica.lag-check-interval}.
+     */
+    @Scheduled(fixedDelayString = "${application.datasource.replica.lag-check-interval:PT5S}")
+    public void checkLag() {
+        boolean wasUsable = replicaUsable;
+        try {
+            Double lag = jdbcTemplate.queryForObject(lagQuery, Double.class);
+            lagSeconds = lag == null ? 0 : lag;
+            replicaUsable = lagSeconds * 1000 <= maxLag.toMillis();
+        } catch (DataAccessException e) {
+            log.warn("Could not measure the replica lag: {}", e.getMessage());
+            lagSeconds = Double.NaN;
+            replicaUsable = false;
+        }
+        if (replicaUsable != wasUsable) {
+            log.info("Read-only transactions now use the {} pool, replica lag: {} s", replicaUsable ? "replica" : "primary", lagSeconds);
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+}
@@ -0,0 +1,77 @@
+package net.subsquid.quest.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Data source handing out replica connections to read-only transactions, and primary connections to everything else.
+ * <p>
+ * The transaction must be known when a connection is requested, so this data source is meant to be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the JPA transaction manager asks for a
+ * connection when the transaction begins, before it is flagged read-only.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String CONNECTIONS_METER_NAME = "datasource.routing.connections";
+    public static final String CONNECTIONS_METER_DESCRIPTION = "Indicates the number of connections routed to each pool.";
+    public static final String CONNECTIONS_METER_BASE_UNIT = "connections";
+    public static final String CONNECTIONS_METER_POOL_DIMENSION = "pool";
+
+    public static final String FALLBACKS_METER_NAME = "datasource.routing.fallbacks";
+    public static final String FALLBACKS_METER_DESCRIPTION =
+        "Indicates the number of read-only transactions routed to the primary pool because the replica lagged.";
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+    private final Counter fallbackCounter;
+
+    public ReplicaRoutingDataSource(
+        DataSource primaryDataSource,
+        DataSource replicaDataSource,
+        ReplicaLagMonitor replicaLagMonitor,
+        MeterRegistry registry
+    ) {
+        this.replicaLagMonitor = replicaLagMonitor;
+        setTargetDataSources(Map.of(PRIMARY, primaryDataSource, REPLICA, replicaDataSource));
+        setDefaultTargetDataSource(primaryDataSource);
+        this.primaryCounter = connectionsCounterForPoolBuilder(PRIMARY).register(registry);
+        this.replicaCounter = connectionsCounterForPoolBuilder(REPLICA).register(registry);
+        this.fallbackCounter = Counter
+            .builder(FALLBACKS_METER_NAME)
+            .baseUnit(CONNECTIONS_METER_BASE_UNIT)
+            .description(FALLBACKS_METER_DESCRIPTION)
+            .register(registry);
+    }
+
+    private Counter.Builder connectionsCounterForPoolBuilder(String pool) {
+        return Counter
+            .builder(CONNECTIONS_METER_NAME)
+            .baseUnit(CONNECTIONS_METER_BASE_UNIT)
+            .description(CONNECTIONS_METER_DESCRIPTION)
+            .tag(CONNECTIONS_METER_POOL_DIMENSION, pool);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryCounter.increment();
+            return PRIMARY;
+        }
+        if (!replicaLagMonitor.isReplicaUsable()) {
+            fallbackCounter.increment();
+            primaryCounter.increment();
+            return PRIMARY;
+        }
+        replicaCounter.increment();
+        return REPLICA;
+    }
+}
@@ -0,0 +1,51 @@
+package net.subsquid.quest.config;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+import net.subsquid.quest.aop.scheduling.SchedulerLockAspect;
+import net.subsquid.quest.aop.scheduling.SchedulerLockProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@EnableAspectJAutoProxy
+public class SchedulerLockConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public SchedulerLockProvider schedulerLockProvider(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.SchedulerLock schedulerLock = applicationProperties.getSchedulerLock();
+        return new SchedulerLockProvider(
+            jdbcTemplate,
+            transactionManager,
+            schedulerLock.getLeaseTime(),
+            schedulerLock.getHeartbeatInterval(),
+            instanceId()
+        );
+    }
+
+    @Bean
+    public SchedulerLockAspect schedulerLockAspect(SchedulerLockProvider schedulerLockProvider) {
+        return new SchedulerLockAspect(schedulerLockProvider);
+    }
+
+    /**
+     * The host name, and a random suffix telling apart the instances of a host.
+     */
+    private static String instanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "/" + UUID.randomUUID();
+    }
+}
@@ -1,5 +1,6 @@
 package net.subsquid.quest.config;
 
+import net.subsquid.quest.repository.TokenRevocationRepository;
 import net.subsquid.quest.security.*;
 import net.subsquid.quest.security.jwt.*;
 import org.springframework.context.annotation.Bean;
@@ -48,6 +49,22 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * Static, as the {@link TokenProvider} this configuration is created with depends on it.
+     */
+    @Bean
+    public static TokenRevocationStore tokenRevocationStore(
+        TokenRevocationRepository tokenRevocationRepository,
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties
+    ) {
+        return new TokenRevocationStore(
+            tokenRevocationRepository,
+            jHipsterProperties,
+            applicationProperties.getTokenRevocation().getFalsePositiveProbability()
+        );
+    }
+
     @Override
     public void configure(WebSecurity web) {
         web
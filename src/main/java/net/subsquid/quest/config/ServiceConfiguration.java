@@ -0,0 +1,64 @@
+package net.subsquid.quest.config;
+
+import javax.validation.Validator;
+import net.subsquid.quest.management.QuestLifecycleMetersService;
+import net.subsquid.quest.management.UserCleanupMetersService;
+import net.subsquid.quest.repository.QuestRepository;
+import net.subsquid.quest.repository.UserRepository;
+import net.subsquid.quest.security.DomainUserDetailsService;
+import net.subsquid.quest.service.BulkSaveService;
+import net.subsquid.quest.service.QuestLifecycleService;
+import net.subsquid.quest.service.UserCleanupService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Creates the services tuned by the {@link ApplicationProperties}, as the service layer does not depend on the
+ * configuration.
+ */
+@Configuration
+public class ServiceConfiguration {
+
+    @Bean
+    public BulkSaveService bulkSaveService(
+        PlatformTransactionManager transactionManager,
+        Validator validator,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Bulk bulk = applicationProperties.getBulk();
+        return new BulkSaveService(transactionManager, validator, bulk.getChunkSize(), bulk.getMaxItems());
+    }
+
+    @Bean
+    public QuestLifecycleService questLifecycleService(
+        QuestRepository questRepository,
+        QuestLifecycleMetersService questLifecycleMetersService,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        return new QuestLifecycleService(
+            questRepository,
+            questLifecycleMetersService,
+            transactionManager,
+            applicationProperties.getQuestLifecycle().getChunkSize()
+        );
+    }
+
+    @Bean
+    public UserCleanupService userCleanupService(
+        UserRepository userRepository,
+        DomainUserDetailsService userDetailsService,
+        UserCleanupMetersService userCleanupMetersService,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        return new UserCleanupService(
+            userRepository,
+            userDetailsService,
+            userCleanupMetersService,
+            transactionManager,
+            applicationProperties.getUserCleanup().getChunkSize()
+        );
+    }
+}
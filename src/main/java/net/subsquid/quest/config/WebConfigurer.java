@@ -2,12 +2,21 @@ package net.subsquid.quest.config;
 
 import static java.net.URLDecoder.decode;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
 import javax.servlet.*;
+import net.subsquid.quest.management.SqlStatementMetersService;
+import net.subsquid.quest.security.RateLimiter;
+import net.subsquid.quest.web.filter.RateLimitFilter;
+import net.subsquid.quest.web.filter.SqlStatementBudgetFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.server.*;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
@@ -101,6 +110,36 @@ public class WebConfigurer implements ServletContextInitializer, WebServerFactor
         return new CorsFilter(source);
     }
 
+    @Bean
+    @ConditionalOnProperty(prefix = "application.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RateLimitFilter rateLimitFilter(RateLimiter rateLimiter, ApplicationProperties applicationProperties, ObjectMapper objectMapper) {
+        List<RateLimitFilter.Route> routes = applicationProperties
+            .getRateLimit()
+            .getRoutes()
+            .entrySet()
+            .stream()
+            .map(route ->
+                new RateLimitFilter.Route(
+                    route.getKey(),
+                    new HashSet<>(route.getValue().getMethods()),
+                    route.getValue().getPaths(),
+                    new RateLimiter.Limit(route.getValue().getCapacity(), route.getValue().getPeriod()),
+                    route.getValue().getLoginField()
+                )
+            )
+            .collect(Collectors.toList());
+        log.debug("Registering rate limit filter with routes {}", applicationProperties.getRateLimit().getRoutes().keySet());
+        return new RateLimitFilter(rateLimiter, routes, objectMapper);
+    }
+
+    @Bean
+    public SqlStatementBudgetFilter sqlStatementBudgetFilter(
+        SqlStatementMetersService sqlStatementMetersService,
+        ApplicationProperties applicationProperties
+    ) {
+        return new SqlStatementBudgetFilter(sqlStatementMetersService, applicationProperties.getSqlStatements().getRequestBudget());
+    }
+
     /**
      * Initializes H2 console.
      */
@@ -1,17 +1,25 @@
 package net.subsquid.quest.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.Serializable;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * A Applicant.
  */
 @Entity
 @Table(name = "applicant")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Applicant implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -26,14 +34,14 @@ public class Applicant implements Serializable {
     @Column(name = "discord_handle", nullable = false)
     private String discordHandle;
 
-    @ManyToMany
-    @JoinTable(
-        name = "rel_quest__applicant",
-        joinColumns = @JoinColumn(name = "applicant_id"),
-        inverseJoinColumns = @JoinColumn(name = "quest_id")
-    )
-    @JsonIgnoreProperties(value = { "applicants" }, allowSetters = true)
-    private Set<Quest> quests = new HashSet<>();
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @OneToMany(mappedBy = "applicant")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @JsonIgnore
+    private Set<QuestApplication> applications = new HashSet<>();
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
@@ -63,29 +71,34 @@ public class Applicant implements Serializable {
         this.discordHandle = discordHandle;
     }
 
-    public Set<Quest> getQuests() {
-        return this.quests;
+    public Long getVersion() {
+        return this.version;
     }
 
-    public void setQuests(Set<Quest> quests) {
-        this.quests = quests;
+    public Applicant version(Long version) {
+        this.setVersion(version);
+        return this;
     }
 
-    public Applicant quests(Set<Quest> quests) {
-        this.setQuests(quests);
-        return this;
+    public void setVersion(Long version) {
+        this.version = version;
     }
 
-    public Applicant addQuest(Quest quest) {
-        this.quests.add(quest);
-        quest.getApplicants().add(this);
-        return this;
+    public Set<QuestApplication> getApplications() {
+        return this.applications;
     }
 
-    public Applicant removeQuest(Quest quest) {
-        this.quests.remove(quest);
-        quest.getApplicants().remove(this);
-        return this;
+    /**
+     * Read-only view of the quests applied to, rendered only when the applications have been loaded.
+     * Applications are added and removed through {@link QuestApplication}, never through this list.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonIgnoreProperties(value = { "applicants" })
+    public List<Quest> getQuests() {
+        if (!Hibernate.isInitialized(this.applications)) {
+            return null;
+        }
+        return this.applications.stream().map(QuestApplication::getQuest).collect(Collectors.toList());
     }
 
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
@@ -112,6 +125,7 @@ public class Applicant implements Serializable {
     public String toString() {
         return "Applicant{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", discordHandle='" + getDiscordHandle() + "'" +
             "}";
     }
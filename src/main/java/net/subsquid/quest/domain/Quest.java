@@ -1,19 +1,27 @@
 package net.subsquid.quest.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 import javax.persistence.*;
 import javax.validation.constraints.*;
 import net.subsquid.quest.domain.enumeration.QuestStatus;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * A Quest.
  */
 @Entity
 @Table(name = "quest")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Quest implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -59,14 +67,22 @@ public class Quest implements Serializable {
     @Column(name = "private_notes")
     private String privateNotes;
 
-    @ManyToMany
-    @JoinTable(
-        name = "rel_quest__applicant",
-        joinColumns = @JoinColumn(name = "quest_id"),
-        inverseJoinColumns = @JoinColumn(name = "applicant_id")
-    )
-    @JsonIgnoreProperties(value = { "quests" }, allowSetters = true)
-    private Set<Applicant> applicants = new HashSet<>();
+    /**
+     * Number of applications, maintained by {@code QuestService} under the quest row lock so that lists can render
+     * it without reading {@code quest_application}.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "applicant_count", nullable = false)
+    private Integer applicantCount = 0;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @OneToMany(mappedBy = "quest")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @JsonIgnore
+    private Set<QuestApplication> applications = new HashSet<>();
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
@@ -200,31 +216,49 @@ public class Quest implements Serializable {
         this.privateNotes = privateNotes;
     }
 
-    public Set<Applicant> getApplicants() {
-        return this.applicants;
+    public Integer getApplicantCount() {
+        return this.applicantCount;
     }
 
-    public void setApplicants(Set<Applicant> applicants) {
-        this.applicants = applicants;
+    public Quest applicantCount(Integer applicantCount) {
+        this.setApplicantCount(applicantCount);
+        return this;
     }
 
-    public Quest applicants(Set<Applicant> applicants) {
-        this.setApplicants(applicants);
-        return this;
+    public void setApplicantCount(Integer applicantCount) {
+        this.applicantCount = applicantCount;
     }
 
-    public Quest addApplicant(Applicant applicant) {
-        this.applicants.add(applicant);
-        applicant.getQuests().add(this);
-        return this;
+    public Long getVersion() {
+        return this.version;
     }
 
-    public Quest removeApplicant(Applicant applicant) {
-        this.applicants.remove(applicant);
-        applicant.getQuests().remove(this);
+    public Quest version(Long version) {
+        this.setVersion(version);
         return this;
     }
 
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Set<QuestApplication> getApplications() {
+        return this.applications;
+    }
+
+    /**
+     * Read-only view of the applicants, rendered only when the applications have been loaded.
+     * Applications are added and removed through {@link QuestApplication}, never through this list.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonIgnoreProperties(value = { "quests" })
+    public List<Applicant> getApplicants() {
+        if (!Hibernate.isInitialized(this.applications)) {
+            return null;
+        }
+        return this.applications.stream().map(QuestApplication::getApplicant).collect(Collectors.toList());
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -249,6 +283,7 @@ public class Quest implements Serializable {
     public String toString() {
         return "Quest{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", title='" + getTitle() + "'" +
             ", description='" + getDescription() + "'" +
             ", reward='" + getReward() + "'" +
@@ -258,6 +293,7 @@ public class Quest implements Serializable {
             ", assignee='" + getAssignee() + "'" +
             ", status='" + getStatus() + "'" +
             ", privateNotes='" + getPrivateNotes() + "'" +
+            ", applicantCount=" + getApplicantCount() +
             "}";
     }
 }
@@ -0,0 +1,156 @@
+package net.subsquid.quest.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+import net.subsquid.quest.domain.enumeration.ApplicationState;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * The application of an {@link Applicant} to a {@link Quest}.
+ * <p>
+ * This entity is the only owner of the quest/applicant relationship: the {@code applications} collections of both
+ * sides are inverse, so an application is added or removed with a single row write, without loading either collection.
+ */
+@Entity
+@Table(name = "quest_application")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+public class QuestApplication implements Serializable, Persistable<QuestApplicationId> {
+
+    private static final long serialVersionUID = 1L;
+
+    @EmbeddedId
+    private QuestApplicationId id;
+
+    @JsonIgnore
+    @MapsId("questId")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "quest_id")
+    private Quest quest;
+
+    @JsonIgnore
+    @MapsId("applicantId")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "applicant_id")
+    private Applicant applicant;
+
+    @NotNull
+    @Column(name = "applied_at", nullable = false)
+    private Instant appliedAt;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false)
+    private ApplicationState state;
+
+    @Transient
+    private boolean isPersisted;
+
+    public QuestApplication() {}
+
+    public QuestApplication(Quest quest, Applicant applicant) {
+        this.id = new QuestApplicationId(quest.getId(), applicant.getId());
+        this.quest = quest;
+        this.applicant = applicant;
+        this.appliedAt = Instant.now();
+        this.state = ApplicationState.APPLIED;
+    }
+
+    @Override
+    public QuestApplicationId getId() {
+        return this.id;
+    }
+
+    public void setId(QuestApplicationId id) {
+        this.id = id;
+    }
+
+    public Quest getQuest() {
+        return this.quest;
+    }
+
+    public void setQuest(Quest quest) {
+        this.quest = quest;
+    }
+
+    public Applicant getApplicant() {
+        return this.applicant;
+    }
+
+    public void setApplicant(Applicant applicant) {
+        this.applicant = applicant;
+    }
+
+    public Instant getAppliedAt() {
+        return this.appliedAt;
+    }
+
+    public QuestApplication appliedAt(Instant appliedAt) {
+        this.setAppliedAt(appliedAt);
+        return this;
+    }
+
+    public void setAppliedAt(Instant appliedAt) {
+        this.appliedAt = appliedAt;
+    }
+
+    public ApplicationState getState() {
+        return this.state;
+    }
+
+    public QuestApplication state(ApplicationState state) {
+        this.setState(state);
+        return this;
+    }
+
+    public void setState(ApplicationState state) {
+        this.state = state;
+    }
+
+    /**
+     * The id is assigned from both sides rather than generated, so Spring Data needs to be told when to
+     * {@code persist} instead of {@code merge}, which would otherwise select the row first.
+     */
+    @JsonIgnore
+    @Override
+    public boolean isNew() {
+        return !this.isPersisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void updateEntityState() {
+        this.isPersisted = true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof QuestApplication)) {
+            return false;
+        }
+        return id != null && id.equals(((QuestApplication) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // The id is assigned on construction and never changes, unlike the generated ids of the other entities
+        return id != null ? id.hashCode() : getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "QuestApplication{" +
+            "id=" + getId() +
+            ", appliedAt='" + getAppliedAt() + "'" +
+            ", state='" + getState() + "'" +
+            "}";
+    }
+}
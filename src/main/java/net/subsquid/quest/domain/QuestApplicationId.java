@@ -0,0 +1,70 @@
+package net.subsquid.quest.domain;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * The composite primary key of a {@link QuestApplication}.
+ */
+@Embeddable
+public class QuestApplicationId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "quest_id")
+    private Long questId;
+
+    @Column(name = "applicant_id")
+    private Long applicantId;
+
+    public QuestApplicationId() {}
+
+    public QuestApplicationId(Long questId, Long applicantId) {
+        this.questId = questId;
+        this.applicantId = applicantId;
+    }
+
+    public Long getQuestId() {
+        return this.questId;
+    }
+
+    public void setQuestId(Long questId) {
+        this.questId = questId;
+    }
+
+    public Long getApplicantId() {
+        return this.applicantId;
+    }
+
+    public void setApplicantId(Long applicantId) {
+        this.applicantId = applicantId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof QuestApplicationId)) {
+            return false;
+        }
+        QuestApplicationId other = (QuestApplicationId) o;
+        return Objects.equals(questId, other.questId) && Objects.equals(applicantId, other.applicantId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(questId, applicantId);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "QuestApplicationId{" +
+            "questId=" + getQuestId() +
+            ", applicantId=" + getApplicantId() +
+            "}";
+    }
+}
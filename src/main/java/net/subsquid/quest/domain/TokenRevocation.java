@@ -0,0 +1,81 @@
+package net.subsquid.quest.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * The revocation of the tokens of a user: every token issued to the user before {@code revokedAt} is rejected.
+ * <p>
+ * This entity is not cached, so that a revocation is seen by all the instances as soon as it is committed.
+ */
+@Entity
+@Table(name = "jhi_token_revocation")
+public class TokenRevocation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    @Size(max = 50)
+    @Id
+    @Column(length = 50)
+    private String login;
+
+    @NotNull
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    public TokenRevocation() {}
+
+    public TokenRevocation(String login, Instant revokedAt) {
+        this.login = login;
+        this.revokedAt = revokedAt;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(Instant revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TokenRevocation)) {
+            return false;
+        }
+        return Objects.equals(login, ((TokenRevocation) o).login);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(login);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TokenRevocation{" +
+            "login='" + login + '\'' +
+            ", revokedAt='" + revokedAt + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,10 @@
+package net.subsquid.quest.domain.enumeration;
+
+/**
+ * The ApplicationState enumeration.
+ */
+public enum ApplicationState {
+    APPLIED,
+    ACCEPTED,
+    REJECTED,
+}
@@ -0,0 +1,10 @@
+package net.subsquid.quest.domain.enumeration;
+
+/**
+ * The MailStatus enumeration.
+ */
+public enum MailStatus {
+    PENDING,
+    SENT,
+    DEAD,
+}
@@ -0,0 +1,160 @@
+package net.subsquid.quest.management;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Publishes the Hibernate {@link Statistics} as meters: second-level and query cache requests and hit ratios, entity
+ * loads and fetches, and the execution count, total and maximum time of each HQL or native query.
+ * <p>
+ * Queries only get known to the statistics once executed, so their meters are registered by {@link #bindQueries()}.
+ * Queries are tagged with their text redacted by {@link SqlRedactor}.
+ */
+public class HibernateStatisticsMeterBinder implements MeterBinder {
+
+    public static final String SECOND_LEVEL_CACHE_REQUESTS_METER_NAME = "hibernate.second-level-cache.requests";
+    public static final String SECOND_LEVEL_CACHE_HIT_RATIO_METER_NAME = "hibernate.second-level-cache.hit-ratio";
+    public static final String QUERY_CACHE_REQUESTS_METER_NAME = "hibernate.query-cache.requests";
+    public static final String QUERY_CACHE_HIT_RATIO_METER_NAME = "hibernate.query-cache.hit-ratio";
+    public static final String ENTITY_LOADS_METER_NAME = "hibernate.entity.loads";
+    public static final String ENTITY_FETCHES_METER_NAME = "hibernate.entity.fetches";
+    public static final String QUERY_EXECUTIONS_METER_NAME = "hibernate.query.executions";
+    public static final String QUERY_EXECUTIONS_MAX_METER_NAME = "hibernate.query.executions.max";
+
+    public static final String RESULT_DIMENSION = "result";
+    public static final String REGION_DIMENSION = "region";
+    public static final String ENTITY_DIMENSION = "entity";
+    public static final String QUERY_DIMENSION = "query";
+
+    private static final String HIT = "hit";
+    private static final String MISS = "miss";
+
+    private final Statistics statistics;
+
+    private final Set<String> boundQueries = ConcurrentHashMap.newKeySet();
+
+    private volatile MeterRegistry registry;
+
+    public HibernateStatisticsMeterBinder(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            bindCacheRegion(registry, region);
+        }
+        for (String result : new String[] { HIT, MISS }) {
+            FunctionCounter
+                .builder(
+                    QUERY_CACHE_REQUESTS_METER_NAME,
+                    statistics,
+                    HIT.equals(result) ? Statistics::getQueryCacheHitCount : Statistics::getQueryCacheMissCount
+                )
+                .baseUnit("requests")
+                .description("Indicates the number of query cache requests, by result.")
+                .tag(RESULT_DIMENSION, result)
+                .register(registry);
+        }
+        Gauge
+            .builder(QUERY_CACHE_HIT_RATIO_METER_NAME, statistics, s -> hitRatio(s.getQueryCacheHitCount(), s.getQueryCacheMissCount()))
+            .description("Indicates the ratio of query cache requests which were hits.")
+            .register(registry);
+        for (String entity : statistics.getEntityNames()) {
+            FunctionCounter
+                .builder(ENTITY_LOADS_METER_NAME, statistics, s -> s.getEntityStatistics(entity).getLoadCount())
+                .baseUnit("loads")
+                .description("Indicates the number of entities loaded, from the database or the second-level cache.")
+                .tag(ENTITY_DIMENSION, entity)
+                .register(registry);
+            FunctionCounter
+                .builder(ENTITY_FETCHES_METER_NAME, statistics, s -> s.getEntityStatistics(entity).getFetchCount())
+                .baseUnit("fetches")
+                .description("Indicates the number of entities fetched from the database to initialize a lazy association.")
+                .tag(ENTITY_DIMENSION, entity)
+                .register(registry);
+        }
+        bindQueries();
+    }
+
+    /**
+     * Register the meters of the queries executed since the last call.
+     * <p>
+     * This is scheduled to get fired every {@code application.hibernate-statistics.query-meters-refresh-interval}.
+     */
+    @Scheduled(fixedDelayString = "${application.hibernate-statistics.query-meters-refresh-interval:PT1M}")
+    public void bindQueries() {
+        MeterRegistry currentRegistry = registry;
+        if (currentRegistry == null) {
+            return;
+        }
+        for (String query : statistics.getQueries()) {
+            if (boundQueries.add(query)) {
+                bindQuery(currentRegistry, query);
+            }
+        }
+    }
+
+    private void bindQuery(MeterRegistry registry, String query) {
+        String redactedQuery = SqlRedactor.redact(query);
+        QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+        FunctionTimer
+            .builder(
+                QUERY_EXECUTIONS_METER_NAME,
+                queryStatistics,
+                QueryStatistics::getExecutionCount,
+                QueryStatistics::getExecutionTotalTime,
+                TimeUnit.MILLISECONDS
+            )
+            .description("Indicates the number and the total time of the executions of a query.")
+            .tag(QUERY_DIMENSION, redactedQuery)
+            .register(registry);
+        TimeGauge
+            .builder(QUERY_EXECUTIONS_MAX_METER_NAME, queryStatistics, TimeUnit.MILLISECONDS, QueryStatistics::getExecutionMaxTime)
+            .description("Indicates the longest execution time of a query.")
+            .tag(QUERY_DIMENSION, redactedQuery)
+            .register(registry);
+    }
+
+    private void bindCacheRegion(MeterRegistry registry, String region) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        if (regionStatistics == null) {
+            return;
+        }
+        for (String result : new String[] { HIT, MISS }) {
+            FunctionCounter
+                .builder(
+                    SECOND_LEVEL_CACHE_REQUESTS_METER_NAME,
+                    regionStatistics,
+                    HIT.equals(result) ? CacheRegionStatistics::getHitCount : CacheRegionStatistics::getMissCount
+                )
+                .baseUnit("requests")
+                .description("Indicates the number of second-level cache requests, by result.")
+                .tag(REGION_DIMENSION, region)
+                .tag(RESULT_DIMENSION, result)
+                .register(registry);
+        }
+        Gauge
+            .builder(SECOND_LEVEL_CACHE_HIT_RATIO_METER_NAME, regionStatistics, s -> hitRatio(s.getHitCount(), s.getMissCount()))
+            .description("Indicates the ratio of second-level cache requests which were hits.")
+            .tag(REGION_DIMENSION, region)
+            .register(registry);
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        long requests = hits + misses;
+        return requests == 0 ? Double.NaN : (double) hits / requests;
+    }
+}
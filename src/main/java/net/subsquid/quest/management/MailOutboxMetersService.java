@@ -0,0 +1,82 @@
+package net.subsquid.quest.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MailOutboxMetersService {
+
+    public static final String ENQUEUED_METER_NAME = "mail.outbox.enqueued";
+    public static final String ENQUEUED_METER_DESCRIPTION = "Indicates the number of mails written to the outbox.";
+
+    public static final String DELIVERIES_METER_NAME = "mail.outbox.deliveries";
+    public static final String DELIVERIES_METER_DESCRIPTION = "Indicates the number of delivery attempts of the mails of the outbox, by result.";
+    public static final String DELIVERIES_METER_BASE_UNIT = "mails";
+    public static final String DELIVERIES_METER_RESULT_DIMENSION = "result";
+
+    public static final String DELIVERY_DURATION_METER_NAME = "mail.outbox.delivery.duration";
+    public static final String DELIVERY_DURATION_METER_DESCRIPTION = "Indicates the time taken to hand a mail over to the SMTP server.";
+
+    public static final String LATENCY_METER_NAME = "mail.outbox.latency";
+    public static final String LATENCY_METER_DESCRIPTION = "Indicates the time from the writing of a mail to the outbox to its delivery.";
+
+    private final Counter enqueuedCounter;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter deadCounter;
+    private final Timer deliveryDurationTimer;
+    private final Timer latencyTimer;
+
+    public MailOutboxMetersService(MeterRegistry registry) {
+        this.enqueuedCounter =
+            Counter
+                .builder(ENQUEUED_METER_NAME)
+                .baseUnit(DELIVERIES_METER_BASE_UNIT)
+                .description(ENQUEUED_METER_DESCRIPTION)
+                .register(registry);
+        this.sentCounter = deliveriesCounterForResultBuilder("sent").register(registry);
+        this.failedCounter = deliveriesCounterForResultBuilder("failed").register(registry);
+        this.deadCounter = deliveriesCounterForResultBuilder("dead").register(registry);
+        this.deliveryDurationTimer =
+            Timer.builder(DELIVERY_DURATION_METER_NAME).description(DELIVERY_DURATION_METER_DESCRIPTION).register(registry);
+        this.latencyTimer = Timer.builder(LATENCY_METER_NAME).description(LATENCY_METER_DESCRIPTION).register(registry);
+    }
+
+    private Counter.Builder deliveriesCounterForResultBuilder(String result) {
+        return Counter
+            .builder(DELIVERIES_METER_NAME)
+            .baseUnit(DELIVERIES_METER_BASE_UNIT)
+            .description(DELIVERIES_METER_DESCRIPTION)
+            .tag(DELIVERIES_METER_RESULT_DIMENSION, result);
+    }
+
+    public void trackEnqueued() {
+        this.enqueuedCounter.increment();
+    }
+
+    public void trackSent(Duration latency) {
+        this.sentCounter.increment();
+        this.latencyTimer.record(latency);
+    }
+
+    /**
+     * Track a failed delivery attempt, to be retried.
+     */
+    public void trackFailed() {
+        this.failedCounter.increment();
+    }
+
+    /**
+     * Track a failed delivery attempt, the last one.
+     */
+    public void trackDead() {
+        this.deadCounter.increment();
+    }
+
+    public void trackDeliveryDuration(Duration duration) {
+        this.deliveryDurationTimer.record(duration);
+    }
+}
@@ -0,0 +1,51 @@
+package net.subsquid.quest.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+@Service
+public class PasswordHashingMetersService {
+
+    public static final String DURATION_METER_NAME = "security.authentication.password-hashing.duration";
+    public static final String DURATION_METER_DESCRIPTION = "Indicates the time taken to authenticate a login, mostly spent hashing its password.";
+
+    public static final String QUEUE_METER_NAME = "security.authentication.password-hashing.queue";
+    public static final String QUEUE_METER_DESCRIPTION = "Indicates the number of logins waiting for a password hashing thread.";
+    public static final String QUEUE_METER_BASE_UNIT = "logins";
+
+    public static final String REJECTED_METER_NAME = "security.authentication.password-hashing.rejected";
+    public static final String REJECTED_METER_DESCRIPTION = "Indicates the number of logins rejected because the password hashing queue was full.";
+
+    private final MeterRegistry registry;
+
+    private final Timer durationTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingMetersService(MeterRegistry registry) {
+        this.registry = registry;
+        this.durationTimer = Timer.builder(DURATION_METER_NAME).description(DURATION_METER_DESCRIPTION).register(registry);
+        this.rejectedCounter =
+            Counter.builder(REJECTED_METER_NAME).baseUnit(QUEUE_METER_BASE_UNIT).description(REJECTED_METER_DESCRIPTION).register(registry);
+    }
+
+    public void bindQueue(ThreadPoolTaskExecutor executor) {
+        Gauge
+            .builder(QUEUE_METER_NAME, executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+            .baseUnit(QUEUE_METER_BASE_UNIT)
+            .description(QUEUE_METER_DESCRIPTION)
+            .register(registry);
+    }
+
+    public void trackDuration(Duration duration) {
+        this.durationTimer.record(duration);
+    }
+
+    public void trackRejected() {
+        this.rejectedCounter.increment();
+    }
+}
@@ -0,0 +1,50 @@
+package net.subsquid.quest.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import org.springframework.stereotype.Service;
+
+@Service
+public class QuestLifecycleMetersService {
+
+    public static final String TRANSITIONS_METER_NAME = "quest.lifecycle.transitions";
+    public static final String TRANSITIONS_METER_DESCRIPTION =
+        "Indicates the number of quests moved to a status by the scheduled transitions.";
+    public static final String TRANSITIONS_METER_BASE_UNIT = "quests";
+    public static final String TRANSITIONS_METER_STATUS_DIMENSION = "status";
+
+    public static final String DURATION_METER_NAME = "quest.lifecycle.duration";
+    public static final String DURATION_METER_DESCRIPTION = "Indicates the time taken by a run of the scheduled transitions.";
+
+    private final Counter inReviewCounter;
+    private final Counter closedCounter;
+    private final Timer durationTimer;
+
+    public QuestLifecycleMetersService(MeterRegistry registry) {
+        this.inReviewCounter = transitionsCounterForStatusBuilder("INREVIEW").register(registry);
+        this.closedCounter = transitionsCounterForStatusBuilder("CLOSED").register(registry);
+        this.durationTimer = Timer.builder(DURATION_METER_NAME).description(DURATION_METER_DESCRIPTION).register(registry);
+    }
+
+    private Counter.Builder transitionsCounterForStatusBuilder(String status) {
+        return Counter
+            .builder(TRANSITIONS_METER_NAME)
+            .baseUnit(TRANSITIONS_METER_BASE_UNIT)
+            .description(TRANSITIONS_METER_DESCRIPTION)
+            .tag(TRANSITIONS_METER_STATUS_DIMENSION, status);
+    }
+
+    public void trackQuestsInReview(int count) {
+        this.inReviewCounter.increment(count);
+    }
+
+    public void trackQuestsClosed(int count) {
+        this.closedCounter.increment(count);
+    }
+
+    public void trackDuration(Duration duration) {
+        this.durationTimer.record(duration);
+    }
+}
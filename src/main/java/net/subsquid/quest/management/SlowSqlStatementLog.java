@@ -0,0 +1,53 @@
+package net.subsquid.quest.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log of the SQL statements slower than a threshold, fed by {@link SqlStatementCountingDataSource}.
+ * <p>
+ * Unlike {@code hibernate.session.events.log.LOG_QUERIES_SLOWER_THAN_MS}, which logs the driver's {@code toString()} of
+ * the statement and with it the bound values on most drivers, only the SQL text is logged, redacted by
+ * {@link SqlRedactor}.
+ */
+public class SlowSqlStatementLog {
+
+    public static final String SLOW_STATEMENTS_METER_NAME = "sql.statements.slow";
+    public static final String SLOW_STATEMENTS_METER_DESCRIPTION = "Indicates the number of SQL statements slower than the threshold.";
+    public static final String SLOW_STATEMENTS_METER_BASE_UNIT = "statements";
+
+    private final Logger log = LoggerFactory.getLogger(SlowSqlStatementLog.class);
+
+    private final long thresholdNanos;
+
+    private final Counter slowStatementsCounter;
+
+    public SlowSqlStatementLog(Duration threshold, MeterRegistry registry) {
+        this.thresholdNanos = threshold.toNanos();
+        this.slowStatementsCounter =
+            Counter
+                .builder(SLOW_STATEMENTS_METER_NAME)
+                .baseUnit(SLOW_STATEMENTS_METER_BASE_UNIT)
+                .description(SLOW_STATEMENTS_METER_DESCRIPTION)
+                .register(registry);
+    }
+
+    /**
+     * Log a statement if it was slower than the threshold.
+     *
+     * @param sql the SQL of the statement, or {@code null} for a batch of plain statements.
+     * @param nanos the execution time.
+     */
+    public void executed(String sql, long nanos) {
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        slowStatementsCounter.increment();
+        String redactedSql = sql == null ? "<batch>" : SqlRedactor.redact(sql);
+        log.warn("Slow SQL statement took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(nanos), redactedSql);
+    }
+}
@@ -0,0 +1,34 @@
+package net.subsquid.quest.management;
+
+import java.util.regex.Pattern;
+
+/**
+ * Utility class removing values from SQL and HQL before they are logged or used as meter tags.
+ * <p>
+ * Bound parameters are never read, and the literals written in the statement itself, such as {@code 'OPEN'} or
+ * {@code 42}, are replaced by {@code ?}.
+ */
+public final class SqlRedactor {
+
+    private static final String PLACEHOLDER = "?";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.$:?])[-+]?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?(?![\\w.])");
+
+    private SqlRedactor() {}
+
+    /**
+     * Replace the literals of a statement by {@code ?}.
+     *
+     * @param sql the statement, may be {@code null}.
+     * @return the redacted statement.
+     */
+    public static String redact(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String redacted = STRING_LITERAL.matcher(sql).replaceAll(PLACEHOLDER);
+        return NUMERIC_LITERAL.matcher(redacted).replaceAll(PLACEHOLDER);
+    }
+}
@@ -0,0 +1,118 @@
+package net.subsquid.quest.management;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source counting the statement executions of its connections in {@link SqlStatementRecorder}.
+ * <p>
+ * Any {@code execute} method of a statement is one execution, so that a JDBC batch counts once. Executions are also
+ * timed and passed to the {@link SlowSqlStatementLog}, if one is set.
+ */
+public class SqlStatementCountingDataSource extends DelegatingDataSource {
+
+    private volatile SlowSqlStatementLog slowStatementLog;
+
+    public SqlStatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    public void setSlowStatementLog(SlowSqlStatementLog slowStatementLog) {
+        this.slowStatementLog = slowStatementLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    private Connection countingConnection(Connection connection) {
+        return proxy(
+            Connection.class,
+            connection,
+            (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                if (result instanceof CallableStatement) {
+                    return countingStatement(CallableStatement.class, (Statement) result, (String) args[0]);
+                }
+                if (result instanceof PreparedStatement) {
+                    return countingStatement(PreparedStatement.class, (Statement) result, (String) args[0]);
+                }
+                if (result instanceof Statement) {
+                    return countingStatement(Statement.class, (Statement) result, null);
+                }
+                return result;
+            }
+        );
+    }
+
+    private <S extends Statement> S countingStatement(Class<S> type, Statement statement, String preparedSql) {
+        return proxy(
+            type,
+            statement,
+            (target, method, args) -> {
+                if (!method.getName().startsWith("execute")) {
+                    return invoke(target, method, args);
+                }
+                SqlStatementRecorder.executed();
+                SlowSqlStatementLog currentSlowStatementLog = slowStatementLog;
+                if (currentSlowStatementLog == null) {
+                    return invoke(target, method, args);
+                }
+                long start = System.nanoTime();
+                try {
+                    return invoke(target, method, args);
+                } finally {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                    currentSlowStatementLog.executed(sql, System.nanoTime() - start);
+                }
+            }
+        );
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, TargetInvocationHandler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    return ((Class<?>) args[0]).isInstance(proxy) ? proxy : invoke(target, method, args);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy) || (Boolean) invoke(target, method, args);
+                default:
+                    return handler.invoke(target, method, args);
+            }
+        };
+        ClassLoader classLoader = SqlStatementCountingDataSource.class.getClassLoader();
+        return type.cast(Proxy.newProxyInstance(classLoader, new Class<?>[] { type }, invocationHandler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    private interface TargetInvocationHandler {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
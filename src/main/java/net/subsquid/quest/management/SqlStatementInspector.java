@@ -0,0 +1,18 @@
+package net.subsquid.quest.management;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate {@link StatementInspector} passing the SQL of each prepared statement to {@link SqlStatementRecorder},
+ * unchanged.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementRecorder.prepared(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,50 @@
+package net.subsquid.quest.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+@Service
+public class SqlStatementMetersService {
+
+    public static final String STATEMENTS_METER_NAME = "http.server.requests.sql-statements";
+    public static final String STATEMENTS_METER_DESCRIPTION = "Indicates the number of SQL statements executed by each HTTP request.";
+    public static final String STATEMENTS_METER_BASE_UNIT = "statements";
+
+    public static final String OVER_BUDGET_METER_NAME = "http.server.requests.sql-statements.over-budget";
+    public static final String OVER_BUDGET_METER_DESCRIPTION =
+        "Indicates the number of HTTP requests which executed more SQL statements than their budget.";
+    public static final String OVER_BUDGET_METER_BASE_UNIT = "requests";
+
+    public static final String METHOD_DIMENSION = "method";
+    public static final String URI_DIMENSION = "uri";
+
+    private final MeterRegistry registry;
+
+    public SqlStatementMetersService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void trackRequest(String method, String uri, int statements) {
+        DistributionSummary
+            .builder(STATEMENTS_METER_NAME)
+            .baseUnit(STATEMENTS_METER_BASE_UNIT)
+            .description(STATEMENTS_METER_DESCRIPTION)
+            .tag(METHOD_DIMENSION, method)
+            .tag(URI_DIMENSION, uri)
+            .register(registry)
+            .record(statements);
+    }
+
+    public void trackOverBudget(String method, String uri) {
+        Counter
+            .builder(OVER_BUDGET_METER_NAME)
+            .baseUnit(OVER_BUDGET_METER_BASE_UNIT)
+            .description(OVER_BUDGET_METER_DESCRIPTION)
+            .tag(METHOD_DIMENSION, method)
+            .tag(URI_DIMENSION, uri)
+            .register(registry)
+            .increment();
+    }
+}
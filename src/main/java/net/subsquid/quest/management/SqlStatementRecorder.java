@@ -0,0 +1,102 @@
+package net.subsquid.quest.management;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Records the SQL statements run by the current thread, in each recording opened on it.
+ * <p>
+ * Executions are counted by {@link SqlStatementCountingDataSource}, each one being a database round trip, while the SQL
+ * of the statements Hibernate prepares is collected by {@link SqlStatementInspector}. Recordings may be nested: a
+ * statement is recorded by all the recordings open on its thread. Outside of any recording, nothing is kept.
+ */
+public final class SqlStatementRecorder {
+
+    private static final ThreadLocal<Deque<Recording>> RECORDINGS = new ThreadLocal<>();
+
+    private SqlStatementRecorder() {}
+
+    /**
+     * Open a recording on the current thread.
+     *
+     * @return the recording, to be closed on the same thread.
+     */
+    public static Recording start() {
+        Deque<Recording> recordings = RECORDINGS.get();
+        if (recordings == null) {
+            recordings = new ArrayDeque<>();
+            RECORDINGS.set(recordings);
+        }
+        Recording recording = new Recording();
+        recordings.push(recording);
+        return recording;
+    }
+
+    static void executed() {
+        Deque<Recording> recordings = RECORDINGS.get();
+        if (recordings != null) {
+            recordings.forEach(recording -> recording.executions++);
+        }
+    }
+
+    static void prepared(String sql) {
+        Deque<Recording> recordings = RECORDINGS.get();
+        if (recordings != null) {
+            recordings.forEach(recording -> recording.statements.merge(sql, 1, Integer::sum));
+        }
+    }
+
+    public static final class Recording implements AutoCloseable {
+
+        private int executions;
+
+        private final Map<String, Integer> statements = new LinkedHashMap<>();
+
+        private Recording() {}
+
+        /**
+         * @return the number of statements executed since the recording started or was reset.
+         */
+        public int getExecutions() {
+            return executions;
+        }
+
+        /**
+         * @return the SQL of the statements prepared by Hibernate, mapped to the number of times each was prepared.
+         */
+        public Map<String, Integer> getStatements() {
+            return Collections.unmodifiableMap(statements);
+        }
+
+        /**
+         * @return the statements prepared more than once, the usual sign of an N+1 select.
+         */
+        public Map<String, Integer> getRepeatedStatements() {
+            return statements
+                .entrySet()
+                .stream()
+                .filter(entry -> entry.getValue() > 1)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, Integer::sum, LinkedHashMap::new));
+        }
+
+        public void reset() {
+            executions = 0;
+            statements.clear();
+        }
+
+        @Override
+        public void close() {
+            Deque<Recording> recordings = RECORDINGS.get();
+            if (recordings != null) {
+                recordings.remove(this);
+                if (recordings.isEmpty()) {
+                    RECORDINGS.remove();
+                }
+            }
+        }
+    }
+}
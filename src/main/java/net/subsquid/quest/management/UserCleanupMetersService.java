@@ -0,0 +1,49 @@
+package net.subsquid.quest.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import org.springframework.stereotype.Service;
+
+@Service
+public class UserCleanupMetersService {
+
+    public static final String DELETED_METER_NAME = "user.cleanup.deleted";
+    public static final String DELETED_METER_DESCRIPTION = "Indicates the number of rows deleted by the cleanup of the non-activated users.";
+    public static final String DELETED_METER_BASE_UNIT = "rows";
+    public static final String DELETED_METER_TABLE_DIMENSION = "table";
+
+    public static final String DURATION_METER_NAME = "user.cleanup.duration";
+    public static final String DURATION_METER_DESCRIPTION = "Indicates the time taken by a run of the cleanup of the non-activated users.";
+
+    private final Counter usersCounter;
+    private final Counter authoritiesCounter;
+    private final Timer durationTimer;
+
+    public UserCleanupMetersService(MeterRegistry registry) {
+        this.usersCounter = deletedCounterForTableBuilder("jhi_user").register(registry);
+        this.authoritiesCounter = deletedCounterForTableBuilder("jhi_user_authority").register(registry);
+        this.durationTimer = Timer.builder(DURATION_METER_NAME).description(DURATION_METER_DESCRIPTION).register(registry);
+    }
+
+    private Counter.Builder deletedCounterForTableBuilder(String table) {
+        return Counter
+            .builder(DELETED_METER_NAME)
+            .baseUnit(DELETED_METER_BASE_UNIT)
+            .description(DELETED_METER_DESCRIPTION)
+            .tag(DELETED_METER_TABLE_DIMENSION, table);
+    }
+
+    public void trackUsersDeleted(int count) {
+        this.usersCounter.increment(count);
+    }
+
+    public void trackAuthoritiesDeleted(int count) {
+        this.authoritiesCounter.increment(count);
+    }
+
+    public void trackDuration(Duration duration) {
+        this.durationTimer.record(duration);
+    }
+}
@@ -1,10 +1,14 @@
 package net.subsquid.quest.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import net.subsquid.quest.domain.Applicant;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,15 +18,39 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ApplicantRepository extends JpaRepository<Applicant, Long> {
+    @Query(value = "select applicant.id from Applicant applicant", countQuery = "select count(applicant) from Applicant applicant")
+    Page<Long> findAllIds(Pageable pageable);
+
     @Query(
-        value = "select distinct applicant from Applicant applicant left join fetch applicant.quests",
-        countQuery = "select count(distinct applicant) from Applicant applicant"
+        "select distinct applicant from Applicant applicant left join fetch applicant.applications application " +
+        "left join fetch application.quest where applicant.id in :ids"
     )
-    Page<Applicant> findAllWithEagerRelationships(Pageable pageable);
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    List<Applicant> findAllWithEagerRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
 
-    @Query("select distinct applicant from Applicant applicant left join fetch applicant.quests")
+    @Query(
+        "select distinct applicant from Applicant applicant left join fetch applicant.applications application " +
+        "left join fetch application.quest"
+    )
     List<Applicant> findAllWithEagerRelationships();
 
-    @Query("select applicant from Applicant applicant left join fetch applicant.quests where applicant.id =:id")
+    @Query(
+        "select applicant from Applicant applicant left join fetch applicant.applications application " +
+        "left join fetch application.quest where applicant.id =:id"
+    )
     Optional<Applicant> findOneWithEagerRelationships(@Param("id") Long id);
+
+    Slice<Applicant> findAllBy(Pageable pageable);
+
+    Slice<Applicant> findAllByIdGreaterThan(Long id, Pageable pageable);
+
+    @Query("select applicant from Applicant applicant order by applicant.id")
+    @QueryHints(
+        {
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_MODE, value = "IGNORE")
+        }
+    )
+    Stream<Applicant> streamAllByOrderById();
 }
@@ -0,0 +1,47 @@
+package net.subsquid.quest.repository;
+
+import java.time.Instant;
+import java.util.List;
+import net.subsquid.quest.domain.OutboxMail;
+import net.subsquid.quest.domain.enumeration.MailStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spring Data JPA repository for the {@link OutboxMail} entity.
+ */
+@Repository
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+    /**
+     * Not read-only, so that the lookup is not routed to a lagging replica, which would deliver mails twice.
+     */
+    @Transactional
+    @Query("select mail from OutboxMail mail where mail.status = :status and mail.nextAttemptAt <= :now order by mail.nextAttemptAt")
+    List<OutboxMail> findAllDue(@Param("status") MailStatus status, @Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Query(
+        "update OutboxMail mail set mail.status = net.subsquid.quest.domain.enumeration.MailStatus.SENT, " +
+        "mail.attempts = mail.attempts + 1, mail.sentAt = :sentAt, mail.lastError = null where mail.id = :id"
+    )
+    int markSent(@Param("id") Long id, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query(
+        "update OutboxMail mail set mail.status = :status, mail.attempts = mail.attempts + 1, " +
+        "mail.nextAttemptAt = :nextAttemptAt, mail.lastError = :lastError where mail.id = :id"
+    )
+    int markFailed(
+        @Param("id") Long id,
+        @Param("status") MailStatus status,
+        @Param("nextAttemptAt") Instant nextAttemptAt,
+        @Param("lastError") String lastError
+    );
+
+    @Modifying
+    @Query("delete from OutboxMail mail where mail.status = :status and mail.sentAt < :sentAt")
+    int deleteAllByStatusAndSentAtBefore(@Param("status") MailStatus status, @Param("sentAt") Instant sentAt);
+}
@@ -0,0 +1,24 @@
+package net.subsquid.quest.repository;
+
+import net.subsquid.quest.domain.QuestApplication;
+import net.subsquid.quest.domain.QuestApplicationId;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the QuestApplication entity.
+ */
+@Repository
+public interface QuestApplicationRepository extends JpaRepository<QuestApplication, QuestApplicationId> {
+    @Query("select count(application) from QuestApplication application where application.id.questId = :questId")
+    long countByQuestId(@Param("questId") Long questId);
+
+    @Modifying
+    @Query("delete from QuestApplication application where application.id.questId = :questId")
+    int deleteAllByQuestId(@Param("questId") Long questId);
+
+    @Modifying
+    @Query("delete from QuestApplication application where application.id.applicantId = :applicantId")
+    int deleteAllByApplicantId(@Param("applicantId") Long applicantId);
+}
@@ -1,8 +1,14 @@
 package net.subsquid.quest.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.enumeration.QuestStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
@@ -13,16 +19,62 @@ import org.springframework.stereotype.Repository;
  * Spring Data SQL repository for the Quest entity.
  */
 @Repository
-public interface QuestRepository extends JpaRepository<Quest, Long> {
+public interface QuestRepository extends JpaRepository<Quest, Long>, JpaSpecificationExecutor<Quest>, QuestUpdateRepository {
+    @Query(value = "select quest.id from Quest quest", countQuery = "select count(quest) from Quest quest")
+    Page<Long> findAllIds(Pageable pageable);
+
     @Query(
-        value = "select distinct quest from Quest quest left join fetch quest.applicants",
-        countQuery = "select count(distinct quest) from Quest quest"
+        "select distinct quest from Quest quest left join fetch quest.applications application " +
+        "left join fetch application.applicant where quest.id in :ids"
     )
-    Page<Quest> findAllWithEagerRelationships(Pageable pageable);
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    List<Quest> findAllWithEagerRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
 
-    @Query("select distinct quest from Quest quest left join fetch quest.applicants")
+    @Query("select distinct quest from Quest quest left join fetch quest.applications application left join fetch application.applicant")
     List<Quest> findAllWithEagerRelationships();
 
-    @Query("select quest from Quest quest left join fetch quest.applicants where quest.id =:id")
+    @Query(
+        "select quest from Quest quest left join fetch quest.applications application " +
+        "left join fetch application.applicant where quest.id =:id"
+    )
     Optional<Quest> findOneWithEagerRelationships(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select quest from Quest quest where quest.id = :id")
+    Optional<Quest> findOneForUpdate(@Param("id") Long id);
+
+    @Modifying
+    @Query(
+        "update versioned Quest quest set quest.applicantCount = quest.applicantCount - 1 where quest.id in " +
+        "(select application.id.questId from QuestApplication application where application.id.applicantId = :applicantId)"
+    )
+    int decrementApplicantCountByApplicantId(@Param("applicantId") Long applicantId);
+
+    @Query("select quest from Quest quest order by quest.id")
+    @QueryHints(
+        {
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_MODE, value = "IGNORE")
+        }
+    )
+    Stream<Quest> streamAllByOrderById();
+
+    @Query("select quest.id from Quest quest where quest.status = :status and quest.expiresOn < :date")
+    List<Long> findIdsByStatusAndExpiresOnBefore(
+        @Param("status") QuestStatus status,
+        @Param("date") LocalDate date,
+        Pageable pageable
+    );
+
+    @Query("select quest.id from Quest quest where quest.status = :status and quest.reviewStartDate <= :date")
+    List<Long> findIdsByStatusAndReviewStartDateOnOrBefore(
+        @Param("status") QuestStatus status,
+        @Param("date") LocalDate date,
+        Pageable pageable
+    );
+
+    @Modifying
+    @Query("update versioned Quest quest set quest.status = :to where quest.id in :ids and quest.status = :from")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("from") QuestStatus from, @Param("to") QuestStatus to);
 }
@@ -0,0 +1,30 @@
+package net.subsquid.quest.repository;
+
+import net.subsquid.quest.domain.Quest;
+
+/**
+ * Spring Data fragment updating the columns of a Quest without loading it first.
+ */
+public interface QuestUpdateRepository {
+    /**
+     * Update the editable columns of a quest in a single statement, and increment its version.
+     * <p>
+     * The statement is not synchronized with the second-level cache region: only the updated quest is evicted, at once
+     * and again after the transaction completes, so that the other cached quests survive the update.
+     *
+     * @param quest the quest holding the id, the expected version if any, and the new column values.
+     * @param partial whether {@code null} values leave their column unchanged instead of clearing it.
+     * @return the number of updated rows, {@code 0} if there is no quest with this id and version.
+     */
+    int updateColumns(Quest quest, boolean partial);
+
+    /**
+     * Read a quest from the database, bypassing both the persistence context and the second-level cache, as after
+     * {@link #updateColumns(Quest, boolean)}. The quest read is not cached, the transaction not having committed yet.
+     *
+     * @param id the id of the quest.
+     * @return the quest.
+     * @throws javax.persistence.EntityNotFoundException if there is no quest with this id.
+     */
+    Quest findFreshById(Long id);
+}
@@ -0,0 +1,116 @@
+package net.subsquid.quest.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import net.subsquid.quest.domain.Quest;
+import org.hibernate.CacheMode;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LocalDateType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import org.hibernate.type.Type;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class QuestUpdateRepositoryImpl implements QuestUpdateRepository {
+
+    private static final List<Column> COLUMNS = List.of(
+        new Column("title", Quest::getTitle, StringType.INSTANCE),
+        new Column("description", Quest::getDescription, StringType.INSTANCE),
+        new Column("reward", Quest::getReward, StringType.INSTANCE),
+        new Column("expires_on", Quest::getExpiresOn, LocalDateType.INSTANCE),
+        new Column("review_start_date", Quest::getReviewStartDate, LocalDateType.INSTANCE),
+        new Column("max_applicants", Quest::getMaxApplicants, IntegerType.INSTANCE),
+        new Column("assignee", Quest::getAssignee, StringType.INSTANCE),
+        new Column("status", quest -> quest.getStatus() == null ? null : quest.getStatus().name(), StringType.INSTANCE),
+        new Column("private_notes", Quest::getPrivateNotes, StringType.INSTANCE)
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateColumns(Quest quest, boolean partial) {
+        List<Column> columns = new ArrayList<>(COLUMNS.size());
+        StringBuilder sql = new StringBuilder("update quest set ");
+        for (Column column : COLUMNS) {
+            if (!partial || column.getter.apply(quest) != null) {
+                columns.add(column);
+                sql.append(column.name).append(" = :").append(column.name).append(", ");
+            }
+        }
+        sql.append("version = version + 1 where id = :id");
+        if (quest.getVersion() != null) {
+            sql.append(" and version = :version");
+        }
+
+        NativeQuery<?> query = entityManager.createNativeQuery(sql.toString()).unwrap(NativeQuery.class);
+        // An empty query space keeps Hibernate from invalidating the whole Quest region, the quest is evicted below
+        query.addSynchronizedQuerySpace("");
+        for (Column column : columns) {
+            query.setParameter(column.name, column.getter.apply(quest), column.type);
+        }
+        query.setParameter("id", quest.getId(), LongType.INSTANCE);
+        if (quest.getVersion() != null) {
+            query.setParameter("version", quest.getVersion(), LongType.INSTANCE);
+        }
+        int updated = query.executeUpdate();
+        if (updated > 0) {
+            evict(quest.getId());
+        }
+        return updated;
+    }
+
+    @Override
+    public Quest findFreshById(Long id) {
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        // A concurrent read may have cached the committed row again since the quest was evicted
+        session.setCacheMode(CacheMode.IGNORE);
+        try {
+            Quest reference = entityManager.getReference(Quest.class, id);
+            if (Hibernate.isInitialized(reference)) {
+                entityManager.refresh(reference);
+            }
+            return (Quest) Hibernate.unproxy(reference);
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+    }
+
+    private void evict(Long id) {
+        entityManager.getEntityManagerFactory().getCache().evict(Quest.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A concurrent read may cache the committed row again before this transaction commits
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        entityManager.getEntityManagerFactory().getCache().evict(Quest.class, id);
+                    }
+                }
+            );
+        }
+    }
+
+    private static final class Column {
+
+        private final String name;
+
+        private final Function<Quest, Object> getter;
+
+        private final Type type;
+
+        Column(String name, Function<Quest, Object> getter, Type type) {
+            this.name = name;
+            this.getter = getter;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package net.subsquid.quest.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import net.subsquid.quest.domain.TokenRevocation;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spring Data JPA repository for the {@link TokenRevocation} entity.
+ */
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, String> {
+    /**
+     * Not read-only, so that the lookup is not routed to a lagging replica.
+     */
+    @Transactional
+    @Query("select revocation.revokedAt from TokenRevocation revocation where revocation.login = :login")
+    Optional<Instant> findRevokedAtByLogin(@Param("login") String login);
+
+    @Query("select revocation.login from TokenRevocation revocation")
+    List<String> findAllLogins();
+
+    @Modifying
+    @Query("delete from TokenRevocation revocation where revocation.revokedAt < :revokedAt")
+    int deleteAllByRevokedAtBefore(@Param("revokedAt") Instant revokedAt);
+}
@@ -0,0 +1,19 @@
+package net.subsquid.quest.repository;
+
+import java.util.Collection;
+
+/**
+ * Spring Data fragment removing users in bulk.
+ */
+public interface UserCleanupRepository {
+    /**
+     * Delete the authorities of users in a single statement.
+     * <p>
+     * The statement is only synchronized with the {@code User.authorities} cache region, so that the other regions
+     * survive it.
+     *
+     * @param userIds the ids of the users.
+     * @return the number of deleted rows.
+     */
+    int deleteAuthoritiesByUserIdIn(Collection<Long> userIds);
+}
@@ -0,0 +1,22 @@
+package net.subsquid.quest.repository;
+
+import java.util.Collection;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+
+public class UserCleanupRepositoryImpl implements UserCleanupRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int deleteAuthoritiesByUserIdIn(Collection<Long> userIds) {
+        NativeQuery<?> query = entityManager
+            .createNativeQuery("delete from jhi_user_authority where user_id in (:userIds)")
+            .unwrap(NativeQuery.class);
+        query.addSynchronizedQuerySpace("jhi_user_authority");
+        query.setParameterList("userIds", userIds);
+        return query.executeUpdate();
+    }
+}
@@ -1,8 +1,12 @@
 package net.subsquid.quest.security;
 
+import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Collectors;
+import javax.cache.Cache;
+import net.subsquid.quest.domain.Authority;
 import net.subsquid.quest.domain.User;
+import net.subsquid.quest.management.SecurityMetersService;
 import net.subsquid.quest.repository.UserRepository;
 import org.hibernate.validator.internal.constraintvalidators.hv.EmailValidator;
 import org.slf4j.Logger;
@@ -14,19 +18,41 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * The users found are kept in the {@link #USER_DETAILS_CACHE} cache under both their login and their email, so that
+ * both lead to the same entry. {@link #evictUserDetails(String, String)} must be called whenever the login, email,
+ * password, activation or authorities of a user change.
  */
 @Component("userDetailsService")
 public class DomainUserDetailsService implements UserDetailsService {
 
+    public static final String USER_DETAILS_CACHE = DomainUserDetailsService.class.getName() + ".userDetails";
+
+    private static final String LOGIN_KEY_PREFIX = "login:";
+
+    private static final String EMAIL_KEY_PREFIX = "email:";
+
     private final Logger log = LoggerFactory.getLogger(DomainUserDetailsService.class);
 
     private final UserRepository userRepository;
 
-    public DomainUserDetailsService(UserRepository userRepository) {
+    private final Cache<String, CachedUserDetails> userDetailsCache;
+
+    private final SecurityMetersService securityMetersService;
+
+    public DomainUserDetailsService(
+        UserRepository userRepository,
+        Cache<String, CachedUserDetails> userDetailsCache,
+        SecurityMetersService securityMetersService
+    ) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.securityMetersService = securityMetersService;
     }
 
     @Override
@@ -35,28 +61,123 @@ public class DomainUserDetailsService implements UserDetailsService {
         log.debug("Authenticating {}", login);
 
         if (new EmailValidator().isValid(login, null)) {
-            return userRepository
-                .findOneWithAuthoritiesByEmailIgnoreCase(login)
-                .map(user -> createSpringSecurityUser(login, user))
+            String lowercaseEmail = login.toLowerCase(Locale.ENGLISH);
+            return findCachedUserDetails(EMAIL_KEY_PREFIX + lowercaseEmail)
+                .or(() -> userRepository.findOneWithAuthoritiesByEmailIgnoreCase(login).map(this::cacheUserDetails))
+                .map(userDetails -> createSpringSecurityUser(login, userDetails))
                 .orElseThrow(() -> new UsernameNotFoundException("User with email " + login + " was not found in the database"));
         }
 
         String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
-        return userRepository
-            .findOneWithAuthoritiesByLogin(lowercaseLogin)
-            .map(user -> createSpringSecurityUser(lowercaseLogin, user))
+        return findCachedUserDetails(LOGIN_KEY_PREFIX + lowercaseLogin)
+            .or(() -> userRepository.findOneWithAuthoritiesByLogin(lowercaseLogin).map(this::cacheUserDetails))
+            .map(userDetails -> createSpringSecurityUser(lowercaseLogin, userDetails))
             .orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database"));
     }
 
-    private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, User user) {
+    /**
+     * Evict a user from the cache, now and again once the current transaction completes, so that a lookup made meanwhile
+     * does not cache the user as it was before the transaction.
+     *
+     * @param login the login of the user, as stored before the change.
+     * @param email the email of the user, as stored before the change.
+     */
+    public void evictUserDetails(String login, String email) {
+        evictUserDetailsNow(login, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        evictUserDetailsNow(login, email);
+                    }
+                }
+            );
+        }
+    }
+
+    private void evictUserDetailsNow(String login, String email) {
+        if (login != null) {
+            userDetailsCache.remove(LOGIN_KEY_PREFIX + login.toLowerCase(Locale.ENGLISH));
+        }
+        if (email != null) {
+            userDetailsCache.remove(EMAIL_KEY_PREFIX + email.toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+    private Optional<CachedUserDetails> findCachedUserDetails(String key) {
+        CachedUserDetails userDetails = userDetailsCache.get(key);
+        if (userDetails == null) {
+            securityMetersService.trackUserDetailsCacheMiss();
+            return Optional.empty();
+        }
+        securityMetersService.trackUserDetailsCacheHit();
+        return Optional.of(userDetails);
+    }
+
+    private CachedUserDetails cacheUserDetails(User user) {
+        CachedUserDetails userDetails = new CachedUserDetails(
+            user.getLogin(),
+            user.getPassword(),
+            user.isActivated(),
+            user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toList())
+        );
+        userDetailsCache.put(LOGIN_KEY_PREFIX + user.getLogin(), userDetails);
+        if (user.getEmail() != null) {
+            userDetailsCache.put(EMAIL_KEY_PREFIX + user.getEmail().toLowerCase(Locale.ENGLISH), userDetails);
+        }
+        return userDetails;
+    }
+
+    private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, CachedUserDetails user) {
         if (!user.isActivated()) {
             throw new UserNotActivatedException("User " + lowercaseLogin + " was not activated");
         }
         List<GrantedAuthority> grantedAuthorities = user
             .getAuthorities()
             .stream()
-            .map(authority -> new SimpleGrantedAuthority(authority.getName()))
+            .map(SimpleGrantedAuthority::new)
             .collect(Collectors.toList());
         return new org.springframework.security.core.userdetails.User(user.getLogin(), user.getPassword(), grantedAuthorities);
     }
+
+    /**
+     * What authenticating a user needs from the database. A new {@link UserDetails} is created from it on each lookup,
+     * as Spring Security erases the password of the one it authenticates.
+     */
+    public static final class CachedUserDetails implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String login;
+
+        private final String password;
+
+        private final boolean activated;
+
+        private final List<String> authorities;
+
+        public CachedUserDetails(String login, String password, boolean activated, List<String> authorities) {
+            this.login = login;
+            this.password = password;
+            this.activated = activated;
+            this.authorities = List.copyOf(authorities);
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public boolean isActivated() {
+            return activated;
+        }
+
+        public List<String> getAuthorities() {
+            return authorities;
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package net.subsquid.quest.security;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process token bucket rate limiter, keyed by an arbitrary string such as a route and a client.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full again, updated by compare and
+ * set: this is the generic cell rate algorithm, equivalent to a token bucket refilled continuously. Buckets are held in a
+ * {@link ConcurrentHashMap}, whose bins are locked separately, so requests of different clients do not contend. A bucket
+ * which is full again is identical to a new one, so it is evicted every {@code application.rate-limit.eviction-interval}.
+ */
+@Component
+public class RateLimiter {
+
+    private final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Take a token from a bucket.
+     *
+     * @param key the key of the bucket.
+     * @param limit the limit of the bucket.
+     * @return zero if a token was taken, otherwise the time until one is available.
+     */
+    public Duration tryAcquire(String key, Limit limit) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+        long now = System.nanoTime();
+        while (true) {
+            long fullAt = bucket.get();
+            long start = fullAt == Long.MIN_VALUE || fullAt - now < 0 ? now : fullAt;
+            long wait = start - now - limit.burstNanos;
+            if (wait > 0) {
+                return Duration.ofNanos(wait);
+            }
+            if (bucket.compareAndSet(fullAt, start + limit.intervalNanos)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    /**
+     * Evict the buckets which are full again.
+     * <p>
+     * This is scheduled to get fired every {@code application.rate-limit.eviction-interval}. A token taken from a bucket
+     * while it is evicted is not counted.
+     */
+    @Scheduled(fixedDelayString = "${application.rate-limit.eviction-interval:PT1M}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int size = buckets.size();
+        buckets
+            .values()
+            .removeIf(bucket -> {
+                long fullAt = bucket.get();
+                return fullAt == Long.MIN_VALUE || fullAt - now <= 0;
+            });
+        log.debug("Evicted {} idle rate limit buckets, {} left", size - buckets.size(), buckets.size());
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    /**
+     * A number of tokens refilled over a period, all of which may be taken at once.
+     */
+    public static final class Limit {
+
+        private final long intervalNanos;
+
+        private final long burstNanos;
+
+        public Limit(long capacity, Duration period) {
+            if (capacity < 1 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("A rate limit needs a positive capacity and period");
+            }
+            this.intervalNanos = Math.max(1, period.toNanos() / capacity);
+            this.burstNanos = this.intervalNanos * (capacity - 1);
+        }
+    }
+}
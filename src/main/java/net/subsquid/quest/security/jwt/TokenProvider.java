@@ -4,10 +4,15 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
+import javax.cache.Cache;
 import net.subsquid.quest.management.SecurityMetersService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,13 +25,27 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 import tech.jhipster.config.JHipsterProperties;
 
+/**
+ * Creates and verifies the JWT tokens.
+ * <p>
+ * Verified tokens are kept in the {@link #VERIFIED_TOKENS_CACHE} cache until they expire, keyed by a SHA-256 digest, so
+ * that a token presented again is neither parsed nor verified again, and gets the same {@link Authentication}.
+ */
 @Component
 public class TokenProvider {
 
+    public static final String VERIFIED_TOKENS_CACHE = TokenProvider.class.getName() + ".verifiedTokens";
+
     private final Logger log = LoggerFactory.getLogger(TokenProvider.class);
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    /**
+     * The issue time in milliseconds, the standard {@code iat} claim being in seconds: a token issued right after a
+     * revocation of its user, in the same second, must not be taken as revoked.
+     */
+    private static final String ISSUED_AT_MILLIS_KEY = "iat_ms";
+
     private static final String INVALID_JWT_TOKEN = "Invalid JWT token.";
 
     private final Key key;
@@ -39,7 +58,16 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    private final TokenRevocationStore tokenRevocationStore;
+
+    public TokenProvider(
+        JHipsterProperties jHipsterProperties,
+        SecurityMetersService securityMetersService,
+        Cache<String, VerifiedToken> verifiedTokenCache,
+        TokenRevocationStore tokenRevocationStore
+    ) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -60,6 +88,8 @@ public class TokenProvider {
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
 
         this.securityMetersService = securityMetersService;
+        this.verifiedTokens = verifiedTokenCache;
+        this.tokenRevocationStore = tokenRevocationStore;
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -77,14 +107,58 @@ public class TokenProvider {
             .builder()
             .setSubject(authentication.getName())
             .claim(AUTHORITIES_KEY, authorities)
+            .claim(ISSUED_AT_MILLIS_KEY, now)
             .signWith(key, SignatureAlgorithm.HS512)
+            .setIssuedAt(new Date(now))
             .setExpiration(validity)
             .compact();
     }
 
+    /**
+     * Verify a token and build its authentication, parsing the token only if it is not a cached verified token.
+     * <p>
+     * Cached or not, the token is then checked against the {@link TokenRevocationStore}.
+     *
+     * @param token the token.
+     * @return the authentication, or empty if the token is not valid.
+     */
+    public Optional<Authentication> resolveAuthentication(String token) {
+        String tokenDigest = digest(token);
+        VerifiedToken verifiedToken = verifiedTokens.get(tokenDigest);
+        if (verifiedToken != null && verifiedToken.getExpiration().isAfter(Instant.now())) {
+            this.securityMetersService.trackTokenCacheHit();
+            return Optional.of(verifiedToken).filter(this::isNotRevoked).map(VerifiedToken::getAuthentication);
+        }
+        this.securityMetersService.trackTokenCacheMiss();
+        return parseClaims(token)
+            .map(claims -> {
+                VerifiedToken parsedToken = new VerifiedToken(
+                    getAuthentication(claims, token),
+                    issuedAt(claims),
+                    claims.getExpiration() == null ? null : claims.getExpiration().toInstant()
+                );
+                if (parsedToken.getExpiration() != null) {
+                    verifiedTokens.put(tokenDigest, parsedToken);
+                }
+                return parsedToken;
+            })
+            .filter(this::isNotRevoked)
+            .map(VerifiedToken::getAuthentication);
+    }
+
+    private boolean isNotRevoked(VerifiedToken verifiedToken) {
+        if (tokenRevocationStore.isRevoked(verifiedToken.getAuthentication().getName(), verifiedToken.getIssuedAt())) {
+            this.securityMetersService.trackTokenRevoked();
+            return false;
+        }
+        return true;
+    }
+
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return getAuthentication(jwtParser.parseClaimsJws(token).getBody(), token);
+    }
 
+    private Authentication getAuthentication(Claims claims, String token) {
         Collection<? extends GrantedAuthority> authorities = Arrays
             .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
             .filter(auth -> !auth.trim().isEmpty())
@@ -96,11 +170,24 @@ public class TokenProvider {
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
+    /**
+     * @return the issue time of the token, to the millisecond if it has one, else to the second.
+     */
+    private static Instant issuedAt(Claims claims) {
+        Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS_KEY, Long.class);
+        if (issuedAtMillis != null) {
+            return Instant.ofEpochMilli(issuedAtMillis);
+        }
+        return claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant();
+    }
+
     public boolean validateToken(String authToken) {
-        try {
-            jwtParser.parseClaimsJws(authToken);
+        return parseClaims(authToken).isPresent();
+    }
 
-            return true;
+    private Optional<Claims> parseClaims(String authToken) {
+        try {
+            return Optional.of(jwtParser.parseClaimsJws(authToken).getBody());
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -121,6 +208,48 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return Optional.empty();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A verified token, cached until its expiration. The authentication is shared by all the requests presenting the
+     * token, and is never modified by the filter chain.
+     */
+    public static final class VerifiedToken implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Authentication authentication;
+
+        private final Instant issuedAt;
+
+        private final Instant expiration;
+
+        public VerifiedToken(Authentication authentication, Instant issuedAt, Instant expiration) {
+            this.authentication = authentication;
+            this.issuedAt = issuedAt;
+            this.expiration = expiration;
+        }
+
+        public Authentication getAuthentication() {
+            return authentication;
+        }
+
+        public Instant getIssuedAt() {
+            return issuedAt;
+        }
+
+        public Instant getExpiration() {
+            return expiration;
+        }
     }
 }
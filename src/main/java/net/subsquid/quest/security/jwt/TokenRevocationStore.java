@@ -0,0 +1,146 @@
+package net.subsquid.quest.security.jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.subsquid.quest.domain.TokenRevocation;
+import net.subsquid.quest.repository.TokenRevocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Store of the revoked tokens: the tokens of a user are revoked all at once, and a token is revoked if it was issued
+ * before the last revocation of its user. Revocations are kept to the millisecond, the precision of the issue time of
+ * the tokens.
+ * <p>
+ * Revocations are stored in the {@code jhi_token_revocation} table, and the logins having one are kept in a
+ * {@link BloomFilter}, so that the table is only queried for the tokens of these logins and for the few false
+ * positives. The filter is rebuilt from the table every {@code application.token-revocation.rebuild-interval}, which
+ * is how revocations made on another instance are seen, and revocations older than the longest token validity are
+ * removed. Until it is first built, every lookup queries the table.
+ * <p>
+ * The last revocation read for a login is kept until the next rebuild, so that the tokens of a user whose tokens were
+ * revoked, including the ones issued since, do not query the table on each request. A revocation made on another
+ * instance is thus seen at the next rebuild, whether its login was revoked before or not; one made on this instance is
+ * seen at once, even if its transaction then rolls back.
+ */
+public class TokenRevocationStore {
+
+    private static final Instant NOT_REVOKED = Instant.MIN;
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+
+    private final Duration maxTokenValidity;
+
+    private final double falsePositiveProbability;
+
+    /**
+     * Revocations made by this instance since the previous rebuild, put again in the rebuilt filter in case the rebuild
+     * read the table before they were committed.
+     */
+    private final Map<String, Instant> recentRevocations = new ConcurrentHashMap<>();
+
+    /**
+     * Last revocation of the logins looked up since the previous rebuild, {@link #NOT_REVOKED} for the ones without any.
+     */
+    private final Map<String, Instant> revocationLookups = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter revokedLogins;
+
+    private Instant previousRebuild = Instant.EPOCH;
+
+    public TokenRevocationStore(
+        TokenRevocationRepository tokenRevocationRepository,
+        JHipsterProperties jHipsterProperties,
+        double falsePositiveProbability
+    ) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        JHipsterProperties.Security.Authentication.Jwt jwt = jHipsterProperties.getSecurity().getAuthentication().getJwt();
+        this.maxTokenValidity =
+            Duration.ofSeconds(Math.max(jwt.getTokenValidityInSeconds(), jwt.getTokenValidityInSecondsForRememberMe()));
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    /**
+     * Revoke all the tokens issued to a user until now.
+     *
+     * @param login the login of the user.
+     */
+    @Transactional
+    public void revokeTokens(String login) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        TokenRevocation revocation = tokenRevocationRepository.findById(login).orElseGet(() -> new TokenRevocation(login, now));
+        revocation.setRevokedAt(now);
+        tokenRevocationRepository.save(revocation);
+        recentRevocations.put(login, now);
+        revocationLookups.merge(login, now, TokenRevocationStore::latest);
+        BloomFilter filter = revokedLogins;
+        if (filter != null) {
+            filter.put(login);
+        }
+        log.debug("Revoked the tokens of user {}", login);
+    }
+
+    /**
+     * Tell whether a token was revoked.
+     *
+     * @param login the login of the user the token was issued to.
+     * @param issuedAt the issue time of the token, {@code null} if the token does not have one.
+     * @return {@code true} if the token was issued before the last revocation of its user.
+     */
+    public boolean isRevoked(String login, Instant issuedAt) {
+        BloomFilter filter = revokedLogins;
+        if (filter != null && !filter.mightContain(login)) {
+            return false;
+        }
+        Instant revokedAt = revocationLookups.get(login);
+        if (revokedAt == null) {
+            // Merged, as the login may have been revoked since the table was read
+            revokedAt =
+                revocationLookups.merge(
+                    login,
+                    tokenRevocationRepository.findRevokedAtByLogin(login).orElse(NOT_REVOKED),
+                    TokenRevocationStore::latest
+                );
+        }
+        return !NOT_REVOKED.equals(revokedAt) && (issuedAt == null || issuedAt.isBefore(revokedAt));
+    }
+
+    private static Instant latest(Instant revokedAt, Instant otherRevokedAt) {
+        return revokedAt.isAfter(otherRevokedAt) ? revokedAt : otherRevokedAt;
+    }
+
+    /**
+     * Remove the revocations no token can be affected by anymore, and rebuild the filter from the others.
+     * <p>
+     * This is scheduled to get fired every {@code application.token-revocation.rebuild-interval}.
+     */
+    @Scheduled(fixedDelayString = "${application.token-revocation.rebuild-interval:PT1M}")
+    @Transactional
+    public void rebuild() {
+        Instant start = Instant.now();
+        int removed = tokenRevocationRepository.deleteAllByRevokedAtBefore(start.minus(maxTokenValidity));
+        List<String> logins = tokenRevocationRepository.findAllLogins();
+        BloomFilter filter = BloomFilter.create(logins.size() + recentRevocations.size(), falsePositiveProbability);
+        logins.forEach(filter::put);
+        recentRevocations.keySet().forEach(filter::put);
+        revokedLogins = filter;
+        // Revocations made while the filter was being filled were only put in the previous one
+        recentRevocations.keySet().forEach(filter::put);
+        revocationLookups.clear();
+        // The recent revocations may not have been committed when the lookups are made again
+        recentRevocations.forEach((login, revokedAt) -> revocationLookups.merge(login, revokedAt, TokenRevocationStore::latest));
+        Instant threshold = previousRebuild;
+        recentRevocations.values().removeIf(revokedAt -> revokedAt.isBefore(threshold));
+        previousRebuild = start;
+        log.debug("Rebuilt the revoked tokens filter with {} logins, removed {} expired revocations", logins.size(), removed);
+    }
+}
@@ -1,9 +1,13 @@
 package net.subsquid.quest.service;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import net.subsquid.quest.domain.Applicant;
+import net.subsquid.quest.service.dto.BulkItemResultDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 /**
  * Service Interface for managing {@link Applicant}.
@@ -14,14 +18,25 @@ public interface ApplicantService {
      *
      * @param applicant the entity to save.
      * @return the persisted entity.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the applicant has a version other than the stored one.
      */
     Applicant save(Applicant applicant);
 
+    /**
+     * Create or update applicants in chunked transactions. Applicants without an id are created, the others are updated as by
+     * {@link #save(Applicant)}, their {@code version} being the expected one.
+     *
+     * @param applicants the entities to save.
+     * @return the result of each entity, in the same order.
+     */
+    List<BulkItemResultDTO> saveAll(List<Applicant> applicants);
+
     /**
      * Partially updates a applicant.
      *
      * @param applicant the entity to update partially.
      * @return the persisted entity.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the applicant has a version other than the stored one.
      */
     Optional<Applicant> partialUpdate(Applicant applicant);
 
@@ -41,6 +56,23 @@ public interface ApplicantService {
      */
     Page<Applicant> findAllWithEagerRelationships(Pageable pageable);
 
+    /**
+     * Get a slice of applicants in id order, seeking past the given id instead of counting and offsetting.
+     *
+     * @param afterId the id to seek after, or {@code null} to start from the first applicant.
+     * @param size the maximum number of entities to return.
+     * @return the slice of entities.
+     */
+    Slice<Applicant> findAllAfter(Long afterId, int size);
+
+    /**
+     * Pass all the applicants to an action one at a time, in id order, within a read-only transaction. Each applicant is detached
+     * once the action returns, so memory use does not grow with the number of applicants.
+     *
+     * @param action the action to perform on each entity.
+     */
+    void exportAll(Consumer<Applicant> action);
+
     /**
      * Get the "id" applicant.
      *
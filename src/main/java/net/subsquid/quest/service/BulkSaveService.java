@@ -0,0 +1,139 @@
+package net.subsquid.quest.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import net.subsquid.quest.service.dto.BulkItemResultDTO;
+import net.subsquid.quest.service.dto.BulkItemResultDTO.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service for saving many entities of a bulk request, of at most {@code application.bulk.max-items} entities.
+ * <p>
+ * All the entities are validated first. The valid ones are then saved in chunks of {@code application.bulk.chunk-size},
+ * each chunk in its own transaction, so that Hibernate sends the inserts and updates of a chunk in JDBC batches and
+ * draws their ids from the pooled sequence. A chunk that fails to commit is retried one entity per transaction, so
+ * that an entity the database rejects only fails itself.
+ */
+public class BulkSaveService {
+
+    private static final String FAILED_MESSAGE = "Failure during data access";
+
+    private final Logger log = LoggerFactory.getLogger(BulkSaveService.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Validator validator;
+
+    private final int chunkSize;
+
+    private final int maxItems;
+
+    public BulkSaveService(PlatformTransactionManager transactionManager, Validator validator, int chunkSize, int maxItems) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Validate and save entities.
+     *
+     * @param entities the entities to save.
+     * @param saveChunk the function saving entities within the current transaction, returning the outcome of each one
+     * in the same order: {@code CREATED}, {@code UPDATED}, {@code NOT_FOUND} or {@code CONFLICT}.
+     * @param getId the function reading the id of an entity.
+     * @param clearGenerated the function forgetting the id and version assigned to a new entity by a rolled back transaction.
+     * @param <T> the type of entities.
+     * @return the result of each entity, in the same order.
+     * @throws BulkTooLargeException if there are more than {@code application.bulk.max-items} entities.
+     */
+    public <T> List<BulkItemResultDTO> saveAll(
+        List<T> entities,
+        Function<List<T>, List<Status>> saveChunk,
+        Function<T, Long> getId,
+        Consumer<T> clearGenerated
+    ) {
+        if (entities.size() > maxItems) {
+            throw new BulkTooLargeException(maxItems);
+        }
+        BulkItemResultDTO[] results = new BulkItemResultDTO[entities.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int index = 0; index < entities.size(); index++) {
+            T entity = entities.get(index);
+            if (entity == null) {
+                results[index] = new BulkItemResultDTO(index, Status.INVALID, null, "must not be null");
+                continue;
+            }
+            Set<ConstraintViolation<T>> violations = validator.validate(entity);
+            if (violations.isEmpty()) {
+                validIndexes.add(index);
+            } else {
+                results[index] = new BulkItemResultDTO(index, Status.INVALID, getId.apply(entity), describe(violations));
+            }
+        }
+        log.debug("Saving {} valid entities out of {}", validIndexes.size(), entities.size());
+
+        for (int from = 0; from < validIndexes.size(); from += chunkSize) {
+            List<Integer> chunkIndexes = validIndexes.subList(from, Math.min(from + chunkSize, validIndexes.size()));
+            List<T> chunk = chunkIndexes.stream().map(entities::get).collect(Collectors.toList());
+            List<Boolean> isNew = chunk.stream().map(entity -> getId.apply(entity) == null).collect(Collectors.toList());
+            try {
+                List<Status> statuses = transactionTemplate.execute(transaction -> saveChunk.apply(chunk));
+                for (int i = 0; i < chunk.size(); i++) {
+                    int index = chunkIndexes.get(i);
+                    results[index] = new BulkItemResultDTO(index, statuses.get(i), getId.apply(chunk.get(i)), null);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Chunk of {} entities could not be saved, retrying one by one: {}", chunk.size(), e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    int index = chunkIndexes.get(i);
+                    if (isNew.get(i)) {
+                        clearGenerated.accept(chunk.get(i));
+                    }
+                    results[index] = saveOne(index, chunk.get(i), isNew.get(i), saveChunk, getId, clearGenerated);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private <T> BulkItemResultDTO saveOne(
+        int index,
+        T entity,
+        boolean isNew,
+        Function<List<T>, List<Status>> saveChunk,
+        Function<T, Long> getId,
+        Consumer<T> clearGenerated
+    ) {
+        try {
+            Status status = transactionTemplate.execute(transaction -> saveChunk.apply(List.of(entity)).get(0));
+            return new BulkItemResultDTO(index, status, getId.apply(entity), null);
+        } catch (RuntimeException e) {
+            log.warn("Entity {} of a bulk request could not be saved: {}", index, e.getMessage());
+            if (isNew) {
+                clearGenerated.accept(entity);
+            }
+            return new BulkItemResultDTO(index, Status.FAILED, getId.apply(entity), FAILED_MESSAGE);
+        }
+    }
+
+    private static <T> String describe(Set<ConstraintViolation<T>> violations) {
+        return violations
+            .stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,10 @@
+package net.subsquid.quest.service;
+
+public class BulkTooLargeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BulkTooLargeException(int maxItems) {
+        super("A bulk request cannot hold more than " + maxItems + " entities!");
+    }
+}
@@ -0,0 +1,199 @@
+package net.subsquid.quest.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import net.subsquid.quest.aop.scheduling.SchedulerLock;
+import net.subsquid.quest.domain.OutboxMail;
+import net.subsquid.quest.domain.enumeration.MailStatus;
+import net.subsquid.quest.management.MailOutboxMetersService;
+import net.subsquid.quest.repository.OutboxMailRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service delivering the mails of the outbox.
+ * <p>
+ * Pending mails are read in batches of {@code application.mail-outbox.batch-size}, delivered in parallel on the
+ * {@code mailDeliveryExecutor} over the SMTP connections the {@link JavaMailSender} keeps open, and each marked with its
+ * result in its own transaction. A mail which could not be delivered is retried after a delay doubling at each attempt,
+ * up to {@code application.mail-outbox.max-backoff}, and left dead after {@code application.mail-outbox.max-attempts}.
+ * A mail delivered while the application stops, before it is marked as sent, is delivered again: delivery is at least
+ * once.
+ */
+public class MailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final Logger log = LoggerFactory.getLogger(MailOutboxService.class);
+
+    private final OutboxMailRepository outboxMailRepository;
+
+    private final JavaMailSender javaMailSender;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final MailOutboxMetersService mailOutboxMetersService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor mailDeliveryExecutor;
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private final Duration initialBackoff;
+
+    private final Duration maxBackoff;
+
+    private final Duration retention;
+
+    public MailOutboxService(
+        OutboxMailRepository outboxMailRepository,
+        JavaMailSender javaMailSender,
+        JHipsterProperties jHipsterProperties,
+        MailOutboxMetersService mailOutboxMetersService,
+        PlatformTransactionManager transactionManager,
+        Executor mailDeliveryExecutor,
+        int batchSize,
+        int maxAttempts,
+        Duration initialBackoff,
+        Duration maxBackoff,
+        Duration retention
+    ) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.javaMailSender = javaMailSender;
+        this.jHipsterProperties = jHipsterProperties;
+        this.mailOutboxMetersService = mailOutboxMetersService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.mailDeliveryExecutor = mailDeliveryExecutor;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+    }
+
+    /**
+     * Deliver the pending mails.
+     * <p>
+     * This is scheduled to get fired every {@code application.mail-outbox.poll-interval}, on a single instance of the
+     * cluster.
+     */
+    @Scheduled(
+        fixedDelayString = "${application.mail-outbox.poll-interval:PT5S}",
+        initialDelayString = "${application.mail-outbox.poll-interval:PT5S}"
+    )
+    @SchedulerLock(name = "mail-outbox", lockAtLeastFor = "PT0S")
+    public void deliverPendingMails() {
+        deliverPendingMails(Instant.now());
+    }
+
+    /**
+     * Deliver the pending mails due at a time.
+     *
+     * @param now the time the mails are due at, from which the next attempts of the failed ones are delayed.
+     * @return the number of mails sent.
+     */
+    public int deliverPendingMails(Instant now) {
+        int sent = 0;
+        List<OutboxMail> batch;
+        do {
+            batch = transactionTemplate.execute(transaction ->
+                outboxMailRepository.findAllDue(MailStatus.PENDING, now, PageRequest.of(0, batchSize))
+            );
+            List<CompletableFuture<Boolean>> deliveries = batch
+                .stream()
+                .map(mail -> CompletableFuture.supplyAsync(() -> deliver(mail, now), mailDeliveryExecutor))
+                .collect(Collectors.toList());
+            sent += (int) deliveries.stream().map(CompletableFuture::join).filter(Boolean::booleanValue).count();
+        } while (batch.size() == batchSize);
+        if (sent > 0) {
+            log.debug("Sent {} emails from the outbox", sent);
+        }
+        return sent;
+    }
+
+    private boolean deliver(OutboxMail mail, Instant now) {
+        long start = System.nanoTime();
+        try {
+            javaMailSender.send(createMimeMessage(mail));
+        } catch (MessagingException | RuntimeException e) {
+            mailOutboxMetersService.trackDeliveryDuration(Duration.ofNanos(System.nanoTime() - start));
+            fail(mail, now, e);
+            return false;
+        }
+        mailOutboxMetersService.trackDeliveryDuration(Duration.ofNanos(System.nanoTime() - start));
+        Instant sentAt = Instant.now();
+        transactionTemplate.executeWithoutResult(transaction -> outboxMailRepository.markSent(mail.getId(), sentAt));
+        mailOutboxMetersService.trackSent(Duration.between(mail.getCreatedAt(), sentAt));
+        log.debug("Sent email to User '{}'", mail.getRecipient());
+        return true;
+    }
+
+    private MimeMessage createMimeMessage(OutboxMail mail) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper message = new MimeMessageHelper(mimeMessage, mail.isMultipart(), StandardCharsets.UTF_8.name());
+        message.setTo(mail.getRecipient());
+        message.setFrom(jHipsterProperties.getMail().getFrom());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getContent(), mail.isHtml());
+        return mimeMessage;
+    }
+
+    private void fail(OutboxMail mail, Instant now, Exception e) {
+        int attempts = mail.getAttempts() + 1;
+        String error = StringUtils.abbreviate(String.valueOf(e), MAX_ERROR_LENGTH);
+        if (attempts >= maxAttempts) {
+            transactionTemplate.executeWithoutResult(transaction ->
+                outboxMailRepository.markFailed(mail.getId(), MailStatus.DEAD, mail.getNextAttemptAt(), error)
+            );
+            mailOutboxMetersService.trackDead();
+            log.error("Email could not be sent to user '{}' after {} attempts, giving up", mail.getRecipient(), attempts, e);
+        } else {
+            Instant nextAttemptAt = now.plus(backoff(attempts));
+            transactionTemplate.executeWithoutResult(transaction ->
+                outboxMailRepository.markFailed(mail.getId(), MailStatus.PENDING, nextAttemptAt, error)
+            );
+            mailOutboxMetersService.trackFailed();
+            log.warn("Email could not be sent to user '{}', retrying at {}: {}", mail.getRecipient(), nextAttemptAt, error);
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    /**
+     * Sent mails are removed once older than {@code application.mail-outbox.retention}; dead ones are kept.
+     * <p>
+     * This is scheduled to get fired everyday, at 01:30 (am), on a single instance of the cluster.
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    @SchedulerLock(name = "mail-outbox-purge")
+    public void removeSentMails() {
+        Instant sentBefore = Instant.now().minus(retention);
+        Integer removed = transactionTemplate.execute(transaction ->
+            outboxMailRepository.deleteAllByStatusAndSentAtBefore(MailStatus.SENT, sentBefore)
+        );
+        log.debug("Removed {} sent emails from the outbox", removed);
+    }
+}
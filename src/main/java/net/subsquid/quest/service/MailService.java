@@ -1,18 +1,28 @@
 package net.subsquid.quest.service;
 
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.subsquid.quest.config.Constants;
+import net.subsquid.quest.domain.OutboxMail;
 import net.subsquid.quest.domain.User;
+import net.subsquid.quest.management.MailOutboxMetersService;
+import net.subsquid.quest.repository.OutboxMailRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
-import org.springframework.mail.MailException;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 import tech.jhipster.config.JHipsterProperties;
@@ -20,9 +30,16 @@ import tech.jhipster.config.JHipsterProperties;
 /**
  * Service for sending emails.
  * <p>
- * We use the {@link Async} annotation to send emails asynchronously.
+ * Emails are written to the outbox in the transaction of the caller, so that they are only sent if it commits, and are
+ * not lost if the application stops before they are sent. {@link MailOutboxService} delivers them.
+ * <p>
+ * A mail template is rendered once per supported language, with placeholders standing for the user, and its subject
+ * resolved at the same time; each mail then only fills in the values of its user. The templates may output the
+ * properties of the user, but not branch on them. With {@code spring.thymeleaf.cache} disabled, as in development,
+ * they are rendered per mail.
  */
 @Service
+@Transactional
 public class MailService {
 
     private final Logger log = LoggerFactory.getLogger(MailService.class);
@@ -31,82 +48,174 @@ public class MailService {
 
     private static final String BASE_URL = "baseUrl";
 
+    /**
+     * The languages the mails are translated to, those of the client.
+     */
+    private static final Set<String> LANGUAGES = Set.of(Constants.DEFAULT_LANGUAGE);
+
     private final JHipsterProperties jHipsterProperties;
 
-    private final JavaMailSender javaMailSender;
+    private final OutboxMailRepository outboxMailRepository;
+
+    private final MailOutboxMetersService mailOutboxMetersService;
 
     private final MessageSource messageSource;
 
     private final SpringTemplateEngine templateEngine;
 
+    private final boolean cacheTemplates;
+
+    private final Map<List<String>, MailTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Unlikely to be found in a template, so that only the placeholders match.
+     */
+    private final String placeholderPrefix = "mailslot" + UUID.randomUUID().toString().replace("-", "");
+
+    private final Pattern placeholderPattern = Pattern.compile(placeholderPrefix + "(\\d+)_");
+
     public MailService(
         JHipsterProperties jHipsterProperties,
-        JavaMailSender javaMailSender,
+        OutboxMailRepository outboxMailRepository,
+        MailOutboxMetersService mailOutboxMetersService,
         MessageSource messageSource,
-        SpringTemplateEngine templateEngine
+        SpringTemplateEngine templateEngine,
+        @Value("${spring.thymeleaf.cache:true}") boolean cacheTemplates
     ) {
         this.jHipsterProperties = jHipsterProperties;
-        this.javaMailSender = javaMailSender;
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailOutboxMetersService = mailOutboxMetersService;
         this.messageSource = messageSource;
         this.templateEngine = templateEngine;
+        this.cacheTemplates = cacheTemplates;
     }
 
-    @Async
     public void sendEmail(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
         log.debug(
-            "Send email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
+            "Queue email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
             isMultipart,
             isHtml,
             to,
             subject,
             content
         );
-
-        // Prepare message using a Spring helper
-        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
-        try {
-            MimeMessageHelper message = new MimeMessageHelper(mimeMessage, isMultipart, StandardCharsets.UTF_8.name());
-            message.setTo(to);
-            message.setFrom(jHipsterProperties.getMail().getFrom());
-            message.setSubject(subject);
-            message.setText(content, isHtml);
-            javaMailSender.send(mimeMessage);
-            log.debug("Sent email to User '{}'", to);
-        } catch (MailException | MessagingException e) {
-            log.warn("Email could not be sent to user '{}'", to, e);
-        }
+        outboxMailRepository.save(new OutboxMail(to, subject, content, isMultipart, isHtml));
+        mailOutboxMetersService.trackEnqueued();
     }
 
-    @Async
     public void sendEmailFromTemplate(User user, String templateName, String titleKey) {
         if (user.getEmail() == null) {
             log.debug("Email doesn't exist for user '{}'", user.getLogin());
             return;
         }
-        Locale locale = Locale.forLanguageTag(user.getLangKey());
+        String langKey = languageOf(user);
+        MailTemplate template = cacheTemplates
+            ? templates.computeIfAbsent(List.of(templateName, titleKey, langKey), key -> compile(templateName, titleKey, langKey))
+            : compile(templateName, titleKey, langKey);
+        sendEmail(user.getEmail(), template.subject, template.render(user), false, true);
+    }
+
+    /**
+     * The language of the mails of a user: its own if the mails are translated to it, the default one otherwise, such
+     * as for a user without a language. Templates are only cached for these languages, whatever the users send.
+     */
+    private static String languageOf(User user) {
+        return user.getLangKey() != null && LANGUAGES.contains(user.getLangKey()) ? user.getLangKey() : Constants.DEFAULT_LANGUAGE;
+    }
+
+    /**
+     * Render a template for a locale, leaving a slot wherever it outputs a property of the user.
+     */
+    private MailTemplate compile(String templateName, String titleKey, String langKey) {
+        Locale locale = Locale.forLanguageTag(langKey);
+        User placeholders = new User();
+        UserSlot[] slots = UserSlot.values();
+        for (int i = 0; i < slots.length; i++) {
+            slots[i].setter.accept(placeholders, placeholderPrefix + i + "_");
+        }
         Context context = new Context(locale);
-        context.setVariable(USER, user);
+        context.setVariable(USER, placeholders);
         context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
         String content = templateEngine.process(templateName, context);
-        String subject = messageSource.getMessage(titleKey, null, locale);
-        sendEmail(user.getEmail(), subject, content, false, true);
+
+        List<String> literals = new ArrayList<>();
+        List<UserSlot> templateSlots = new ArrayList<>();
+        Matcher matcher = placeholderPattern.matcher(content);
+        int end = 0;
+        while (matcher.find()) {
+            literals.add(content.substring(end, matcher.start()));
+            templateSlots.add(slots[Integer.parseInt(matcher.group(1))]);
+            end = matcher.end();
+        }
+        literals.add(content.substring(end));
+        return new MailTemplate(messageSource.getMessage(titleKey, null, locale), literals, templateSlots);
     }
 
-    @Async
     public void sendActivationEmail(User user) {
         log.debug("Sending activation email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/activationEmail", "email.activation.title");
     }
 
-    @Async
     public void sendCreationEmail(User user) {
         log.debug("Sending creation email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/creationEmail", "email.activation.title");
     }
 
-    @Async
     public void sendPasswordResetMail(User user) {
         log.debug("Sending password reset email to '{}'", user.getEmail());
         sendEmailFromTemplate(user, "mail/passwordResetEmail", "email.reset.title");
     }
+
+    /**
+     * The properties of the user a template may output.
+     */
+    private enum UserSlot {
+        LOGIN(User::getLogin, User::setLogin),
+        FIRST_NAME(User::getFirstName, User::setFirstName),
+        LAST_NAME(User::getLastName, User::setLastName),
+        EMAIL(User::getEmail, User::setEmail),
+        IMAGE_URL(User::getImageUrl, User::setImageUrl),
+        ACTIVATION_KEY(User::getActivationKey, User::setActivationKey),
+        RESET_KEY(User::getResetKey, User::setResetKey);
+
+        private final Function<User, String> getter;
+
+        private final BiConsumer<User, String> setter;
+
+        UserSlot(Function<User, String> getter, BiConsumer<User, String> setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * A template rendered for a locale: the literal parts around the slots of the user, and the subject.
+     */
+    private static final class MailTemplate {
+
+        private final String subject;
+
+        private final List<String> literals;
+
+        private final List<UserSlot> slots;
+
+        private MailTemplate(String subject, List<String> literals, List<UserSlot> slots) {
+            this.subject = subject;
+            this.literals = literals;
+            this.slots = slots;
+        }
+
+        private String render(User user) {
+            StringBuilder content = new StringBuilder(literals.get(0));
+            for (int i = 0; i < slots.size(); i++) {
+                String value = slots.get(i).getter.apply(user);
+                // Escaped as Thymeleaf escapes text and attribute values
+                if (value != null) {
+                    content.append(HtmlUtils.htmlEscape(value));
+                }
+                content.append(literals.get(i + 1));
+            }
+            return content.toString();
+        }
+    }
 }
@@ -0,0 +1,10 @@
+package net.subsquid.quest.service;
+
+public class QuestFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public QuestFullException() {
+        super("Quest has reached its maximum number of applicants!");
+    }
+}
@@ -0,0 +1,126 @@
+package net.subsquid.quest.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.IntConsumer;
+import net.subsquid.quest.aop.scheduling.SchedulerLock;
+import net.subsquid.quest.domain.enumeration.QuestStatus;
+import net.subsquid.quest.management.QuestLifecycleMetersService;
+import net.subsquid.quest.repository.QuestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service moving quests past their expiry date, or reaching their review start date, to their next status.
+ * <p>
+ * Quests are moved in chunks of {@code application.quest-lifecycle.chunk-size}, each chunk in its own transaction: the
+ * ids of a chunk are read through the {@code (status, expires_on)} or {@code (status, review_start_date)} index, then
+ * moved by a single {@code update} statement which also bumps their version. Hibernate evicts the {@code Quest} cache
+ * region when such a bulk update commits, so cached quests are read again with their new status.
+ */
+public class QuestLifecycleService {
+
+    private final Logger log = LoggerFactory.getLogger(QuestLifecycleService.class);
+
+    private final QuestRepository questRepository;
+
+    private final QuestLifecycleMetersService questLifecycleMetersService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    public QuestLifecycleService(
+        QuestRepository questRepository,
+        QuestLifecycleMetersService questLifecycleMetersService,
+        PlatformTransactionManager transactionManager,
+        int chunkSize
+    ) {
+        this.questRepository = questRepository;
+        this.questLifecycleMetersService = questLifecycleMetersService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Claimed quests go in review once their review starts or once expired, open quests nobody claimed are closed once
+     * expired.
+     * <p>
+     * This is scheduled to get fired everyday, at 00:05 (am), on a single instance of the cluster.
+     */
+    @Scheduled(cron = "0 5 0 * * ?")
+    @SchedulerLock(name = "quest-lifecycle")
+    public void moveExpiredQuests() {
+        moveExpiredQuests(LocalDate.now());
+    }
+
+    /**
+     * Move the quests expired before a date, or whose review starts on or before it.
+     *
+     * @param today the first day the quests are not expired, and the last day their review may start.
+     * @return the number of quests moved to each status.
+     */
+    public Map<QuestStatus, Integer> moveExpiredQuests(LocalDate today) {
+        long start = System.nanoTime();
+        Map<QuestStatus, Integer> counts = new EnumMap<>(QuestStatus.class);
+        counts.put(
+            QuestStatus.INREVIEW,
+            moveQuests(
+                QuestStatus.CLAIMED,
+                QuestStatus.INREVIEW,
+                (status, pageable) -> questRepository.findIdsByStatusAndReviewStartDateOnOrBefore(status, today, pageable),
+                questLifecycleMetersService::trackQuestsInReview
+            ) +
+            moveQuests(
+                QuestStatus.CLAIMED,
+                QuestStatus.INREVIEW,
+                (status, pageable) -> questRepository.findIdsByStatusAndExpiresOnBefore(status, today, pageable),
+                questLifecycleMetersService::trackQuestsInReview
+            )
+        );
+        counts.put(
+            QuestStatus.CLOSED,
+            moveQuests(
+                QuestStatus.OPEN,
+                QuestStatus.CLOSED,
+                (status, pageable) -> questRepository.findIdsByStatusAndExpiresOnBefore(status, today, pageable),
+                questLifecycleMetersService::trackQuestsClosed
+            )
+        );
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        questLifecycleMetersService.trackDuration(duration);
+        log.info("Moved expired quests in {} ms: {}", duration.toMillis(), counts);
+        return counts;
+    }
+
+    private int moveQuests(
+        QuestStatus from,
+        QuestStatus to,
+        BiFunction<QuestStatus, Pageable, List<Long>> findIds,
+        IntConsumer trackMoved
+    ) {
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(transaction -> {
+                List<Long> ids = findIds.apply(from, PageRequest.of(0, chunkSize));
+                return ids.isEmpty() ? 0 : questRepository.updateStatusByIdIn(ids, from, to);
+            });
+            log.debug("Moved {} quests from {} to {}", moved, from, to);
+            trackMoved.accept(moved);
+            total += moved;
+        } while (moved > 0);
+        return total;
+    }
+}
@@ -0,0 +1,185 @@
+package net.subsquid.quest.service;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import net.subsquid.quest.domain.*; // for static metamodels
+import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.repository.QuestRepository;
+import net.subsquid.quest.service.criteria.QuestCriteria;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.QueryService;
+
+/**
+ * Service for executing complex queries for {@link Quest} entities in the database.
+ * The main input is a {@link QuestCriteria} which gets converted to {@link Specification},
+ * in a way that all the filters must apply.
+ * It returns a {@link List} of {@link Quest} or a {@link Page} of {@link Quest} which fulfills the criteria.
+ * <p>
+ * The {@code status} and {@code expiresOn} filters are served by the {@code ix_quest__status_expires_on} index, the
+ * {@code assignee} filter by {@code ix_quest__assignee}, and the {@code applicantId} filter by the applicant side index
+ * of {@code quest_application}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class QuestQueryService extends QueryService<Quest> {
+
+    private final Logger log = LoggerFactory.getLogger(QuestQueryService.class);
+
+    private final QuestRepository questRepository;
+
+    private final EntityManager entityManager;
+
+    public QuestQueryService(QuestRepository questRepository, EntityManager entityManager) {
+        this.questRepository = questRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Return a {@link List} of {@link Quest} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<Quest> findByCriteria(QuestCriteria criteria) {
+        log.debug("find by criteria : {}", criteria);
+        final Specification<Quest> specification = createSpecification(criteria);
+        return questRepository.findAll(specification);
+    }
+
+    /**
+     * Return a {@link Page} of {@link Quest} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Quest> findByCriteria(QuestCriteria criteria, Pageable page) {
+        log.debug("find by criteria : {}, page: {}", criteria, page);
+        final Specification<Quest> specification = createSpecification(criteria);
+        return questRepository.findAll(specification, page);
+    }
+
+    /**
+     * Return a {@link Page} of {@link Quest} which matches the criteria from the database, with their applications
+     * and applicants. The page is read first, then its relationships are fetched in a single {@code IN} query.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Quest> findByCriteriaWithEagerRelationships(QuestCriteria criteria, Pageable page) {
+        log.debug("find by criteria with eager relationships : {}, page: {}", criteria, page);
+        Page<Quest> quests = findByCriteria(criteria, page);
+        if (!quests.isEmpty()) {
+            // Initializes the applications of the quests already in the persistence context
+            questRepository.findAllWithEagerRelationshipsByIdIn(quests.map(Quest::getId).getContent());
+        }
+        return quests;
+    }
+
+    /**
+     * Return a {@link Slice} of {@link Quest} which matches the criteria from the database, in id order, seeking past
+     * the given id instead of counting and offsetting.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param afterId the id to seek after, or {@code null} to start from the first quest.
+     * @param size the maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Quest> findByCriteriaAfter(QuestCriteria criteria, Long afterId, int size) {
+        log.debug("find by criteria : {}, after: {}", criteria, afterId);
+        Specification<Quest> specification = createSpecification(criteria);
+        if (afterId != null) {
+            specification = specification.and((root, query, builder) -> builder.greaterThan(root.get(Quest_.id), afterId));
+        }
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Quest> query = builder.createQuery(Quest.class);
+        Root<Quest> root = query.from(Quest.class);
+        query.select(root).where(specification.toPredicate(root, query, builder)).orderBy(builder.asc(root.get(Quest_.id)));
+        // One more row than requested tells whether a next slice exists
+        List<Quest> quests = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasNext = quests.size() > size;
+        return new SliceImpl<>(hasNext ? quests.subList(0, size) : quests, PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * Return the number of matching entities in the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the number of matching entities.
+     */
+    @Transactional(readOnly = true)
+    public long countByCriteria(QuestCriteria criteria) {
+        log.debug("count by criteria : {}", criteria);
+        final Specification<Quest> specification = createSpecification(criteria);
+        return questRepository.count(specification);
+    }
+
+    /**
+     * Function to convert {@link QuestCriteria} to a {@link Specification}
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching {@link Specification} of the entity.
+     */
+    protected Specification<Quest> createSpecification(QuestCriteria criteria) {
+        Specification<Quest> specification = Specification.where(null);
+        if (criteria != null) {
+            // This has to be called first, because the distinct method returns null
+            if (criteria.getDistinct() != null) {
+                specification = specification.and(distinct(criteria.getDistinct()));
+            }
+            if (criteria.getId() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getId(), Quest_.id));
+            }
+            if (criteria.getTitle() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getTitle(), Quest_.title));
+            }
+            if (criteria.getReward() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getReward(), Quest_.reward));
+            }
+            if (criteria.getExpiresOn() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getExpiresOn(), Quest_.expiresOn));
+            }
+            if (criteria.getReviewStartDate() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getReviewStartDate(), Quest_.reviewStartDate));
+            }
+            if (criteria.getMaxApplicants() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getMaxApplicants(), Quest_.maxApplicants));
+            }
+            if (criteria.getAssignee() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getAssignee(), Quest_.assignee));
+            }
+            if (criteria.getStatus() != null) {
+                specification = specification.and(buildSpecification(criteria.getStatus(), Quest_.status));
+            }
+            if (criteria.getApplicantCount() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getApplicantCount(), Quest_.applicantCount));
+            }
+            if (criteria.getApplicantId() != null) {
+                specification =
+                    specification.and(
+                        buildSpecification(
+                            criteria.getApplicantId(),
+                            root ->
+                                root
+                                    .join(Quest_.applications, JoinType.LEFT)
+                                    .get(QuestApplication_.id)
+                                    .get(QuestApplicationId_.applicantId)
+                        )
+                    );
+            }
+        }
+        return specification;
+    }
+}
@@ -1,7 +1,11 @@
 package net.subsquid.quest.service;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.QuestApplication;
+import net.subsquid.quest.service.dto.BulkItemResultDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -14,14 +18,35 @@ public interface QuestService {
      *
      * @param quest the entity to save.
      * @return the persisted entity.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the quest has a version other than the stored one.
      */
     Quest save(Quest quest);
 
     /**
-     * Partially updates a quest.
+     * Create or update quests in chunked transactions. Quests without an id are created, the others are updated as by
+     * {@link #save(Quest)}, their {@code version} being the expected one.
+     *
+     * @param quests the entities to save.
+     * @return the result of each entity, in the same order.
+     */
+    List<BulkItemResultDTO> saveAll(List<Quest> quests);
+
+    /**
+     * Updates an existing quest, in a single {@code UPDATE} of its editable columns.
+     *
+     * @param quest the entity to update.
+     * @return the persisted entity, or empty if there is no quest with this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the quest has a version other than the stored one.
+     */
+    Optional<Quest> update(Quest quest);
+
+    /**
+     * Partially updates a quest, in a single {@code UPDATE} of the columns it has a value for.
      *
      * @param quest the entity to update partially.
-     * @return the persisted entity.
+     * @return the persisted entity, or empty if there is no quest with this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the quest has a version other than the stored one.
+     * @throws javax.validation.ConstraintViolationException if one of the values is not valid.
      */
     Optional<Quest> partialUpdate(Quest quest);
 
@@ -34,12 +59,12 @@ public interface QuestService {
     Page<Quest> findAll(Pageable pageable);
 
     /**
-     * Get all the quests with eager load of many-to-many relationships.
+     * Pass all the quests to an action one at a time, in id order, within a read-only transaction. Each quest is detached
+     * once the action returns, so memory use does not grow with the number of quests.
      *
-     * @param pageable the pagination information.
-     * @return the list of entities.
+     * @param action the action to perform on each entity.
      */
-    Page<Quest> findAllWithEagerRelationships(Pageable pageable);
+    void exportAll(Consumer<Quest> action);
 
     /**
      * Get the "id" quest.
@@ -49,6 +74,25 @@ public interface QuestService {
      */
     Optional<Quest> findOne(Long id);
 
+    /**
+     * Apply an applicant to a quest. Only the application row is written; neither side's applications are loaded.
+     *
+     * @param questId the id of the quest.
+     * @param applicantId the id of the applicant.
+     * @return the new or already existing application, or empty if the quest or the applicant does not exist.
+     * @throws QuestFullException if the quest already has {@code maxApplicants} applications.
+     */
+    Optional<QuestApplication> apply(Long questId, Long applicantId);
+
+    /**
+     * Withdraw the application of an applicant to a quest.
+     *
+     * @param questId the id of the quest.
+     * @param applicantId the id of the applicant.
+     * @return whether an application was removed.
+     */
+    boolean withdraw(Long questId, Long applicantId);
+
     /**
      * Delete the "id" quest.
      *
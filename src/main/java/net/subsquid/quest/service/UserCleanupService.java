@@ -0,0 +1,106 @@
+package net.subsquid.quest.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+import net.subsquid.quest.aop.scheduling.SchedulerLock;
+import net.subsquid.quest.domain.User;
+import net.subsquid.quest.management.UserCleanupMetersService;
+import net.subsquid.quest.repository.UserRepository;
+import net.subsquid.quest.security.DomainUserDetailsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service removing the users who did not activate their account.
+ * <p>
+ * Users are removed in chunks of {@code application.user-cleanup.chunk-size}, each chunk in its own transaction: the
+ * users of a chunk are read in id order, then their authorities and themselves are deleted by one statement each. A run
+ * stopped midway leaves whole chunks removed, and the next run carries on with the users left.
+ */
+public class UserCleanupService {
+
+    private final Logger log = LoggerFactory.getLogger(UserCleanupService.class);
+
+    private final UserRepository userRepository;
+
+    private final DomainUserDetailsService userDetailsService;
+
+    private final UserCleanupMetersService userCleanupMetersService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    public UserCleanupService(
+        UserRepository userRepository,
+        DomainUserDetailsService userDetailsService,
+        UserCleanupMetersService userCleanupMetersService,
+        PlatformTransactionManager transactionManager,
+        int chunkSize
+    ) {
+        this.userRepository = userRepository;
+        this.userDetailsService = userDetailsService;
+        this.userCleanupMetersService = userCleanupMetersService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Not activated users should be automatically deleted after 3 days.
+     * <p>
+     * This is scheduled to get fired everyday, at 01:00 (am), on a single instance of the cluster.
+     */
+    @Scheduled(cron = "0 0 1 * * ?")
+    @SchedulerLock(name = "user-cleanup")
+    public void removeNotActivatedUsers() {
+        removeNotActivatedUsers(Instant.now().minus(3, ChronoUnit.DAYS));
+    }
+
+    /**
+     * Remove the users who did not activate their account, created before a time.
+     *
+     * @param createdBefore the time the users were created before.
+     * @return the number of users removed.
+     */
+    public int removeNotActivatedUsers(Instant createdBefore) {
+        long start = System.nanoTime();
+        int total = 0;
+        int removed;
+        do {
+            removed = transactionTemplate.execute(transaction -> removeChunk(createdBefore));
+            total += removed;
+        } while (removed > 0);
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        userCleanupMetersService.trackDuration(duration);
+        log.info("Removed {} not activated users in {} ms", total, duration.toMillis());
+        return total;
+    }
+
+    private int removeChunk(Instant createdBefore) {
+        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(
+            createdBefore,
+            PageRequest.of(0, chunkSize, Sort.by("id"))
+        );
+        if (users.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = users.stream().map(User::getId).collect(Collectors.toList());
+        int authorities = userRepository.deleteAuthoritiesByUserIdIn(ids);
+        int removed = userRepository.deleteAllByIdIn(ids);
+        users.forEach(user -> userDetailsService.evictUserDetails(user.getLogin(), user.getEmail()));
+        userCleanupMetersService.trackAuthoritiesDeleted(authorities);
+        userCleanupMetersService.trackUsersDeleted(removed);
+        log.debug("Removed {} not activated users and {} of their authorities", removed, authorities);
+        return removed;
+    }
+}
@@ -10,14 +10,15 @@ import net.subsquid.quest.domain.User;
 import net.subsquid.quest.repository.AuthorityRepository;
 import net.subsquid.quest.repository.UserRepository;
 import net.subsquid.quest.security.AuthoritiesConstants;
+import net.subsquid.quest.security.DomainUserDetailsService;
 import net.subsquid.quest.security.SecurityUtils;
+import net.subsquid.quest.security.jwt.TokenRevocationStore;
 import net.subsquid.quest.service.dto.AdminUserDTO;
 import net.subsquid.quest.service.dto.UserDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,10 +39,26 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository) {
+    private final TokenRevocationStore tokenRevocationStore;
+
+    private final DomainUserDetailsService userDetailsService;
+
+    private final MailService mailService;
+
+    public UserService(
+        UserRepository userRepository,
+        PasswordEncoder passwordEncoder,
+        AuthorityRepository authorityRepository,
+        TokenRevocationStore tokenRevocationStore,
+        DomainUserDetailsService userDetailsService,
+        MailService mailService
+    ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.userDetailsService = userDetailsService;
+        this.mailService = mailService;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -52,6 +69,7 @@ public class UserService {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
+                evictUserDetails(user);
                 log.debug("Activated user: {}", user);
                 return user;
             });
@@ -66,6 +84,8 @@ public class UserService {
                 user.setPassword(passwordEncoder.encode(newPassword));
                 user.setResetKey(null);
                 user.setResetDate(null);
+                tokenRevocationStore.revokeTokens(user.getLogin());
+                evictUserDetails(user);
                 return user;
             });
     }
@@ -77,6 +97,7 @@ public class UserService {
             .map(user -> {
                 user.setResetKey(RandomUtil.generateResetKey());
                 user.setResetDate(Instant.now());
+                mailService.sendPasswordResetMail(user);
                 return user;
             });
     }
@@ -109,7 +130,11 @@ public class UserService {
             newUser.setEmail(userDTO.getEmail().toLowerCase());
         }
         newUser.setImageUrl(userDTO.getImageUrl());
-        newUser.setLangKey(userDTO.getLangKey());
+        if (userDTO.getLangKey() == null) {
+            newUser.setLangKey(Constants.DEFAULT_LANGUAGE); // default language
+        } else {
+            newUser.setLangKey(userDTO.getLangKey());
+        }
         // new user is not active
         newUser.setActivated(false);
         // new user gets registration key
@@ -119,6 +144,7 @@ public class UserService {
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
         log.debug("Created Information for User: {}", newUser);
+        mailService.sendActivationEmail(newUser);
         return newUser;
     }
 
@@ -128,6 +154,7 @@ public class UserService {
         }
         userRepository.delete(existingUser);
         userRepository.flush();
+        evictUserDetails(existingUser);
         return true;
     }
 
@@ -162,11 +189,14 @@ public class UserService {
         }
         userRepository.save(user);
         log.debug("Created Information for User: {}", user);
+        mailService.sendCreationEmail(user);
         return user;
     }
 
     /**
      * Update all information for a specific user, and return the modified user.
+     * <p>
+     * Deactivating the user revokes all its tokens.
      *
      * @param userDTO user to update.
      * @return updated user.
@@ -177,6 +207,10 @@ public class UserService {
             .filter(Optional::isPresent)
             .map(Optional::get)
             .map(user -> {
+                if (user.isActivated() && !userDTO.isActivated()) {
+                    tokenRevocationStore.revokeTokens(user.getLogin());
+                }
+                evictUserDetails(user);
                 user.setLogin(userDTO.getLogin().toLowerCase());
                 user.setFirstName(userDTO.getFirstName());
                 user.setLastName(userDTO.getLastName());
@@ -201,11 +235,18 @@ public class UserService {
             .map(AdminUserDTO::new);
     }
 
+    /**
+     * Delete a user, and revoke all its tokens.
+     *
+     * @param login the login of the user.
+     */
     public void deleteUser(String login) {
         userRepository
             .findOneByLogin(login)
             .ifPresent(user -> {
                 userRepository.delete(user);
+                tokenRevocationStore.revokeTokens(user.getLogin());
+                evictUserDetails(user);
                 log.debug("Deleted User: {}", user);
             });
     }
@@ -224,6 +265,7 @@ public class UserService {
             .getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
             .ifPresent(user -> {
+                evictUserDetails(user);
                 user.setFirstName(firstName);
                 user.setLastName(lastName);
                 if (email != null) {
@@ -247,6 +289,8 @@ public class UserService {
                 }
                 String encryptedPassword = passwordEncoder.encode(newPassword);
                 user.setPassword(encryptedPassword);
+                tokenRevocationStore.revokeTokens(user.getLogin());
+                evictUserDetails(user);
                 log.debug("Changed password for User: {}", user);
             });
     }
@@ -272,18 +316,10 @@ public class UserService {
     }
 
     /**
-     * Not activated users should be automatically deleted after 3 days.
-     * <p>
-     * This is scheduled to get fired everyday, at 01:00 (am).
+     * Evict a user from the cache of {@link DomainUserDetailsService}, before its login or email is changed.
      */
-    @Scheduled(cron = "0 0 1 * * ?")
-    public void removeNotActivatedUsers() {
-        userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
-            .forEach(user -> {
-                log.debug("Deleting not activated user {}", user.getLogin());
-                userRepository.delete(user);
-            });
+    private void evictUserDetails(User user) {
+        userDetailsService.evictUserDetails(user.getLogin(), user.getEmail());
     }
 
     /**
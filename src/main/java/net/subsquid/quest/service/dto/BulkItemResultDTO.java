@@ -0,0 +1,91 @@
+package net.subsquid.quest.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO representing the outcome of one entity of a bulk request.
+ */
+public class BulkItemResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The outcome of an entity.
+     */
+    public enum Status {
+        /** The entity had no id and was created. */
+        CREATED,
+        /** The entity was updated. */
+        UPDATED,
+        /** The entity failed validation, nothing was written. */
+        INVALID,
+        /** The entity has an id that does not exist. */
+        NOT_FOUND,
+        /** The entity was updated since the expected version. */
+        CONFLICT,
+        /** The entity could not be written to the database. */
+        FAILED
+    }
+
+    private int index;
+
+    private Status status;
+
+    private Long id;
+
+    private String message;
+
+    public BulkItemResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public BulkItemResultDTO(int index, Status status, Long id, String message) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BulkItemResultDTO{" +
+            "index=" + index +
+            ", status=" + status +
+            ", id=" + id +
+            ", message='" + message + "'" +
+            "}";
+    }
+}
@@ -1,14 +1,34 @@
 package net.subsquid.quest.service.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
 import net.subsquid.quest.domain.Applicant;
 import net.subsquid.quest.repository.ApplicantRepository;
+import net.subsquid.quest.repository.QuestApplicationRepository;
+import net.subsquid.quest.repository.QuestRepository;
 import net.subsquid.quest.service.ApplicantService;
+import net.subsquid.quest.service.BulkSaveService;
+import net.subsquid.quest.service.dto.BulkItemResultDTO;
+import net.subsquid.quest.service.dto.BulkItemResultDTO.Status;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -22,16 +42,86 @@ public class ApplicantServiceImpl implements ApplicantService {
 
     private final ApplicantRepository applicantRepository;
 
-    public ApplicantServiceImpl(ApplicantRepository applicantRepository) {
+    private final QuestRepository questRepository;
+
+    private final QuestApplicationRepository questApplicationRepository;
+
+    private final EntityManager entityManager;
+
+    private final BulkSaveService bulkSaveService;
+
+    public ApplicantServiceImpl(
+        ApplicantRepository applicantRepository,
+        QuestRepository questRepository,
+        QuestApplicationRepository questApplicationRepository,
+        EntityManager entityManager,
+        BulkSaveService bulkSaveService
+    ) {
         this.applicantRepository = applicantRepository;
+        this.questRepository = questRepository;
+        this.questApplicationRepository = questApplicationRepository;
+        this.entityManager = entityManager;
+        this.bulkSaveService = bulkSaveService;
     }
 
     @Override
     public Applicant save(Applicant applicant) {
         log.debug("Request to save Applicant : {}", applicant);
+        if (applicant.getId() != null && applicant.getVersion() == null) {
+            // Without an expected version the update is unconditional, otherwise a stale one fails the merge
+            applicantRepository
+                .findById(applicant.getId())
+                .ifPresent(existingApplicant -> applicant.setVersion(existingApplicant.getVersion()));
+        }
         return applicantRepository.save(applicant);
     }
 
+    /**
+     * Each chunk reads the applicants it updates in a single query, and checks their version up front instead of letting a
+     * stale merge fail, so that a conflict does not roll back the rest of the chunk.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> saveAll(List<Applicant> applicants) {
+        log.debug("Request to save Applicants : {}", applicants.size());
+        return bulkSaveService.saveAll(
+            applicants,
+            this::saveChunk,
+            Applicant::getId,
+            applicant -> {
+                applicant.setId(null);
+                applicant.setVersion(null);
+            }
+        );
+    }
+
+    private List<Status> saveChunk(List<Applicant> applicants) {
+        Map<Long, Applicant> existingApplicants = applicantRepository
+            .findAllById(applicants.stream().map(Applicant::getId).filter(Objects::nonNull).collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.toMap(Applicant::getId, Function.identity()));
+        List<Status> statuses = new ArrayList<>(applicants.size());
+        for (Applicant applicant : applicants) {
+            if (applicant.getId() == null) {
+                applicant.setVersion(null);
+                applicantRepository.save(applicant);
+                statuses.add(Status.CREATED);
+                continue;
+            }
+            Applicant existingApplicant = existingApplicants.get(applicant.getId());
+            if (existingApplicant == null) {
+                statuses.add(Status.NOT_FOUND);
+            } else if (applicant.getVersion() != null && !applicant.getVersion().equals(existingApplicant.getVersion())) {
+                statuses.add(Status.CONFLICT);
+            } else {
+                applicant.setVersion(existingApplicant.getVersion());
+                applicantRepository.save(applicant);
+                statuses.add(Status.UPDATED);
+            }
+        }
+        return statuses;
+    }
+
     @Override
     public Optional<Applicant> partialUpdate(Applicant applicant) {
         log.debug("Request to partially update Applicant : {}", applicant);
@@ -39,6 +129,9 @@ public class ApplicantServiceImpl implements ApplicantService {
         return applicantRepository
             .findById(applicant.getId())
             .map(existingApplicant -> {
+                if (applicant.getVersion() != null && !applicant.getVersion().equals(existingApplicant.getVersion())) {
+                    throw new ObjectOptimisticLockingFailureException(Applicant.class, applicant.getId());
+                }
                 if (applicant.getDiscordHandle() != null) {
                     existingApplicant.setDiscordHandle(applicant.getDiscordHandle());
                 }
@@ -55,20 +148,66 @@ public class ApplicantServiceImpl implements ApplicantService {
         return applicantRepository.findAll(pageable);
     }
 
+    /**
+     * Pages over the ids first, then fetches the page with its quests in a single {@code IN} query,
+     * as paginating over a collection fetch is rejected by {@code fail_on_pagination_over_collection_fetch}.
+     */
+    @Override
+    @Transactional(readOnly = true)
     public Page<Applicant> findAllWithEagerRelationships(Pageable pageable) {
-        return applicantRepository.findAllWithEagerRelationships(pageable);
+        log.debug("Request to get all Applicants with eager relationships");
+        Page<Long> ids = applicantRepository.findAllIds(pageable);
+        Map<Long, Applicant> applicants = ids.isEmpty()
+            ? Map.of()
+            : applicantRepository
+                .findAllWithEagerRelationshipsByIdIn(ids.getContent())
+                .stream()
+                .collect(Collectors.toMap(Applicant::getId, Function.identity()));
+        return ids.map(applicants::get);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Applicant> findAllAfter(Long afterId, int size) {
+        log.debug("Request to get Applicants after : {}", afterId);
+        Pageable pageable = PageRequest.of(0, size, Sort.by("id"));
+        if (afterId == null) {
+            return applicantRepository.findAllBy(pageable);
+        }
+        return applicantRepository.findAllByIdGreaterThan(afterId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<Applicant> action) {
+        log.debug("Request to export all Applicants");
+        try (Stream<Applicant> applicants = applicantRepository.streamAllByOrderById()) {
+            applicants.forEach(applicant -> {
+                action.accept(applicant);
+                entityManager.detach(applicant);
+            });
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Applicant> findOne(Long id) {
         log.debug("Request to get Applicant : {}", id);
-        return applicantRepository.findOneWithEagerRelationships(id);
+        // Resolved by id so that the entity, its applications and their quests come from the second-level cache
+        return applicantRepository
+            .findById(id)
+            .map(applicant -> {
+                applicant.getApplications().forEach(application -> Hibernate.initialize(application.getQuest()));
+                return applicant;
+            });
     }
 
     @Override
     public void delete(Long id) {
         log.debug("Request to delete Applicant : {}", id);
+        // Rare enough that evicting the whole quest region, as bulk updates do, is acceptable
+        questRepository.decrementApplicantCountByApplicantId(id);
+        questApplicationRepository.deleteAllByApplicantId(id);
         applicantRepository.deleteById(id);
     }
 }
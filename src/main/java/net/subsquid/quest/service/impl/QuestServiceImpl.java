@@ -1,14 +1,38 @@
 package net.subsquid.quest.service.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
 import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.QuestApplication;
+import net.subsquid.quest.domain.QuestApplicationId;
+import net.subsquid.quest.repository.ApplicantRepository;
+import net.subsquid.quest.repository.QuestApplicationRepository;
 import net.subsquid.quest.repository.QuestRepository;
+import net.subsquid.quest.service.BulkSaveService;
+import net.subsquid.quest.service.QuestFullException;
 import net.subsquid.quest.service.QuestService;
+import net.subsquid.quest.service.dto.BulkItemResultDTO;
+import net.subsquid.quest.service.dto.BulkItemResultDTO.Status;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -22,54 +46,133 @@ public class QuestServiceImpl implements QuestService {
 
     private final QuestRepository questRepository;
 
-    public QuestServiceImpl(QuestRepository questRepository) {
+    private final ApplicantRepository applicantRepository;
+
+    private final QuestApplicationRepository questApplicationRepository;
+
+    private final EntityManager entityManager;
+
+    private final BulkSaveService bulkSaveService;
+
+    private final Validator validator;
+
+    public QuestServiceImpl(
+        QuestRepository questRepository,
+        ApplicantRepository applicantRepository,
+        QuestApplicationRepository questApplicationRepository,
+        EntityManager entityManager,
+        BulkSaveService bulkSaveService,
+        Validator validator
+    ) {
         this.questRepository = questRepository;
+        this.applicantRepository = applicantRepository;
+        this.questApplicationRepository = questApplicationRepository;
+        this.entityManager = entityManager;
+        this.bulkSaveService = bulkSaveService;
+        this.validator = validator;
     }
 
     @Override
     public Quest save(Quest quest) {
         log.debug("Request to save Quest : {}", quest);
+        if (quest.getId() != null) {
+            questRepository
+                .findById(quest.getId())
+                .ifPresent(existingQuest -> {
+                    // applicantCount is read-only in the API and only moves with applications
+                    quest.setApplicantCount(existingQuest.getApplicantCount());
+                    // Without an expected version the update is unconditional, otherwise a stale one fails the merge
+                    if (quest.getVersion() == null) {
+                        quest.setVersion(existingQuest.getVersion());
+                    }
+                });
+        }
         return questRepository.save(quest);
     }
 
+    /**
+     * Each chunk reads the quests it updates in a single query, and checks their version up front instead of letting a
+     * stale merge fail, so that a conflict does not roll back the rest of the chunk.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> saveAll(List<Quest> quests) {
+        log.debug("Request to save Quests : {}", quests.size());
+        return bulkSaveService.saveAll(
+            quests,
+            this::saveChunk,
+            Quest::getId,
+            quest -> {
+                quest.setId(null);
+                quest.setVersion(null);
+            }
+        );
+    }
+
+    private List<Status> saveChunk(List<Quest> quests) {
+        Map<Long, Quest> existingQuests = questRepository
+            .findAllById(quests.stream().map(Quest::getId).filter(Objects::nonNull).collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.toMap(Quest::getId, Function.identity()));
+        List<Status> statuses = new ArrayList<>(quests.size());
+        for (Quest quest : quests) {
+            if (quest.getId() == null) {
+                quest.setVersion(null);
+                questRepository.save(quest);
+                statuses.add(Status.CREATED);
+                continue;
+            }
+            Quest existingQuest = existingQuests.get(quest.getId());
+            if (existingQuest == null) {
+                statuses.add(Status.NOT_FOUND);
+            } else if (quest.getVersion() != null && !quest.getVersion().equals(existingQuest.getVersion())) {
+                statuses.add(Status.CONFLICT);
+            } else {
+                quest.setApplicantCount(existingQuest.getApplicantCount());
+                quest.setVersion(existingQuest.getVersion());
+                questRepository.save(quest);
+                statuses.add(Status.UPDATED);
+            }
+        }
+        return statuses;
+    }
+
+    @Override
+    public Optional<Quest> update(Quest quest) {
+        log.debug("Request to update Quest : {}", quest);
+        return updateColumns(quest, false);
+    }
+
+    /**
+     * Only the values present in the request are validated, a missing one leaves its column unchanged.
+     */
     @Override
     public Optional<Quest> partialUpdate(Quest quest) {
         log.debug("Request to partially update Quest : {}", quest);
+        Set<ConstraintViolation<Quest>> violations = validator
+            .validate(quest)
+            .stream()
+            .filter(violation -> violation.getInvalidValue() != null)
+            .collect(Collectors.toSet());
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return updateColumns(quest, true);
+    }
 
-        return questRepository
-            .findById(quest.getId())
-            .map(existingQuest -> {
-                if (quest.getTitle() != null) {
-                    existingQuest.setTitle(quest.getTitle());
-                }
-                if (quest.getDescription() != null) {
-                    existingQuest.setDescription(quest.getDescription());
-                }
-                if (quest.getReward() != null) {
-                    existingQuest.setReward(quest.getReward());
-                }
-                if (quest.getExpiresOn() != null) {
-                    existingQuest.setExpiresOn(quest.getExpiresOn());
-                }
-                if (quest.getReviewStartDate() != null) {
-                    existingQuest.setReviewStartDate(quest.getReviewStartDate());
-                }
-                if (quest.getMaxApplicants() != null) {
-                    existingQuest.setMaxApplicants(quest.getMaxApplicants());
-                }
-                if (quest.getAssignee() != null) {
-                    existingQuest.setAssignee(quest.getAssignee());
-                }
-                if (quest.getStatus() != null) {
-                    existingQuest.setStatus(quest.getStatus());
-                }
-                if (quest.getPrivateNotes() != null) {
-                    existingQuest.setPrivateNotes(quest.getPrivateNotes());
-                }
-
-                return existingQuest;
-            })
-            .map(questRepository::save);
+    /**
+     * The quest is not loaded before the update: the single {@code UPDATE} statement is conditioned on the id and the
+     * expected version, and the quest is read back only if it matched. A stale version is told apart from a missing quest
+     * only when no row was updated.
+     */
+    private Optional<Quest> updateColumns(Quest quest, boolean partial) {
+        if (questRepository.updateColumns(quest, partial) == 0) {
+            if (quest.getVersion() != null && questRepository.existsById(quest.getId())) {
+                throw new ObjectOptimisticLockingFailureException(Quest.class, quest.getId());
+            }
+            return Optional.empty();
+        }
+        return Optional.of(questRepository.findFreshById(quest.getId()));
     }
 
     @Override
@@ -79,20 +182,80 @@ public class QuestServiceImpl implements QuestService {
         return questRepository.findAll(pageable);
     }
 
-    public Page<Quest> findAllWithEagerRelationships(Pageable pageable) {
-        return questRepository.findAllWithEagerRelationships(pageable);
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<Quest> action) {
+        log.debug("Request to export all Quests");
+        try (Stream<Quest> quests = questRepository.streamAllByOrderById()) {
+            quests.forEach(quest -> {
+                action.accept(quest);
+                entityManager.detach(quest);
+            });
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Quest> findOne(Long id) {
         log.debug("Request to get Quest : {}", id);
-        return questRepository.findOneWithEagerRelationships(id);
+        // Resolved by id so that the entity, its applications and their applicants come from the second-level cache
+        return questRepository
+            .findById(id)
+            .map(quest -> {
+                quest.getApplications().forEach(application -> Hibernate.initialize(application.getApplicant()));
+                return quest;
+            });
+    }
+
+    /**
+     * The quest row is locked before checking its {@code applicantCount}, so concurrent applies to the same quest are
+     * serialized and cannot both take the last place. The count is updated through the entity to keep the cache in sync.
+     */
+    @Override
+    public Optional<QuestApplication> apply(Long questId, Long applicantId) {
+        log.debug("Request to apply Applicant : {} to Quest : {}", applicantId, questId);
+        return questRepository
+            .findOneForUpdate(questId)
+            .flatMap(quest -> {
+                Optional<QuestApplication> existingApplication = questApplicationRepository.findById(
+                    new QuestApplicationId(questId, applicantId)
+                );
+                if (existingApplication.isPresent()) {
+                    return existingApplication;
+                }
+                return applicantRepository
+                    .findById(applicantId)
+                    .map(applicant -> {
+                        if (quest.getApplicantCount() >= quest.getMaxApplicants()) {
+                            throw new QuestFullException();
+                        }
+                        quest.setApplicantCount(quest.getApplicantCount() + 1);
+                        return questApplicationRepository.save(new QuestApplication(quest, applicant));
+                    });
+            });
+    }
+
+    @Override
+    public boolean withdraw(Long questId, Long applicantId) {
+        log.debug("Request to withdraw Applicant : {} from Quest : {}", applicantId, questId);
+        return questRepository
+            .findOneForUpdate(questId)
+            .flatMap(quest ->
+                questApplicationRepository
+                    .findById(new QuestApplicationId(questId, applicantId))
+                    .map(application -> {
+                        questApplicationRepository.delete(application);
+                        quest.setApplicantCount(quest.getApplicantCount() - 1);
+                        return true;
+                    })
+            )
+            .orElse(false);
     }
 
     @Override
     public void delete(Long id) {
         log.debug("Request to delete Quest : {}", id);
+        questApplicationRepository.deleteAllByQuestId(id);
         questRepository.deleteById(id);
     }
 }
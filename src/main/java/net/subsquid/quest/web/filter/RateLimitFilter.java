@@ -0,0 +1,231 @@
+package net.subsquid.quest.web.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import net.subsquid.quest.security.RateLimiter;
+import net.subsquid.quest.security.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Filter limiting the rate of the requests of each client, per route.
+ * <p>
+ * A client is the authenticated user, or the remote address of anonymous requests. The first route matching a request
+ * applies; a request over its limit is answered with status {@code 429 (Too Many Requests)} and a {@code Retry-After}
+ * header, without being handled. Behind a proxy, {@code server.forward-headers-strategy} must be set for the remote
+ * address to be the client's.
+ * <p>
+ * A route with a login field, such as the authentication, also limits each login attempted in the JSON request body,
+ * whatever the client, so that one account cannot be guessed at from many addresses. Its requests are rejected once
+ * either the client or the login is over the limit, and their body is read here, up to {@value #MAX_LOGIN_BODY_SIZE}
+ * bytes, then handed down the chain.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final int MAX_LOGIN_BODY_SIZE = 16 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final RateLimiter rateLimiter;
+
+    private final List<Route> routes;
+
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimiter rateLimiter, List<Route> routes, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.routes = routes;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if (route.matches(request.getMethod(), path, pathMatcher)) {
+                String client = clientOf(request);
+                if (!tryAcquire(route, client, response)) {
+                    return;
+                }
+                if (route.loginField != null) {
+                    CachedBodyRequest cachedBodyRequest = CachedBodyRequest.read(request);
+                    if (cachedBodyRequest == null) {
+                        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                        return;
+                    }
+                    String login = loginOf(cachedBodyRequest, route.loginField);
+                    if (login != null && !tryAcquire(route, "login:" + login, response)) {
+                        return;
+                    }
+                    request = cachedBodyRequest;
+                }
+                break;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean tryAcquire(Route route, String key, HttpServletResponse response) {
+        Duration wait = rateLimiter.tryAcquire(route.name + '|' + key, route.limit);
+        if (wait.isZero()) {
+            return true;
+        }
+        log.debug("Rate limit of route {} exceeded by {}", route.name, key);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString((wait.toMillis() + 999) / 1000));
+        return false;
+    }
+
+    /**
+     * The login in the given field of the JSON body, lower-cased as logins are stored, or {@code null} if the body has
+     * none, in which case the request is left to fail downstream.
+     */
+    @Nullable
+    private String loginOf(CachedBodyRequest request, String loginField) {
+        try {
+            JsonNode login = objectMapper.readTree(request.body).get(loginField);
+            return login != null && login.isTextual() ? login.asText().toLowerCase(Locale.ENGLISH) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String clientOf(HttpServletRequest request) {
+        if (SecurityUtils.isAuthenticated()) {
+            return SecurityUtils.getCurrentUserLogin().map(login -> "user:" + login).orElseGet(() -> "ip:" + request.getRemoteAddr());
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Request whose body was read ahead, to be read again downstream.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        /**
+         * @return the request with its body read, or {@code null} if the body is over {@link #MAX_LOGIN_BODY_SIZE}.
+         */
+        @Nullable
+        static CachedBodyRequest read(HttpServletRequest request) throws IOException {
+            if (request.getContentLengthLong() > MAX_LOGIN_BODY_SIZE) {
+                return null;
+            }
+            try (InputStream in = request.getInputStream()) {
+                byte[] body = in.readNBytes(MAX_LOGIN_BODY_SIZE + 1);
+                return body.length > MAX_LOGIN_BODY_SIZE ? null : new CachedBodyRequest(request, body);
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // the body being in memory, it is all available at once
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+
+    /**
+     * Requests limited together, matched by method and path pattern.
+     */
+    public static final class Route {
+
+        private final String name;
+
+        private final Set<String> methods;
+
+        private final List<String> paths;
+
+        private final RateLimiter.Limit limit;
+
+        private final String loginField;
+
+        /**
+         * @param name the name of the route.
+         * @param methods the methods of the route, all methods if empty.
+         * @param paths the Ant patterns of the paths of the route.
+         * @param limit the limit of each client, and of each login, on the route.
+         * @param loginField the field of the JSON body holding the login of the request, {@code null} if not limited per login.
+         */
+        public Route(String name, Set<String> methods, List<String> paths, RateLimiter.Limit limit, @Nullable String loginField) {
+            this.name = name;
+            this.methods = methods;
+            this.paths = paths;
+            this.limit = limit;
+            this.loginField = loginField;
+        }
+
+        boolean matches(String method, String path, AntPathMatcher pathMatcher) {
+            return (methods.isEmpty() || methods.contains(method)) && paths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package net.subsquid.quest.web.filter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import net.subsquid.quest.management.SqlStatementMetersService;
+import net.subsquid.quest.management.SqlStatementRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Filter recording the SQL statements executed while handling each HTTP request.
+ * <p>
+ * The number of statements is published per request mapping. A request executing more than
+ * {@code application.sql-statements.request-budget} statements is logged as a warning, along with the statements
+ * Hibernate prepared more than once, which usually point at an N+1 select. Statements executed after the response has
+ * been handed to another thread, as by streaming exports, are not recorded.
+ */
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final Logger log = LoggerFactory.getLogger(SqlStatementBudgetFilter.class);
+
+    private final SqlStatementMetersService sqlStatementMetersService;
+
+    private final int requestBudget;
+
+    public SqlStatementBudgetFilter(SqlStatementMetersService sqlStatementMetersService, int requestBudget) {
+        this.sqlStatementMetersService = sqlStatementMetersService;
+        this.requestBudget = requestBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        try (SqlStatementRecorder.Recording recording = SqlStatementRecorder.start()) {
+            filterChain.doFilter(request, response);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern == null && recording.getExecutions() == 0) {
+                // Static resources and other unmapped requests
+                return;
+            }
+            String uri = pattern == null ? UNKNOWN_URI : pattern.toString();
+            sqlStatementMetersService.trackRequest(request.getMethod(), uri, recording.getExecutions());
+            if (recording.getExecutions() > requestBudget) {
+                sqlStatementMetersService.trackOverBudget(request.getMethod(), uri);
+                log.warn(
+                    "{} {} executed {} SQL statements, over the budget of {}. Repeated statements: {}",
+                    request.getMethod(),
+                    request.getRequestURI(),
+                    recording.getExecutions(),
+                    requestBudget,
+                    describe(recording.getRepeatedStatements())
+                );
+            }
+        }
+    }
+
+    private static String describe(Map<String, Integer> statements) {
+        if (statements.isEmpty()) {
+            return "none";
+        }
+        return statements
+            .entrySet()
+            .stream()
+            .map(statement -> statement.getValue() + " x " + statement.getKey())
+            .collect(Collectors.joining("; "));
+    }
+}
@@ -1,29 +1,43 @@
 package net.subsquid.quest.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import net.subsquid.quest.domain.Applicant;
+import net.subsquid.quest.domain.Quest;
 import net.subsquid.quest.repository.ApplicantRepository;
 import net.subsquid.quest.service.ApplicantService;
+import net.subsquid.quest.service.BulkTooLargeException;
+import net.subsquid.quest.service.dto.BulkItemResultDTO;
 import net.subsquid.quest.web.rest.errors.BadRequestAlertException;
+import net.subsquid.quest.web.rest.util.ETagUtil;
+import net.subsquid.quest.web.rest.util.ExportUtil;
+import net.subsquid.quest.web.rest.util.KeysetPaginationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link net.subsquid.quest.domain.Applicant}.
@@ -36,6 +50,8 @@ public class ApplicantResource {
 
     private static final String ENTITY_NAME = "applicant";
 
+    private static final Map<String, Function<Applicant, Object>> CSV_COLUMNS = csvColumns();
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -43,9 +59,12 @@ public class ApplicantResource {
 
     private final ApplicantRepository applicantRepository;
 
-    public ApplicantResource(ApplicantService applicantService, ApplicantRepository applicantRepository) {
+    private final ObjectMapper objectMapper;
+
+    public ApplicantResource(ApplicantService applicantService, ApplicantRepository applicantRepository, ObjectMapper objectMapper) {
         this.applicantService = applicantService;
         this.applicantRepository = applicantRepository;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -68,19 +87,43 @@ public class ApplicantResource {
             .body(result);
     }
 
+    /**
+     * {@code POST  /applicants/bulk} : Create or update many applicants.
+     * <p>
+     * Applicants without an id are created, the others are updated as by {@code PUT /applicants/:id}, their {@code version} being
+     * the expected one. All the applicants are validated before any is saved, then they are saved in chunked transactions, so
+     * that a failing applicant does not prevent the others from being saved.
+     *
+     * @param applicants the applicants to create or update.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each applicant, in request order,
+     * or with status {@code 400 (Bad Request)} if there are more applicants than {@code application.bulk.max-items}.
+     */
+    @PostMapping("/applicants/bulk")
+    public ResponseEntity<List<BulkItemResultDTO>> bulkSaveApplicants(@RequestBody List<Applicant> applicants) {
+        log.debug("REST request to bulk save Applicants : {}", applicants.size());
+        try {
+            return ResponseEntity.ok().body(applicantService.saveAll(applicants));
+        } catch (BulkTooLargeException e) {
+            throw new BadRequestAlertException("Too many applicants in a bulk request", ENTITY_NAME, "bulktoolarge");
+        }
+    }
+
     /**
      * {@code PUT  /applicants/:id} : Updates an existing applicant.
      *
      * @param id the id of the applicant to save.
+     * @param ifMatch the entity tag the applicant is expected to have, overriding its {@code version}.
      * @param applicant the applicant to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated applicant,
      * or with status {@code 400 (Bad Request)} if the applicant is not valid,
+     * or with status {@code 409 (Conflict)} if the applicant has been updated since the expected version,
      * or with status {@code 500 (Internal Server Error)} if the applicant couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/applicants/{id}")
     public ResponseEntity<Applicant> updateApplicant(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @Valid @RequestBody Applicant applicant
     ) throws URISyntaxException {
         log.debug("REST request to update Applicant : {}, {}", id, applicant);
@@ -95,10 +138,12 @@ public class ApplicantResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
+        expectVersion(applicant, ifMatch);
         Applicant result = applicantService.save(applicant);
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, applicant.getId().toString()))
+            .eTag(entityTag(result))
             .body(result);
     }
 
@@ -106,9 +151,11 @@ public class ApplicantResource {
      * {@code PATCH  /applicants/:id} : Partial updates given fields of an existing applicant, field will ignore if it is null
      *
      * @param id the id of the applicant to save.
+     * @param ifMatch the entity tag the applicant is expected to have, overriding its {@code version}.
      * @param applicant the applicant to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated applicant,
      * or with status {@code 400 (Bad Request)} if the applicant is not valid,
+     * or with status {@code 409 (Conflict)} if the applicant has been updated since the expected version,
      * or with status {@code 404 (Not Found)} if the applicant is not found,
      * or with status {@code 500 (Internal Server Error)} if the applicant couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -116,6 +163,7 @@ public class ApplicantResource {
     @PatchMapping(value = "/applicants/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Applicant> partialUpdateApplicant(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody Applicant applicant
     ) throws URISyntaxException {
         log.debug("REST request to partial update Applicant partially : {}, {}", id, applicant);
@@ -130,12 +178,18 @@ public class ApplicantResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
+        expectVersion(applicant, ifMatch);
         Optional<Applicant> result = applicantService.partialUpdate(applicant);
 
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, applicant.getId().toString())
-        );
+        return result
+            .map(response ->
+                ResponseEntity
+                    .ok()
+                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, applicant.getId().toString()))
+                    .eTag(entityTag(response))
+                    .body(response)
+            )
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
@@ -143,13 +197,20 @@ public class ApplicantResource {
      *
      * @param pageable the pagination information.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of applicants in body.
+     * @param after cursor taken from a previous {@code next} link. When present, even empty, the applicants are returned in id order
+     * using keyset pagination, which does not run any count query.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of applicants in body,
+     * or with status {@code 304 (Not Modified)} if it matches {@code If-None-Match}.
      */
     @GetMapping("/applicants")
     public ResponseEntity<List<Applicant>> getAllApplicants(
         @org.springdoc.api.annotations.ParameterObject Pageable pageable,
-        @RequestParam(required = false, defaultValue = "false") boolean eagerload
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after
     ) {
+        if (after != null) {
+            return getApplicantsAfter(after, pageable.getPageSize());
+        }
         log.debug("REST request to get a page of Applicants");
         Page<Applicant> page;
         if (eagerload) {
@@ -158,20 +219,72 @@ public class ApplicantResource {
             page = applicantService.findAll(pageable);
         }
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        return ResponseEntity.ok().headers(headers).body(page.getContent());
+        return ResponseEntity
+            .ok()
+            .headers(headers)
+            .eTag(collectionTag(page.getContent(), page.getTotalElements()))
+            .body(page.getContent());
+    }
+
+    private ResponseEntity<List<Applicant>> getApplicantsAfter(String after, int size) {
+        log.debug("REST request to get a slice of Applicants after : {}", after);
+        Long afterId;
+        try {
+            afterId = KeysetPaginationUtil.decodeCursor(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        Slice<Applicant> slice = applicantService.findAllAfter(afterId, size);
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            slice,
+            Applicant::getId
+        );
+        return ResponseEntity
+            .ok()
+            .headers(headers)
+            .eTag(collectionTag(slice.getContent(), slice.hasNext()))
+            .body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /applicants/export} : export all the applicants, in id order.
+     * <p>
+     * The applicants are streamed from the database and written as they are read, so that the whole table can be exported
+     * without paging and in constant memory.
+     *
+     * @param accept the accepted media types, either newline delimited JSON ({@code application/x-ndjson}, the default)
+     * or CSV ({@code text/csv}).
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the applicants streamed in body.
+     */
+    @GetMapping(value = "/applicants/export", produces = { MediaType.APPLICATION_NDJSON_VALUE, ExportUtil.TEXT_CSV_VALUE })
+    public ResponseEntity<StreamingResponseBody> exportApplicants(
+        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        log.debug("REST request to export Applicants");
+        MediaType mediaType = ExportUtil.exportMediaType(accept);
+        StreamingResponseBody body = outputStream -> {
+            try (ExportUtil.RowWriter<Applicant> writer = ExportUtil.rowWriter(mediaType, outputStream, objectMapper, CSV_COLUMNS)) {
+                applicantService.exportAll(writer);
+            }
+        };
+        return ResponseEntity.ok().contentType(mediaType).body(body);
     }
 
     /**
      * {@code GET  /applicants/:id} : get the "id" applicant.
      *
      * @param id the id of the applicant to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the applicant, or with status {@code 404 (Not Found)}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the applicant,
+     * or with status {@code 304 (Not Modified)} if it matches {@code If-None-Match}, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/applicants/{id}")
     public ResponseEntity<Applicant> getApplicant(@PathVariable Long id) {
         log.debug("REST request to get Applicant : {}", id);
         Optional<Applicant> applicant = applicantService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(applicant);
+        return applicant
+            .map(response -> ResponseEntity.ok().eTag(entityTag(response)).body(response))
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
@@ -189,4 +302,39 @@ public class ApplicantResource {
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    private void expectVersion(Applicant applicant, String ifMatch) {
+        if (ifMatch == null) {
+            return;
+        }
+        Long version;
+        try {
+            version = ETagUtil.versionOf(ifMatch);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid If-Match", ENTITY_NAME, "ifmatchinvalid");
+        }
+        if (version != null) {
+            applicant.setVersion(version);
+        }
+    }
+
+    private static Map<String, Function<Applicant, Object>> csvColumns() {
+        Map<String, Function<Applicant, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", Applicant::getId);
+        columns.put("discordHandle", Applicant::getDiscordHandle);
+        columns.put("version", Applicant::getVersion);
+        return columns;
+    }
+
+    private static String entityTag(Applicant applicant) {
+        List<Quest> quests = applicant.getQuests();
+        return ETagUtil.entityTag(
+            applicant.getVersion(),
+            quests == null ? List.of() : quests.stream().map(quest -> quest.getId() + ":" + quest.getVersion()).collect(Collectors.toList())
+        );
+    }
+
+    private static String collectionTag(List<Applicant> applicants, Object paging) {
+        return ETagUtil.collectionTag(applicants.stream().map(ApplicantResource::entityTag).collect(Collectors.toList()), paging);
+    }
 }
@@ -1,25 +1,42 @@
 package net.subsquid.quest.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import net.subsquid.quest.domain.Applicant;
 import net.subsquid.quest.domain.Quest;
-import net.subsquid.quest.repository.QuestRepository;
+import net.subsquid.quest.domain.QuestApplication;
+import net.subsquid.quest.service.BulkTooLargeException;
+import net.subsquid.quest.service.QuestQueryService;
 import net.subsquid.quest.service.QuestService;
+import net.subsquid.quest.service.criteria.QuestCriteria;
+import net.subsquid.quest.service.dto.BulkItemResultDTO;
 import net.subsquid.quest.web.rest.errors.BadRequestAlertException;
+import net.subsquid.quest.web.rest.util.ETagUtil;
+import net.subsquid.quest.web.rest.util.ExportUtil;
+import net.subsquid.quest.web.rest.util.KeysetPaginationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -36,16 +53,21 @@ public class QuestResource {
 
     private static final String ENTITY_NAME = "quest";
 
+    private static final Map<String, Function<Quest, Object>> CSV_COLUMNS = csvColumns();
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final QuestService questService;
 
-    private final QuestRepository questRepository;
+    private final QuestQueryService questQueryService;
+
+    private final ObjectMapper objectMapper;
 
-    public QuestResource(QuestService questService, QuestRepository questRepository) {
+    public QuestResource(QuestService questService, QuestQueryService questQueryService, ObjectMapper objectMapper) {
         this.questService = questService;
-        this.questRepository = questRepository;
+        this.questQueryService = questQueryService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -68,19 +90,46 @@ public class QuestResource {
             .body(result);
     }
 
+    /**
+     * {@code POST  /quests/bulk} : Create or update many quests.
+     * <p>
+     * Quests without an id are created, the others are updated as by {@code PUT /quests/:id}, their {@code version} being
+     * the expected one. All the quests are validated before any is saved, then they are saved in chunked transactions, so
+     * that a failing quest does not prevent the others from being saved.
+     *
+     * @param quests the quests to create or update.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the result of each quest, in request order,
+     * or with status {@code 400 (Bad Request)} if there are more quests than {@code application.bulk.max-items}.
+     */
+    @PostMapping("/quests/bulk")
+    public ResponseEntity<List<BulkItemResultDTO>> bulkSaveQuests(@RequestBody List<Quest> quests) {
+        log.debug("REST request to bulk save Quests : {}", quests.size());
+        try {
+            return ResponseEntity.ok().body(questService.saveAll(quests));
+        } catch (BulkTooLargeException e) {
+            throw new BadRequestAlertException("Too many quests in a bulk request", ENTITY_NAME, "bulktoolarge");
+        }
+    }
+
     /**
      * {@code PUT  /quests/:id} : Updates an existing quest.
      *
      * @param id the id of the quest to save.
+     * @param ifMatch the entity tag the quest is expected to have, overriding its {@code version}.
      * @param quest the quest to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated quest,
      * or with status {@code 400 (Bad Request)} if the quest is not valid,
+     * or with status {@code 409 (Conflict)} if the quest has been updated since the expected version,
+     * or with status {@code 404 (Not Found)} if the quest is not found,
      * or with status {@code 500 (Internal Server Error)} if the quest couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/quests/{id}")
-    public ResponseEntity<Quest> updateQuest(@PathVariable(value = "id", required = false) final Long id, @Valid @RequestBody Quest quest)
-        throws URISyntaxException {
+    public ResponseEntity<Quest> updateQuest(
+        @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @Valid @RequestBody Quest quest
+    ) throws URISyntaxException {
         log.debug("REST request to update Quest : {}, {}", id, quest);
         if (quest.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
@@ -89,24 +138,29 @@ public class QuestResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!questRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
+        expectVersion(quest, ifMatch);
+        Optional<Quest> result = questService.update(quest);
 
-        Quest result = questService.save(quest);
-        return ResponseEntity
-            .ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, quest.getId().toString()))
-            .body(result);
+        return result
+            .map(response ->
+                ResponseEntity
+                    .ok()
+                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, quest.getId().toString()))
+                    .eTag(entityTag(response))
+                    .body(response)
+            )
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
      * {@code PATCH  /quests/:id} : Partial updates given fields of an existing quest, field will ignore if it is null
      *
      * @param id the id of the quest to save.
+     * @param ifMatch the entity tag the quest is expected to have, overriding its {@code version}.
      * @param quest the quest to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated quest,
      * or with status {@code 400 (Bad Request)} if the quest is not valid,
+     * or with status {@code 409 (Conflict)} if the quest has been updated since the expected version,
      * or with status {@code 404 (Not Found)} if the quest is not found,
      * or with status {@code 500 (Internal Server Error)} if the quest couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -114,6 +168,7 @@ public class QuestResource {
     @PatchMapping(value = "/quests/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Quest> partialUpdateQuest(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody Quest quest
     ) throws URISyntaxException {
         log.debug("REST request to partial update Quest partially : {}, {}", id, quest);
@@ -124,52 +179,157 @@ public class QuestResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!questRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
+        expectVersion(quest, ifMatch);
         Optional<Quest> result = questService.partialUpdate(quest);
 
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, quest.getId().toString())
-        );
+        return result
+            .map(response ->
+                ResponseEntity
+                    .ok()
+                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, quest.getId().toString()))
+                    .eTag(entityTag(response))
+                    .body(response)
+            )
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
      * {@code GET  /quests} : get all the quests.
      *
+     * @param criteria the criteria which the requested entities should match.
      * @param pageable the pagination information.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of quests in body.
+     * @param after cursor taken from a previous {@code next} link. When present, even empty, the quests are returned in id order
+     * using keyset pagination, which does not run any count query.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of quests in body,
+     * or with status {@code 304 (Not Modified)} if it matches {@code If-None-Match}.
      */
     @GetMapping("/quests")
     public ResponseEntity<List<Quest>> getAllQuests(
+        QuestCriteria criteria,
         @org.springdoc.api.annotations.ParameterObject Pageable pageable,
-        @RequestParam(required = false, defaultValue = "false") boolean eagerload
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after
     ) {
-        log.debug("REST request to get a page of Quests");
+        if (after != null) {
+            return getQuestsAfter(criteria, after, pageable.getPageSize());
+        }
+        log.debug("REST request to get Quests by criteria: {}", criteria);
         Page<Quest> page;
         if (eagerload) {
-            page = questService.findAllWithEagerRelationships(pageable);
+            page = questQueryService.findByCriteriaWithEagerRelationships(criteria, pageable);
         } else {
-            page = questService.findAll(pageable);
+            page = questQueryService.findByCriteria(criteria, pageable);
         }
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        return ResponseEntity.ok().headers(headers).body(page.getContent());
+        return ResponseEntity
+            .ok()
+            .headers(headers)
+            .eTag(collectionTag(page.getContent(), page.getTotalElements()))
+            .body(page.getContent());
+    }
+
+    private ResponseEntity<List<Quest>> getQuestsAfter(QuestCriteria criteria, String after, int size) {
+        log.debug("REST request to get a slice of Quests by criteria: {} after : {}", criteria, after);
+        Long afterId;
+        try {
+            afterId = KeysetPaginationUtil.decodeCursor(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        Slice<Quest> slice = questQueryService.findByCriteriaAfter(criteria, afterId, size);
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            slice,
+            Quest::getId
+        );
+        return ResponseEntity
+            .ok()
+            .headers(headers)
+            .eTag(collectionTag(slice.getContent(), slice.hasNext()))
+            .body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /quests/count} : count all the quests.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/quests/count")
+    public ResponseEntity<Long> countQuests(QuestCriteria criteria) {
+        log.debug("REST request to count Quests by criteria: {}", criteria);
+        return ResponseEntity.ok().body(questQueryService.countByCriteria(criteria));
+    }
+
+    /**
+     * {@code GET  /quests/export} : export all the quests, in id order.
+     * <p>
+     * The quests are streamed from the database and written as they are read, so that the whole table can be exported
+     * without paging and in constant memory.
+     *
+     * @param accept the accepted media types, either newline delimited JSON ({@code application/x-ndjson}, the default)
+     * or CSV ({@code text/csv}).
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the quests streamed in body.
+     */
+    @GetMapping(value = "/quests/export", produces = { MediaType.APPLICATION_NDJSON_VALUE, ExportUtil.TEXT_CSV_VALUE })
+    public ResponseEntity<StreamingResponseBody> exportQuests(@RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        log.debug("REST request to export Quests");
+        MediaType mediaType = ExportUtil.exportMediaType(accept);
+        StreamingResponseBody body = outputStream -> {
+            try (ExportUtil.RowWriter<Quest> writer = ExportUtil.rowWriter(mediaType, outputStream, objectMapper, CSV_COLUMNS)) {
+                questService.exportAll(writer);
+            }
+        };
+        return ResponseEntity.ok().contentType(mediaType).body(body);
     }
 
     /**
      * {@code GET  /quests/:id} : get the "id" quest.
      *
      * @param id the id of the quest to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the quest, or with status {@code 404 (Not Found)}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the quest,
+     * or with status {@code 304 (Not Modified)} if it matches {@code If-None-Match}, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/quests/{id}")
     public ResponseEntity<Quest> getQuest(@PathVariable Long id) {
         log.debug("REST request to get Quest : {}", id);
         Optional<Quest> quest = questService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(quest);
+        return quest
+            .map(response -> ResponseEntity.ok().eTag(entityTag(response)).body(response))
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * {@code POST  /quests/:id/apply} : Apply an applicant to the "id" quest.
+     *
+     * @param id the id of the quest to apply to.
+     * @param applicantId the id of the applying applicant.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the application,
+     * or with status {@code 400 (Bad Request)} if the quest already has {@code maxApplicants} applicants,
+     * or with status {@code 404 (Not Found)} if the quest or the applicant is not found.
+     */
+    @PostMapping("/quests/{id}/apply")
+    public ResponseEntity<QuestApplication> applyToQuest(@PathVariable Long id, @RequestParam Long applicantId) {
+        log.debug("REST request to apply Applicant : {} to Quest : {}", applicantId, id);
+        Optional<QuestApplication> result = questService.apply(id, applicantId);
+        return ResponseUtil.wrapOrNotFound(result);
+    }
+
+    /**
+     * {@code POST  /quests/:id/withdraw} : Withdraw the application of an applicant to the "id" quest.
+     *
+     * @param id the id of the quest to withdraw from.
+     * @param applicantId the id of the withdrawing applicant.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}, or with status {@code 404 (Not Found)} if there is no such application.
+     */
+    @PostMapping("/quests/{id}/withdraw")
+    public ResponseEntity<Void> withdrawFromQuest(@PathVariable Long id, @RequestParam Long applicantId) {
+        log.debug("REST request to withdraw Applicant : {} from Quest : {}", applicantId, id);
+        if (!questService.withdraw(id, applicantId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
     }
 
     /**
@@ -187,4 +347,48 @@ public class QuestResource {
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    private void expectVersion(Quest quest, String ifMatch) {
+        if (ifMatch == null) {
+            return;
+        }
+        Long version;
+        try {
+            version = ETagUtil.versionOf(ifMatch);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid If-Match", ENTITY_NAME, "ifmatchinvalid");
+        }
+        if (version != null) {
+            quest.setVersion(version);
+        }
+    }
+
+    private static Map<String, Function<Quest, Object>> csvColumns() {
+        Map<String, Function<Quest, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", Quest::getId);
+        columns.put("title", Quest::getTitle);
+        columns.put("description", Quest::getDescription);
+        columns.put("reward", Quest::getReward);
+        columns.put("expiresOn", Quest::getExpiresOn);
+        columns.put("reviewStartDate", Quest::getReviewStartDate);
+        columns.put("maxApplicants", Quest::getMaxApplicants);
+        columns.put("assignee", Quest::getAssignee);
+        columns.put("status", Quest::getStatus);
+        columns.put("privateNotes", Quest::getPrivateNotes);
+        columns.put("applicantCount", Quest::getApplicantCount);
+        columns.put("version", Quest::getVersion);
+        return columns;
+    }
+
+    private static String entityTag(Quest quest) {
+        List<Applicant> applicants = quest.getApplicants();
+        return ETagUtil.entityTag(
+            quest.getVersion(),
+            applicants == null ? List.of() : applicants.stream().map(applicant -> applicant.getId() + ":" + applicant.getVersion()).collect(Collectors.toList())
+        );
+    }
+
+    private static String collectionTag(List<Quest> quests, Object paging) {
+        return ETagUtil.collectionTag(quests.stream().map(QuestResource::entityTag).collect(Collectors.toList()), paging);
+    }
 }
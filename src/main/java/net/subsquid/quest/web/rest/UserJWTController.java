@@ -1,17 +1,21 @@
 package net.subsquid.quest.web.rest;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import javax.validation.Valid;
 import net.subsquid.quest.security.jwt.JWTFilter;
 import net.subsquid.quest.security.jwt.TokenProvider;
+import net.subsquid.quest.web.rest.errors.LoginOverloadedException;
 import net.subsquid.quest.web.rest.vm.LoginVM;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -25,21 +29,50 @@ public class UserJWTController {
 
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
 
-    public UserJWTController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder) {
+    private final Executor passwordHashingExecutor;
+
+    public UserJWTController(
+        TokenProvider tokenProvider,
+        AuthenticationManagerBuilder authenticationManagerBuilder,
+        @Qualifier("passwordHashingExecutor") Executor passwordHashingExecutor
+    ) {
         this.tokenProvider = tokenProvider;
         this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
     }
 
+    /**
+     * {@code POST  /authenticate} : authenticate a login and issue its token.
+     * <p>
+     * The login is authenticated on the password hashing executor, releasing the web server thread while its password is
+     * hashed. When the executor queue is full, the login is rejected with status {@code 503 (Service Unavailable)}.
+     *
+     * @param loginVM the login.
+     * @return the {@link CompletableFuture} of the {@link ResponseEntity} with status {@code 200 (OK)} and the token in
+     * body and header.
+     */
     @PostMapping("/authenticate")
-    public ResponseEntity<JWTToken> authorize(@Valid @RequestBody LoginVM loginVM) {
+    public CompletableFuture<ResponseEntity<JWTToken>> authorize(@Valid @RequestBody LoginVM loginVM) {
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
             loginVM.getUsername(),
             loginVM.getPassword()
         );
 
-        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = tokenProvider.createToken(authentication, loginVM.isRememberMe());
+        CompletableFuture<Authentication> authentication;
+        try {
+            authentication =
+                CompletableFuture.supplyAsync(
+                    () -> authenticationManagerBuilder.getObject().authenticate(authenticationToken),
+                    passwordHashingExecutor
+                );
+        } catch (RejectedExecutionException e) {
+            throw new LoginOverloadedException(e);
+        }
+        return authentication.thenApply(authenticated -> createTokenResponse(authenticated, loginVM.isRememberMe()));
+    }
+
+    private ResponseEntity<JWTToken> createTokenResponse(Authentication authentication, boolean rememberMe) {
+        String jwt = tokenProvider.createToken(authentication, rememberMe);
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
         return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
@@ -10,7 +10,6 @@ import net.subsquid.quest.config.Constants;
 import net.subsquid.quest.domain.User;
 import net.subsquid.quest.repository.UserRepository;
 import net.subsquid.quest.security.AuthoritiesConstants;
-import net.subsquid.quest.service.MailService;
 import net.subsquid.quest.service.UserService;
 import net.subsquid.quest.service.dto.AdminUserDTO;
 import net.subsquid.quest.web.rest.errors.BadRequestAlertException;
@@ -85,12 +84,9 @@ public class UserResource {
 
     private final UserRepository userRepository;
 
-    private final MailService mailService;
-
-    public UserResource(UserService userService, UserRepository userRepository, MailService mailService) {
+    public UserResource(UserService userService, UserRepository userRepository) {
         this.userService = userService;
         this.userRepository = userRepository;
-        this.mailService = mailService;
     }
 
     /**
@@ -119,7 +115,6 @@ public class UserResource {
             throw new EmailAlreadyUsedException();
         } else {
             User newUser = userService.createUser(userDTO);
-            mailService.sendCreationEmail(newUser);
             return ResponseEntity
                 .created(new URI("/api/admin/users/" + newUser.getLogin()))
                 .headers(
@@ -0,0 +1,13 @@
+package net.subsquid.quest.web.rest.errors;
+
+/**
+ * Thrown when a login cannot be authenticated, the password hashing executor being saturated.
+ */
+public class LoginOverloadedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LoginOverloadedException(Throwable cause) {
+        super("Too many logins are being authenticated!", cause);
+    }
+}
@@ -0,0 +1,10 @@
+package net.subsquid.quest.web.rest.errors;
+
+public class QuestFullException extends BadRequestAlertException {
+
+    private static final long serialVersionUID = 1L;
+
+    public QuestFullException() {
+        super(ErrorConstants.QUEST_FULL_TYPE, "Quest has reached its maximum number of applicants!", "quest", "questfull");
+    }
+}
@@ -0,0 +1,76 @@
+package net.subsquid.quest.web.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.stream.Collectors;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Utility class for building and reading strong entity tags derived from {@code @Version} columns.
+ * <p>
+ * An entity tag is the entity version, followed by a digest of the {@code id:version} pairs of the related entities
+ * embedded in the response, if any. Only the leading version is read back from {@code If-Match}, as a precondition on
+ * the entity itself. Collection tags are a digest of the tags of their elements.
+ * <p>
+ * Spring MVC answers {@code If-None-Match} on {@code GET} with {@code 304 (Not Modified)} by itself, without writing
+ * the body, once the {@code ETag} header is set on the returned {@link org.springframework.http.ResponseEntity}.
+ */
+public final class ETagUtil {
+
+    private static final String ANY = "*";
+
+    private ETagUtil() {}
+
+    /**
+     * Build the tag of an entity.
+     *
+     * @param version the version of the entity.
+     * @param relatedVersions the {@code id:version} pairs of the related entities embedded in the response.
+     * @return the quoted entity tag.
+     */
+    public static String entityTag(Long version, Collection<String> relatedVersions) {
+        if (relatedVersions.isEmpty()) {
+            return quote(String.valueOf(version));
+        }
+        return quote(version + "-" + digest(relatedVersions.stream().sorted().collect(Collectors.joining(","))));
+    }
+
+    /**
+     * Build the tag of a list of entities.
+     *
+     * @param entityTags the tags of the entities, in response order.
+     * @param paging what else the pagination headers depend on, such as the total count.
+     * @return the quoted entity tag.
+     */
+    public static String collectionTag(Collection<String> entityTags, Object paging) {
+        return quote(digest(String.join(",", entityTags) + ";" + paging));
+    }
+
+    /**
+     * Read the expected entity version from an {@code If-Match} header.
+     *
+     * @param ifMatch the header value.
+     * @return the expected version, or {@code null} if any version matches.
+     * @throws IllegalArgumentException if the header is not a single strong tag built by {@link #entityTag(Long, Collection)}.
+     */
+    public static Long versionOf(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (ANY.equals(tag)) {
+            return null;
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("Not a strong entity tag: " + ifMatch);
+        }
+        tag = tag.substring(1, tag.length() - 1);
+        int separator = tag.indexOf('-');
+        return Long.valueOf(separator < 0 ? tag : tag.substring(0, separator));
+    }
+
+    private static String digest(String value) {
+        return DigestUtils.md5DigestAsHex(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
@@ -0,0 +1,168 @@
+package net.subsquid.quest.web.rest.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.springframework.http.MediaType;
+
+/**
+ * Utility class for streaming entities as newline delimited JSON or CSV.
+ * <p>
+ * Rows are written to the response as they are produced, so that an export never holds more than one row in memory.
+ */
+public final class ExportUtil {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static final MediaType TEXT_CSV = MediaType.valueOf(TEXT_CSV_VALUE);
+
+    private ExportUtil() {}
+
+    /**
+     * Choose the export format from an {@code Accept} header, newline delimited JSON being the default.
+     *
+     * @param accept the header value, may be {@code null}.
+     * @return {@link MediaType#APPLICATION_NDJSON} or {@link #TEXT_CSV}.
+     */
+    public static MediaType exportMediaType(String accept) {
+        if (accept != null) {
+            List<MediaType> acceptedTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(acceptedTypes);
+            for (MediaType acceptedType : acceptedTypes) {
+                if (acceptedType.includes(MediaType.APPLICATION_NDJSON)) {
+                    return MediaType.APPLICATION_NDJSON;
+                }
+                if (acceptedType.includes(TEXT_CSV)) {
+                    return TEXT_CSV;
+                }
+            }
+        }
+        return MediaType.APPLICATION_NDJSON;
+    }
+
+    /**
+     * Open a row writer on a response body.
+     *
+     * @param mediaType the export format, as returned by {@link #exportMediaType(String)}.
+     * @param outputStream the response body, left open when the writer is closed.
+     * @param objectMapper the mapper serializing rows as JSON.
+     * @param csvColumns the CSV header of each column, mapped to the function reading it from a row.
+     * @param <T> the type of rows.
+     * @return the row writer.
+     * @throws IOException if the writer cannot be opened.
+     */
+    public static <T> RowWriter<T> rowWriter(
+        MediaType mediaType,
+        OutputStream outputStream,
+        ObjectMapper objectMapper,
+        Map<String, Function<T, Object>> csvColumns
+    ) throws IOException {
+        if (TEXT_CSV.equalsTypeAndSubtype(mediaType)) {
+            return new CsvRowWriter<>(outputStream, csvColumns);
+        }
+        return new NdjsonRowWriter<>(outputStream, objectMapper);
+    }
+
+    /**
+     * Writer of one row at a time. I/O errors are rethrown as {@link UncheckedIOException}, so that the writer can be
+     * passed where a {@link Consumer} is expected.
+     *
+     * @param <T> the type of rows.
+     */
+    public interface RowWriter<T> extends Consumer<T>, AutoCloseable {
+        /**
+         * Flush the buffered rows, without closing the response body.
+         */
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class NdjsonRowWriter<T> implements RowWriter<T> {
+
+        private final JsonGenerator generator;
+
+        private final ObjectWriter writer;
+
+        NdjsonRowWriter(OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(outputStream).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Values are separated by the newlines written after each of them, instead of the default space
+            this.generator.setRootValueSeparator(null);
+            this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void accept(T row) {
+            try {
+                writer.writeValue(generator, row);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvRowWriter<T> implements RowWriter<T> {
+
+        private final Writer writer;
+
+        private final Map<String, Function<T, Object>> columns;
+
+        CsvRowWriter(OutputStream outputStream, Map<String, Function<T, Object>> columns) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            this.columns = columns;
+            writeLine(columns.keySet().iterator());
+        }
+
+        @Override
+        public void accept(T row) {
+            try {
+                writeLine(columns.values().stream().map(column -> column.apply(row)).iterator());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeLine(Iterator<?> values) throws IOException {
+            while (values.hasNext()) {
+                Object value = values.next();
+                if (value != null) {
+                    writer.write(escape(value.toString()));
+                }
+                if (values.hasNext()) {
+                    writer.write(',');
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
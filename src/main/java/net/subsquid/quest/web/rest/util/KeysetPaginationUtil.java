@@ -0,0 +1,79 @@
+package net.subsquid.quest.web.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (seek) pagination.
+ * <p>
+ * Unlike {@link tech.jhipster.web.util.PaginationUtil}, no total count is computed: the response only carries a
+ * {@code next} link, built from an opaque cursor on the last returned key, for as long as more rows exist.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String AFTER_PARAMETER = "after";
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Encode a key as an opaque cursor.
+     *
+     * @param key the key of the last row of a slice.
+     * @return the cursor.
+     */
+    public static String encodeCursor(Long key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encodeCursor(Long)}.
+     *
+     * @param cursor the cursor, empty to start from the first row.
+     * @return the key to seek after, or {@code null} to start from the first row.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Generate the keyset pagination headers.
+     *
+     * @param uriBuilder the current request URI.
+     * @param slice the slice of rows being returned.
+     * @param keyExtractor the function returning the key a row is ordered by.
+     * @param <T> the type of rows.
+     * @return the {@link HttpHeaders} with a {@code next} link if more rows follow.
+     */
+    public static <T> HttpHeaders generateKeysetHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        Slice<T> slice,
+        Function<T, Long> keyExtractor
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        List<T> content = slice.getContent();
+        if (slice.hasNext() && !content.isEmpty()) {
+            String next = uriBuilder
+                .replaceQueryParam(AFTER_PARAMETER, encodeCursor(keyExtractor.apply(content.get(content.size() - 1))))
+                .replaceQueryParam("size", slice.getSize())
+                .replaceQueryParam("page")
+                .replaceQueryParam("sort")
+                .toUriString()
+                .replace(",", "%2C")
+                .replace(";", "%3B");
+            headers.add(HttpHeaders.LINK, MessageFormat.format(HEADER_LINK_FORMAT, next, "next"));
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Utility classes for Spring MVC REST controllers.
+ */
+package net.subsquid.quest.web.rest.util;
@@ -4,12 +4,9 @@ import { Button, Row, Col, FormText } from 'reactstrap';
 import { isNumber, ValidatedField, ValidatedForm } from 'react-jhipster';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
 
-import { IApplicant } from 'app/shared/model/applicant.model';
-import { getEntities as getApplicants } from 'app/entities/applicant/applicant.reducer';
 import { getEntity, updateEntity, createEntity, reset } from './quest.reducer';
 import { IQuest } from 'app/shared/model/quest.model';
 import { convertDateTimeFromServer, convertDateTimeToServer, displayDefaultDateTime } from 'app/shared/util/date-utils';
-import { mapIdList } from 'app/shared/util/entity-utils';
 import { useAppDispatch, useAppSelector } from 'app/config/store';
 import { QuestStatus } from 'app/shared/model/enumerations/quest-status.model';
 
@@ -18,7 +15,6 @@ export const QuestUpdate = (props: RouteComponentProps<{ id: string }>) => {
 
   const [isNew] = useState(!props.match.params || !props.match.params.id);
 
-  const applicants = useAppSelector(state => state.applicant.entities);
   const questEntity = useAppSelector(state => state.quest.entity);
   const loading = useAppSelector(state => state.quest.loading);
   const updating = useAppSelector(state => state.quest.updating);
@@ -34,8 +30,6 @@ export const QuestUpdate = (props: RouteComponentProps<{ id: string }>) => {
     } else {
       dispatch(getEntity(props.match.params.id));
     }
-
-    dispatch(getApplicants({}));
   }, []);
 
   useEffect(() => {
@@ -48,7 +42,6 @@ export const QuestUpdate = (props: RouteComponentProps<{ id: string }>) => {
     const entity = {
       ...questEntity,
       ...values,
-      applicants: mapIdList(values.applicants),
     };
 
     if (isNew) {
@@ -64,7 +57,6 @@ export const QuestUpdate = (props: RouteComponentProps<{ id: string }>) => {
       : {
           status: 'OPEN',
           ...questEntity,
-          applicants: questEntity?.applicants?.map(e => e.id.toString()),
         };
 
   return (
@@ -145,16 +137,6 @@ export const QuestUpdate = (props: RouteComponentProps<{ id: string }>) => {
                 ))}
               </ValidatedField>
               <ValidatedField label="Private Notes" id="quest-privateNotes" name="privateNotes" data-cy="privateNotes" type="text" />
-              <ValidatedField label="Applicant" id="quest-applicant" data-cy="applicant" type="select" multiple name="applicants">
-                <option value="" key="0" />
-                {applicants
-                  ? applicants.map(otherEntity => (
-                      <option value={otherEntity.id} key={otherEntity.id}>
-                        {otherEntity.discordHandle}
-                      </option>
-                    ))
-                  : null}
-              </ValidatedField>
               <Button tag={Link} id="cancel-save" data-cy="entityCreateCancelButton" to="/quest" replace color="info">
                 <FontAwesomeIcon icon="arrow-left" />
                 &nbsp;
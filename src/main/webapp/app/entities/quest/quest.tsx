@@ -117,7 +117,7 @@ export const Quest = (props: RouteComponentProps<{ url: string }>) => {
                   Review Start Date <FontAwesomeIcon icon="sort" />
                 </th>
                 <th className="hand" onClick={sort('maxApplicants')}>
-                  Max Applicants <FontAwesomeIcon icon="sort" />
+                  Applicants <FontAwesomeIcon icon="sort" />
                 </th>
                 <th className="hand" onClick={sort('assignee')}>
                   Assignee <FontAwesomeIcon icon="sort" />
@@ -146,7 +146,9 @@ export const Quest = (props: RouteComponentProps<{ url: string }>) => {
                   <td>
                     {quest.reviewStartDate ? <TextFormat type="date" value={quest.reviewStartDate} format={APP_LOCAL_DATE_FORMAT} /> : null}
                   </td>
-                  <td>{quest.maxApplicants}</td>
+                  <td>
+                    {quest.applicantCount}/{quest.maxApplicants}
+                  </td>
                   <td>{quest.assignee}</td>
                   <td>{quest.status}</td>
                   <td>{quest.privateNotes}</td>
@@ -3,6 +3,7 @@ import { IQuest } from 'app/shared/model/quest.model';
 export interface IApplicant {
   id?: number;
   discordHandle?: string;
+  version?: number;
   quests?: IQuest[] | null;
 }
 
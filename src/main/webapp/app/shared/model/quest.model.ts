@@ -13,6 +13,8 @@ export interface IQuest {
   assignee?: string | null;
   status?: QuestStatus;
   privateNotes?: string | null;
+  applicantCount?: number;
+  version?: number;
   applicants?: IApplicant[] | null;
 }
 
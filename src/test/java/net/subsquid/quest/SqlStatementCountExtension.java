@@ -0,0 +1,44 @@
+package net.subsquid.quest;
+
+import net.subsquid.quest.management.SqlStatementRecorder;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+
+/**
+ * Extension recording the SQL statements executed on the test thread during each test.
+ * <p>
+ * A test method declares a {@link SqlStatementRecorder.Recording} parameter, resets it once its data is set up, then
+ * asserts the number of executions after performing a request: {@code MockMvc} handles requests on the test thread.
+ */
+public class SqlStatementCountExtension implements BeforeEachCallback, AfterEachCallback, ParameterResolver {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlStatementCountExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(SqlStatementRecorder.Recording.class, SqlStatementRecorder.start());
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        SqlStatementRecorder.Recording recording = context
+            .getStore(NAMESPACE)
+            .remove(SqlStatementRecorder.Recording.class, SqlStatementRecorder.Recording.class);
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == SqlStatementRecorder.Recording.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return extensionContext.getStore(NAMESPACE).get(SqlStatementRecorder.Recording.class, SqlStatementRecorder.Recording.class);
+    }
+}
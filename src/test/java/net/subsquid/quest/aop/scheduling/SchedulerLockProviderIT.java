@@ -0,0 +1,147 @@
+package net.subsquid.quest.aop.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.service.UserCleanupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link SchedulerLockProvider}.
+ * <p>
+ * Not transactional: the locks are committed as they would be in production. Each provider stands for an instance of
+ * the cluster, all sharing the same database.
+ */
+@IntegrationTest
+class SchedulerLockProviderIT {
+
+    private static final String LOCK_NAME = "test-job";
+
+    private static final Duration LEASE_TIME = Duration.ofMillis(600);
+
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofMillis(100);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserCleanupService userCleanupService;
+
+    private final List<SchedulerLockProvider> providers = new ArrayList<>();
+
+    @BeforeEach
+    public void init() {
+        for (int i = 0; i < 3; i++) {
+            providers.add(new SchedulerLockProvider(jdbcTemplate, transactionManager, LEASE_TIME, HEARTBEAT_INTERVAL, "instance-" + i));
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        providers.forEach(SchedulerLockProvider::shutdown);
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction ->
+            jdbcTemplate.update("delete from jhi_scheduler_lock where name in (?, ?)", LOCK_NAME, "user-cleanup")
+        );
+    }
+
+    @Test
+    void jobScheduledOnEveryInstanceRunsOnOneAtATime() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger runs = new AtomicInteger();
+        List<ThreadPoolTaskScheduler> schedulers = new ArrayList<>();
+        for (SchedulerLockProvider provider : providers) {
+            ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+            scheduler.setWaitForTasksToCompleteOnShutdown(true);
+            scheduler.setAwaitTerminationSeconds(5);
+            scheduler.initialize();
+            scheduler.scheduleWithFixedDelay(
+                () -> {
+                    try {
+                        provider.runIfLocked(
+                            LOCK_NAME,
+                            Duration.ZERO,
+                            () -> {
+                                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                                // Longer than the lease, which only the heartbeat keeps alive
+                                Thread.sleep(LEASE_TIME.multipliedBy(2).toMillis());
+                                running.decrementAndGet();
+                                runs.incrementAndGet();
+                            }
+                        );
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                },
+                Duration.ofMillis(50)
+            );
+            schedulers.add(scheduler);
+        }
+
+        Thread.sleep(LEASE_TIME.multipliedBy(6).toMillis());
+        schedulers.forEach(ThreadPoolTaskScheduler::shutdown);
+
+        assertThat(runs.get()).isGreaterThanOrEqualTo(2);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    void leaseOfStoppedInstanceExpires() {
+        Instant now = Instant.now();
+        assertThat(providers.get(0).tryAcquire(LOCK_NAME, now)).isTrue();
+
+        assertThat(providers.get(1).tryAcquire(LOCK_NAME, now)).isFalse();
+        assertThat(providers.get(1).tryAcquire(LOCK_NAME, now.plus(LEASE_TIME).minusMillis(1))).isFalse();
+        assertThat(providers.get(1).tryAcquire(LOCK_NAME, now.plus(LEASE_TIME))).isTrue();
+        assertThat(providers.get(2).tryAcquire(LOCK_NAME, now.plus(LEASE_TIME))).isFalse();
+    }
+
+    @Test
+    void releasedLockIsHeldForAtLeastItsMinimumTime() throws Throwable {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThat(providers.get(0).runIfLocked(LOCK_NAME, Duration.ofMinutes(1), runs::incrementAndGet)).isTrue();
+        assertThat(providers.get(1).runIfLocked(LOCK_NAME, Duration.ofMinutes(1), runs::incrementAndGet)).isFalse();
+        assertThat(providers.get(0).runIfLocked(LOCK_NAME, Duration.ofMinutes(1), runs::incrementAndGet)).isFalse();
+
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void releasedLockIsAcquiredAgain() throws Throwable {
+        assertThat(providers.get(0).runIfLocked(LOCK_NAME, Duration.ZERO, () -> {})).isTrue();
+
+        assertThat(providers.get(1).runIfLocked(LOCK_NAME, Duration.ZERO, () -> {})).isTrue();
+    }
+
+    @Test
+    void annotatedScheduledMethodRunsUnderItsLock() {
+        userCleanupService.removeNotActivatedUsers();
+
+        assertThat(
+            jdbcTemplate.queryForObject(
+                "select count(*) from jhi_scheduler_lock where name = ? and locked_until > ?",
+                Long.class,
+                "user-cleanup",
+                Timestamp.from(Instant.now())
+            )
+        )
+            .isEqualTo(1);
+    }
+}
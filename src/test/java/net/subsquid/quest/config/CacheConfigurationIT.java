@@ -0,0 +1,124 @@
+package net.subsquid.quest.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import javax.cache.CacheManager;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.domain.Applicant;
+import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.enumeration.QuestStatus;
+import net.subsquid.quest.repository.ApplicantRepository;
+import net.subsquid.quest.repository.QuestRepository;
+import net.subsquid.quest.service.ApplicantService;
+import net.subsquid.quest.service.QuestService;
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for the second-level cache set up by {@link CacheConfiguration}.
+ */
+@IntegrationTest
+class CacheConfigurationIT {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private QuestService questService;
+
+    @Autowired
+    private QuestRepository questRepository;
+
+    @Autowired
+    private ApplicantService applicantService;
+
+    @Autowired
+    private ApplicantRepository applicantRepository;
+
+    private Quest quest;
+
+    private Applicant applicant;
+
+    @BeforeEach
+    public void setup() {
+        quest =
+            questRepository.saveAndFlush(
+                new Quest()
+                    .title("cached")
+                    .reward("reward")
+                    .expiresOn(LocalDate.now())
+                    .reviewStartDate(LocalDate.now())
+                    .maxApplicants(5)
+                    .status(QuestStatus.OPEN)
+            );
+    }
+
+    @AfterEach
+    public void cleanup() {
+        questService.delete(quest.getId());
+        if (applicant != null) {
+            applicantRepository.deleteById(applicant.getId());
+        }
+    }
+
+    @Test
+    void appliesPerRegionOverrides() {
+        assertThat(heapEntries(Quest.class.getName())).isEqualTo(1000);
+        assertThat(heapEntries(Applicant.class.getName())).isEqualTo(100);
+    }
+
+    @Test
+    void exportsHitsForCachedQuests() {
+        double hitsBefore = hits(Quest.class.getName());
+
+        questService.findOne(quest.getId());
+        questService.findOne(quest.getId());
+
+        assertThat(hits(Quest.class.getName())).isGreaterThan(hitsBefore);
+        assertThat(hits(Quest.class.getName() + ".applications")).isGreaterThan(0);
+    }
+
+    @Test
+    void evictsQuestApplicationsWhenAnApplicationIsAddedOrWithdrawn() {
+        assertThat(questService.findOne(quest.getId()).get().getApplicants()).isEmpty();
+
+        applicant = applicantService.save(new Applicant().discordHandle("cached#0001"));
+        assertThat(applicantService.findOne(applicant.getId()).get().getQuests()).isEmpty();
+        questService.apply(quest.getId(), applicant.getId());
+
+        assertThat(questService.findOne(quest.getId()).get().getApplicants())
+            .extracting(Applicant::getDiscordHandle)
+            .containsExactly("cached#0001");
+        assertThat(applicantService.findOne(applicant.getId()).get().getQuests()).extracting(Quest::getId).containsExactly(quest.getId());
+
+        questService.withdraw(quest.getId(), applicant.getId());
+
+        assertThat(questService.findOne(quest.getId()).get().getApplicants()).isEmpty();
+        assertThat(applicantService.findOne(applicant.getId()).get().getQuests()).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private long heapEntries(String cacheName) {
+        Eh107Configuration<Object, Object> configuration = cacheManager.getCache(cacheName).getConfiguration(Eh107Configuration.class);
+        SizedResourcePool heap = configuration
+            .unwrap(CacheRuntimeConfiguration.class)
+            .getResourcePools()
+            .getPoolForResource(ResourceType.Core.HEAP);
+        return heap.getSize();
+    }
+
+    private double hits(String cacheName) {
+        return meterRegistry.get("cache.gets").tag("cache", cacheName).tag("result", "hit").functionCounter().count();
+    }
+}
@@ -0,0 +1,111 @@
+package net.subsquid.quest.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import javax.persistence.EntityManager;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.enumeration.QuestStatus;
+import net.subsquid.quest.management.HibernateStatisticsMeterBinder;
+import net.subsquid.quest.management.SlowSqlStatementLog;
+import net.subsquid.quest.repository.QuestRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@code hibernate-statistics} profile, every statement being slow.
+ */
+@IntegrationTest
+@ActiveProfiles(Constants.SPRING_PROFILE_HIBERNATE_STATISTICS)
+@TestPropertySource(
+    properties = {
+        "application.hibernate-statistics.slow-query-threshold=0ms",
+        // the query meters are registered when the tests ask for it
+        "application.hibernate-statistics.query-meters-refresh-interval=PT1H",
+    }
+)
+@Transactional
+class HibernateStatisticsConfigurationIT {
+
+    @Autowired
+    private QuestRepository questRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private HibernateStatisticsMeterBinder hibernateStatisticsMeterBinder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void executedQueriesGetMeters() {
+        questRepository.findAllIds(PageRequest.of(0, 10));
+
+        hibernateStatisticsMeterBinder.bindQueries();
+
+        assertThat(meterRegistry.get(HibernateStatisticsMeterBinder.QUERY_EXECUTIONS_METER_NAME).functionTimers())
+            .extracting(FunctionTimer::count)
+            .anyMatch(count -> count >= 1);
+        assertThat(meterRegistry.get(HibernateStatisticsMeterBinder.QUERY_EXECUTIONS_MAX_METER_NAME).timeGauges()).isNotEmpty();
+    }
+
+    @Test
+    void entityLoadsAndCacheRequestsAreMeasured() {
+        Quest quest = new Quest()
+            .title("title")
+            .reward("reward")
+            .expiresOn(LocalDate.now())
+            .reviewStartDate(LocalDate.now())
+            .maxApplicants(1)
+            .status(QuestStatus.OPEN);
+        em.persist(quest);
+        em.flush();
+        em.clear();
+        double loads = entityLoads();
+
+        questRepository.findById(quest.getId());
+
+        assertThat(entityLoads()).isEqualTo(loads + 1);
+        assertThat(
+            meterRegistry
+                .get(HibernateStatisticsMeterBinder.SECOND_LEVEL_CACHE_REQUESTS_METER_NAME)
+                .tag(HibernateStatisticsMeterBinder.REGION_DIMENSION, Quest.class.getName())
+                .functionCounters()
+        )
+            .hasSize(2);
+        assertThat(
+            meterRegistry
+                .get(HibernateStatisticsMeterBinder.SECOND_LEVEL_CACHE_HIT_RATIO_METER_NAME)
+                .tag(HibernateStatisticsMeterBinder.REGION_DIMENSION, Quest.class.getName())
+                .gauge()
+        )
+            .isNotNull();
+        assertThat(meterRegistry.get(HibernateStatisticsMeterBinder.QUERY_CACHE_HIT_RATIO_METER_NAME).gauge()).isNotNull();
+    }
+
+    @Test
+    void slowStatementsAreCounted() {
+        double slowStatements = meterRegistry.get(SlowSqlStatementLog.SLOW_STATEMENTS_METER_NAME).counter().count();
+
+        questRepository.count();
+
+        assertThat(meterRegistry.get(SlowSqlStatementLog.SLOW_STATEMENTS_METER_NAME).counter().count()).isGreaterThan(slowStatements);
+    }
+
+    private double entityLoads() {
+        return meterRegistry
+            .get(HibernateStatisticsMeterBinder.ENTITY_LOADS_METER_NAME)
+            .tag(HibernateStatisticsMeterBinder.ENTITY_DIMENSION, Quest.class.getName())
+            .functionCounter()
+            .count();
+    }
+}
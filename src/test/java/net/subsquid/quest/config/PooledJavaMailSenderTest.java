@@ -0,0 +1,181 @@
+package net.subsquid.quest.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import net.subsquid.quest.service.SmtpServerStandIn;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Unit tests for the {@link PooledJavaMailSender} class, sending to a {@link SmtpServerStandIn} whose greeting is
+ * delayed as the handshake of a real SMTP server would be. The mail rates are only logged, as timing on a shared runner
+ * is not reliable enough to assert.
+ */
+class PooledJavaMailSenderTest {
+
+    private static final Duration GREETING_DELAY = Duration.ofMillis(20);
+
+    private static final int POOL_SIZE = 4;
+
+    private final Logger log = LoggerFactory.getLogger(PooledJavaMailSenderTest.class);
+
+    private SmtpServerStandIn smtpServer;
+
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        smtpServer = SmtpServerStandIn.start(GREETING_DELAY);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(POOL_SIZE);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        executor.shutdownNow();
+        smtpServer.close();
+    }
+
+    private PooledJavaMailSender pooledSender(Duration maxIdle, int maxMessages) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(POOL_SIZE, maxIdle, maxMessages, Duration.ofSeconds(5), meterRegistry);
+        configure(sender);
+        return sender;
+    }
+
+    private void configure(JavaMailSenderImpl sender) {
+        sender.setHost("localhost");
+        sender.setPort(smtpServer.getPort());
+    }
+
+    private static SimpleMailMessage message(int i) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("test@localhost");
+        message.setTo("john.doe" + i + "@example.com");
+        message.setSubject("testSubject" + i);
+        message.setText("testContent");
+        return message;
+    }
+
+    @Test
+    void testConnectionIsReused() {
+        PooledJavaMailSender sender = pooledSender(Duration.ofMinutes(1), 100);
+
+        IntStream.range(0, 10).forEach(i -> sender.send(message(i)));
+
+        assertThat(smtpServer.getMessages()).hasSize(10);
+        assertThat(smtpServer.getConnections()).isEqualTo(1);
+        assertThat(sender.getIdleConnections()).isEqualTo(1);
+        sender.destroy();
+        assertThat(sender.getIdleConnections()).isZero();
+    }
+
+    @Test
+    void testConnectionIsRecycledAfterMaxMessages() {
+        PooledJavaMailSender sender = pooledSender(Duration.ofMinutes(1), 5);
+
+        IntStream.range(0, 12).forEach(i -> sender.send(message(i)));
+
+        assertThat(smtpServer.getMessages()).hasSize(12);
+        assertThat(smtpServer.getConnections()).isEqualTo(3);
+        assertThat(closed("exhausted")).isEqualTo(2);
+        sender.destroy();
+    }
+
+    @Test
+    void testIdleConnectionIsRecycled() throws InterruptedException {
+        PooledJavaMailSender sender = pooledSender(Duration.ofMillis(50), 100);
+
+        sender.send(message(0));
+        Thread.sleep(100);
+        sender.send(message(1));
+
+        assertThat(smtpServer.getMessages()).hasSize(2);
+        assertThat(smtpServer.getConnections()).isEqualTo(2);
+        assertThat(closed("idle")).isEqualTo(1);
+        sender.destroy();
+    }
+
+    @Test
+    void testConnectionIsKeptAfterRejectedMail() {
+        PooledJavaMailSender sender = pooledSender(Duration.ofMinutes(1), 100);
+        smtpServer.rejectNextMails(1);
+
+        assertThatThrownBy(() -> sender.send(message(0))).isInstanceOf(MailSendException.class);
+        sender.send(message(1));
+
+        assertThat(smtpServer.getMessages()).hasSize(1);
+        assertThat(smtpServer.getConnections()).isEqualTo(1);
+        sender.destroy();
+    }
+
+    @Test
+    void testDroppedConnectionIsRecycledBeforeSending() throws IOException {
+        PooledJavaMailSender sender = pooledSender(Duration.ofMinutes(1), 100);
+        sender.send(message(0));
+        smtpServer.dropConnections();
+
+        sender.send(message(1));
+
+        assertThat(smtpServer.getMessages()).hasSize(2);
+        assertThat(smtpServer.getConnections()).isEqualTo(2);
+        assertThat(closed("broken")).isEqualTo(1);
+        sender.destroy();
+    }
+
+    @Test
+    void testPooledSenderOpensAtMostOneConnectionPerThread() {
+        int messages = 100;
+        JavaMailSenderImpl plainSender = new JavaMailSenderImpl();
+        configure(plainSender);
+        PooledJavaMailSender pooledSender = pooledSender(Duration.ofMinutes(1), 100);
+
+        double plainRate = messagesPerSecond(plainSender, messages);
+        int plainConnections = smtpServer.getConnections();
+        double pooledRate = messagesPerSecond(pooledSender, messages);
+        int pooledConnections = smtpServer.getConnections() - plainConnections;
+        log.info("Sent {} mails on {} threads: {} mails/s connecting per mail, {} mails/s pooled", messages, POOL_SIZE, plainRate, pooledRate);
+
+        assertThat(smtpServer.getMessages()).hasSize(2 * messages);
+        assertThat(plainConnections).isEqualTo(messages);
+        assertThat(pooledConnections).isLessThanOrEqualTo(POOL_SIZE);
+        pooledSender.destroy();
+    }
+
+    private double messagesPerSecond(JavaMailSenderImpl sender, int messages) {
+        long start = System.nanoTime();
+        CompletableFuture
+            .allOf(
+                IntStream
+                    .range(0, messages)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> sender.send(message(i)), executor))
+                    .toArray(CompletableFuture[]::new)
+            )
+            .join();
+        return messages * 1e9 / (System.nanoTime() - start);
+    }
+
+    private double closed(String reason) {
+        return meterRegistry
+            .get(PooledJavaMailSender.CLOSED_CONNECTIONS_METER_NAME)
+            .tag(PooledJavaMailSender.CLOSED_CONNECTIONS_METER_REASON_DIMENSION, reason)
+            .counter()
+            .count();
+    }
+}
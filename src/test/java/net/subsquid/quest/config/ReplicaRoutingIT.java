@@ -0,0 +1,179 @@
+package net.subsquid.quest.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.enumeration.QuestStatus;
+import net.subsquid.quest.service.QuestService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the read-only routing of {@link DatabaseConfiguration}, with two H2 databases: the usual one as
+ * primary, and a replica holding a copy of its schema. The replica is not fed by the primary, so each test can tell
+ * which database served a query from the rows it returns.
+ */
+@IntegrationTest
+@TestPropertySource(
+    properties = {
+        "application.datasource.replica.enabled=true",
+        "application.datasource.replica.url=jdbc:h2:mem:subsquidquestmanager-replica;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "application.datasource.replica.lag-query=select max(lag_seconds) from replica_lag",
+        "application.datasource.replica.max-lag=PT10S",
+        // the lag is only measured when the tests ask for it
+        "application.datasource.replica.lag-check-interval=PT1H",
+    }
+)
+class ReplicaRoutingIT {
+
+    private static final long REPLICA_QUEST_ID = 2_000_000_000L;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private QuestService questService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate replicaJdbcTemplate;
+
+    private TransactionTemplate replicaTransactionTemplate;
+
+    @BeforeEach
+    public void initReplica() throws IOException {
+        replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        replicaTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(replicaDataSource));
+
+        File schema = File.createTempFile("subsquidquestmanager-schema", ".sql");
+        schema.deleteOnExit();
+        new TransactionTemplate(new DataSourceTransactionManager(primaryDataSource)).executeWithoutResult(transaction ->
+            new JdbcTemplate(primaryDataSource).execute("script nodata to '" + schema.getAbsolutePath() + "'")
+        );
+        replicaTransactionTemplate.executeWithoutResult(transaction -> {
+            replicaJdbcTemplate.execute("drop all objects");
+            replicaJdbcTemplate.execute("runscript from '" + schema.getAbsolutePath() + "'");
+            replicaJdbcTemplate.execute("create table replica_lag (lag_seconds double)");
+            replicaJdbcTemplate.update("insert into replica_lag values (0)");
+            replicaJdbcTemplate.update(
+                "insert into quest (id, title, reward, expires_on, review_start_date, max_applicants, status, applicant_count, version) " +
+                "values (?, 'replica', 'reward', current_date, current_date, 1, ?, 0, 0)",
+                REPLICA_QUEST_ID,
+                QuestStatus.OPEN.name()
+            );
+        });
+        replicaLagMonitor.checkLag();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        entityManagerFactory.getCache().evict(Quest.class);
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        double replicaConnections = connections("replica");
+
+        assertThat(replicaLagMonitor.isReplicaUsable()).isTrue();
+        assertThat(questService.findAll(PageRequest.of(0, 10)).getContent()).extracting(Quest::getId).containsExactly(REPLICA_QUEST_ID);
+        assertThat(connections("replica")).isGreaterThan(replicaConnections);
+    }
+
+    @Test
+    void writeTransactionsUseThePrimary() {
+        Quest quest = questService.save(
+            new Quest()
+                .title("primary")
+                .reward("reward")
+                .expiresOn(LocalDate.now())
+                .reviewStartDate(LocalDate.now())
+                .maxApplicants(1)
+                .status(QuestStatus.OPEN)
+        );
+
+        try {
+            TransactionTemplate primaryTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(primaryDataSource));
+            Long primaryCount = primaryTransactionTemplate.execute(transaction ->
+                new JdbcTemplate(primaryDataSource).queryForObject("select count(*) from quest where id = ?", Long.class, quest.getId())
+            );
+            Long replicaCount = replicaTransactionTemplate.execute(transaction ->
+                replicaJdbcTemplate.queryForObject("select count(*) from quest where id = ?", Long.class, quest.getId())
+            );
+            assertThat(primaryCount).isEqualTo(1);
+            assertThat(replicaCount).isZero();
+        } finally {
+            questService.delete(quest.getId());
+        }
+    }
+
+    @Test
+    void laggingReplicaFallsBackToThePrimary() {
+        double fallbacks = meterRegistry.get(ReplicaRoutingDataSource.FALLBACKS_METER_NAME).counter().count();
+        replicaTransactionTemplate.executeWithoutResult(transaction ->
+            replicaJdbcTemplate.update("update replica_lag set lag_seconds = 60")
+        );
+
+        replicaLagMonitor.checkLag();
+
+        assertThat(replicaLagMonitor.isReplicaUsable()).isFalse();
+        assertThat(meterRegistry.get(ReplicaLagMonitor.LAG_METER_NAME).gauge().value()).isEqualTo(60);
+        assertThat(questService.findAll(PageRequest.of(0, 10)).getContent()).extracting(Quest::getId).doesNotContain(REPLICA_QUEST_ID);
+        assertThat(meterRegistry.get(ReplicaRoutingDataSource.FALLBACKS_METER_NAME).counter().count()).isGreaterThan(fallbacks);
+    }
+
+    @Test
+    void failingLagQueryFallsBackToThePrimary() {
+        replicaTransactionTemplate.executeWithoutResult(transaction -> replicaJdbcTemplate.execute("drop table replica_lag"));
+
+        replicaLagMonitor.checkLag();
+
+        assertThat(replicaLagMonitor.isReplicaUsable()).isFalse();
+        assertThat(meterRegistry.get(ReplicaLagMonitor.LAG_METER_NAME).gauge().value()).isNaN();
+        assertThat(questService.findAll(PageRequest.of(0, 10)).getContent()).extracting(Quest::getId).doesNotContain(REPLICA_QUEST_ID);
+    }
+
+    @Test
+    void eachPoolPublishesItsMetrics() {
+        questService.findAll(PageRequest.of(0, 10));
+
+        assertThat(meterRegistry.find("hikaricp.connections").gauges())
+            .map(gauge -> gauge.getId().getTag("pool"))
+            .contains("Replica")
+            .hasSizeGreaterThanOrEqualTo(2);
+    }
+
+    private double connections(String pool) {
+        return meterRegistry
+            .get(ReplicaRoutingDataSource.CONNECTIONS_METER_NAME)
+            .tag(ReplicaRoutingDataSource.CONNECTIONS_METER_POOL_DIMENSION, pool)
+            .counter()
+            .count();
+    }
+}
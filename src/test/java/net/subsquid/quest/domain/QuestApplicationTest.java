@@ -0,0 +1,23 @@
+package net.subsquid.quest.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import net.subsquid.quest.web.rest.TestUtil;
+import org.junit.jupiter.api.Test;
+
+class QuestApplicationTest {
+
+    @Test
+    void equalsVerifier() throws Exception {
+        TestUtil.equalsVerifier(QuestApplication.class);
+        QuestApplication questApplication1 = new QuestApplication(new Quest().id(1L), new Applicant().id(2L));
+        QuestApplication questApplication2 = new QuestApplication();
+        questApplication2.setId(new QuestApplicationId(1L, 2L));
+        assertThat(questApplication1).isEqualTo(questApplication2);
+        assertThat(questApplication1).hasSameHashCodeAs(questApplication2);
+        questApplication2.setId(new QuestApplicationId(1L, 3L));
+        assertThat(questApplication1).isNotEqualTo(questApplication2);
+        questApplication1.setId(null);
+        assertThat(questApplication1).isNotEqualTo(questApplication2);
+    }
+}
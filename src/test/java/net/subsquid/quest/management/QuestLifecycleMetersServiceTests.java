@@ -0,0 +1,48 @@
+package net.subsquid.quest.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QuestLifecycleMetersServiceTests {
+
+    private static final String TRANSITIONS_METER_EXPECTED_NAME = "quest.lifecycle.transitions";
+
+    private static final String DURATION_METER_EXPECTED_NAME = "quest.lifecycle.duration";
+
+    private MeterRegistry meterRegistry;
+
+    private QuestLifecycleMetersService questLifecycleMetersService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        questLifecycleMetersService = new QuestLifecycleMetersService(meterRegistry);
+    }
+
+    @Test
+    void testTransitionsCountersByStatusAreCreated() {
+        meterRegistry.get(TRANSITIONS_METER_EXPECTED_NAME).tag("status", "INREVIEW").counter();
+
+        meterRegistry.get(TRANSITIONS_METER_EXPECTED_NAME).tag("status", "CLOSED").counter();
+
+        assertThat(meterRegistry.find(TRANSITIONS_METER_EXPECTED_NAME).counters()).hasSize(2);
+    }
+
+    @Test
+    void testTrackMethodsShouldBeBoundToCorrectMeters() {
+        questLifecycleMetersService.trackQuestsClosed(42);
+        questLifecycleMetersService.trackDuration(Duration.ofMillis(250));
+
+        assertThat(meterRegistry.get(TRANSITIONS_METER_EXPECTED_NAME).tag("status", "CLOSED").counter().count()).isEqualTo(42);
+        assertThat(meterRegistry.get(TRANSITIONS_METER_EXPECTED_NAME).tag("status", "INREVIEW").counter().count()).isZero();
+        assertThat(meterRegistry.get(DURATION_METER_EXPECTED_NAME).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(DURATION_METER_EXPECTED_NAME).timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(250);
+    }
+}
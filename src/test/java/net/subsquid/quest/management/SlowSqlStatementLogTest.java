@@ -0,0 +1,61 @@
+package net.subsquid.quest.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SlowSqlStatementLogTest {
+
+    private MeterRegistry meterRegistry;
+
+    private SqlStatementCountingDataSource dataSource;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:slow-sql-statement-log");
+        dataSource = new SqlStatementCountingDataSource(h2DataSource);
+    }
+
+    @Test
+    void statementsFromTheThresholdAreCounted() throws SQLException {
+        dataSource.setSlowStatementLog(new SlowSqlStatementLog(Duration.ZERO, meterRegistry));
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("select 1");
+            }
+            try (PreparedStatement statement = connection.prepareStatement("select ?")) {
+                statement.setString(1, "secret");
+                statement.executeQuery().close();
+            }
+        }
+
+        assertThat(slowStatements()).isEqualTo(2);
+    }
+
+    @Test
+    void statementsUnderTheThresholdAreNotCounted() throws SQLException {
+        dataSource.setSlowStatementLog(new SlowSqlStatementLog(Duration.ofHours(1), meterRegistry));
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("select 1");
+        }
+
+        assertThat(slowStatements()).isZero();
+    }
+
+    private double slowStatements() {
+        return meterRegistry.get(SlowSqlStatementLog.SLOW_STATEMENTS_METER_NAME).counter().count();
+    }
+}
@@ -0,0 +1,31 @@
+package net.subsquid.quest.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SqlRedactorTest {
+
+    @Test
+    void stringLiteralsAreRedacted() {
+        assertThat(SqlRedactor.redact("select * from jhi_user where login = 'admin' and email = 'o''brien@localhost'"))
+            .isEqualTo("select * from jhi_user where login = ? and email = ?");
+    }
+
+    @Test
+    void numericLiteralsAreRedacted() {
+        assertThat(SqlRedactor.redact("select * from quest where id = 42 and reward > -1.5 limit 20"))
+            .isEqualTo("select * from quest where id = ? and reward > ? limit ?");
+    }
+
+    @Test
+    void identifiersAndPlaceholdersAreKept() {
+        String sql = "select quest0_.id from quest quest0_ where quest0_.status = ?1 and quest0_.version = :param0 or id = $2 or id = ?";
+        assertThat(SqlRedactor.redact(sql)).isEqualTo(sql);
+    }
+
+    @Test
+    void nullIsKept() {
+        assertThat(SqlRedactor.redact(null)).isNull();
+    }
+}
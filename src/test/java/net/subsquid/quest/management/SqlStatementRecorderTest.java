@@ -0,0 +1,98 @@
+package net.subsquid.quest.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import net.subsquid.quest.management.SqlStatementRecorder.Recording;
+import org.h2.jdbc.JdbcConnection;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SqlStatementRecorderTest {
+
+    private DataSource dataSource;
+
+    private final SqlStatementInspector inspector = new SqlStatementInspector();
+
+    @BeforeEach
+    public void setup() {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:sql-statement-recorder");
+        dataSource = new SqlStatementCountingDataSource(h2DataSource);
+    }
+
+    @Test
+    void executionsAreCountedInEveryOpenRecording() throws SQLException {
+        try (Recording outer = SqlStatementRecorder.start(); Connection connection = dataSource.getConnection()) {
+            execute(connection, "select 1");
+            try (Recording inner = SqlStatementRecorder.start()) {
+                execute(connection, "select 2");
+                execute(connection, "select 3");
+                assertThat(inner.getExecutions()).isEqualTo(2);
+            }
+            execute(connection, "select 4");
+            assertThat(outer.getExecutions()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void batchCountsOnce() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Recording recording = SqlStatementRecorder.start()) {
+            execute(connection, "create table if not exists batched (value int)");
+            recording.reset();
+            try (PreparedStatement statement = connection.prepareStatement("insert into batched values (?)")) {
+                statement.setInt(1, 1);
+                statement.addBatch();
+                statement.setInt(1, 2);
+                statement.addBatch();
+                statement.executeBatch();
+            }
+            assertThat(recording.getExecutions()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void repeatedStatementsAreReported() {
+        try (Recording recording = SqlStatementRecorder.start()) {
+            inspector.inspect("select * from quest");
+            inspector.inspect("select * from quest_application where quest_id=?");
+            inspector.inspect("select * from quest_application where quest_id=?");
+
+            assertThat(recording.getStatements()).hasSize(2);
+            assertThat(recording.getRepeatedStatements()).containsOnly(entry("select * from quest_application where quest_id=?", 2));
+
+            recording.reset();
+            assertThat(recording.getStatements()).isEmpty();
+        }
+    }
+
+    @Test
+    void nothingIsRecordedOutsideOfARecording() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            execute(connection, "select 1");
+        }
+        try (Recording recording = SqlStatementRecorder.start()) {
+            assertThat(recording.getExecutions()).isZero();
+        }
+    }
+
+    @Test
+    void unwrapReachesTheTargetConnection() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(connection.isWrapperFor(JdbcConnection.class)).isTrue();
+            assertThat(connection.unwrap(JdbcConnection.class)).isInstanceOf(JdbcConnection.class);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -35,8 +35,15 @@ class DomainUserDetailsServiceIT {
     @Autowired
     private UserDetailsService domainUserDetailsService;
 
+    @Autowired
+    private DomainUserDetailsService cachingUserDetailsService;
+
     @BeforeEach
     public void init() {
+        cachingUserDetailsService.evictUserDetails(USER_ONE_LOGIN, USER_ONE_EMAIL);
+        cachingUserDetailsService.evictUserDetails(USER_TWO_LOGIN, USER_TWO_EMAIL);
+        cachingUserDetailsService.evictUserDetails(USER_THREE_LOGIN, USER_THREE_EMAIL);
+
         User userOne = new User();
         userOne.setLogin(USER_ONE_LOGIN);
         userOne.setPassword(RandomStringUtils.random(60));
@@ -103,6 +110,22 @@ class DomainUserDetailsServiceIT {
         assertThat(userDetails.getUsername()).isEqualTo(USER_ONE_LOGIN);
     }
 
+    @Test
+    void assertThatLoginAndEmailShareTheCachedUser() {
+        domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN);
+        User userOne = userRepository.findOneByLogin(USER_ONE_LOGIN).orElseThrow();
+        String cachedPassword = userOne.getPassword();
+        userOne.setPassword(RandomStringUtils.random(60));
+        userRepository.saveAndFlush(userOne);
+
+        assertThat(domainUserDetailsService.loadUserByUsername(USER_ONE_EMAIL).getPassword()).isEqualTo(cachedPassword);
+
+        cachingUserDetailsService.evictUserDetails(USER_ONE_LOGIN, USER_ONE_EMAIL);
+
+        assertThat(domainUserDetailsService.loadUserByUsername(USER_ONE_EMAIL).getPassword()).isEqualTo(userOne.getPassword());
+        assertThat(domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN).getPassword()).isEqualTo(userOne.getPassword());
+    }
+
     @Test
     void assertThatUserNotActivatedExceptionIsThrownForNotActivatedUsers() {
         assertThatExceptionOfType(UserNotActivatedException.class)
@@ -0,0 +1,78 @@
+package net.subsquid.quest.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link RateLimiter}.
+ */
+class RateLimiterTest {
+
+    private static final RateLimiter.Limit THREE_PER_HOUR = new RateLimiter.Limit(3, Duration.ofHours(1));
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    public void setup() {
+        rateLimiter = new RateLimiter();
+    }
+
+    @Test
+    void capacityIsAllowedAtOnce() {
+        assertThat(rateLimiter.tryAcquire("client", THREE_PER_HOUR)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", THREE_PER_HOUR)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", THREE_PER_HOUR)).isZero();
+    }
+
+    @Test
+    void requestOverCapacityWaitsForOneToken() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("client", THREE_PER_HOUR);
+        }
+
+        Duration wait = rateLimiter.tryAcquire("client", THREE_PER_HOUR);
+
+        assertThat(wait).isPositive().isLessThanOrEqualTo(Duration.ofMinutes(20));
+    }
+
+    @Test
+    void bucketsAreKeyedSeparately() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("client", THREE_PER_HOUR);
+        }
+
+        assertThat(rateLimiter.tryAcquire("other-client", THREE_PER_HOUR)).isZero();
+    }
+
+    @Test
+    void tokensAreRefilledOverThePeriod() throws InterruptedException {
+        RateLimiter.Limit onePerTenMillis = new RateLimiter.Limit(1, Duration.ofMillis(10));
+        assertThat(rateLimiter.tryAcquire("client", onePerTenMillis)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", onePerTenMillis)).isPositive();
+
+        Thread.sleep(20);
+
+        assertThat(rateLimiter.tryAcquire("client", onePerTenMillis)).isZero();
+    }
+
+    @Test
+    void onlyFullBucketsAreEvicted() throws InterruptedException {
+        rateLimiter.tryAcquire("busy-client", THREE_PER_HOUR);
+        rateLimiter.tryAcquire("idle-client", new RateLimiter.Limit(1, Duration.ofMillis(1)));
+
+        Thread.sleep(5);
+        rateLimiter.evictIdleBuckets();
+
+        assertThat(rateLimiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void limitNeedsPositiveCapacityAndPeriod() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new RateLimiter.Limit(0, Duration.ofMinutes(1)));
+        assertThatIllegalArgumentException().isThrownBy(() -> new RateLimiter.Limit(1, Duration.ZERO));
+    }
+}
@@ -0,0 +1,36 @@
+package net.subsquid.quest.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    void testMightContainEveryPutValue() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+
+        IntStream.range(0, 1000).forEach(i -> filter.put("user-" + i));
+
+        assertThat(IntStream.range(0, 1000).allMatch(i -> filter.mightContain("user-" + i))).isTrue();
+    }
+
+    @Test
+    void testFalsePositiveRateStaysNearTheExpectedProbability() {
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        IntStream.range(0, 1000).forEach(i -> filter.put("user-" + i));
+
+        long falsePositives = IntStream.range(0, 100000).filter(i -> filter.mightContain("other-" + i)).count();
+
+        assertThat(falsePositives).isLessThan(3000);
+    }
+
+    @Test
+    void testEmptyFilterContainsNothing() {
+        BloomFilter filter = BloomFilter.create(0, 0.01);
+
+        assertThat(filter.mightContain("admin")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+    }
+}
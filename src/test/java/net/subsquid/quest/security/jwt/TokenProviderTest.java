@@ -9,11 +9,19 @@ import io.jsonwebtoken.security.Keys;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Instant;
 import java.util.*;
+import javax.cache.Cache;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import net.subsquid.quest.domain.TokenRevocation;
 import net.subsquid.quest.management.SecurityMetersService;
+import net.subsquid.quest.repository.TokenRevocationRepository;
 import net.subsquid.quest.security.AuthoritiesConstants;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -26,17 +34,20 @@ class TokenProviderTest {
     private static final long ONE_MINUTE = 60000;
 
     private Key key;
+    private JHipsterProperties jHipsterProperties;
+    private TokenRevocationStore tokenRevocationStore;
     private TokenProvider tokenProvider;
 
     @BeforeEach
     public void setup() {
-        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties = new JHipsterProperties();
         String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
         jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        tokenRevocationStore = Mockito.mock(TokenRevocationStore.class);
+        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService, verifiedTokenCache(), tokenRevocationStore);
         key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
 
         ReflectionTestUtils.setField(tokenProvider, "key", key);
@@ -96,7 +107,12 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(
+            jHipsterProperties,
+            securityMetersService,
+            verifiedTokenCache(),
+            Mockito.mock(TokenRevocationStore.class)
+        );
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
@@ -110,12 +126,134 @@ class TokenProviderTest {
 
         SecurityMetersService securityMetersService = new SecurityMetersService(new SimpleMeterRegistry());
 
-        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        TokenProvider tokenProvider = new TokenProvider(
+            jHipsterProperties,
+            securityMetersService,
+            verifiedTokenCache(),
+            Mockito.mock(TokenRevocationStore.class)
+        );
 
         Key key = (Key) ReflectionTestUtils.getField(tokenProvider, "key");
         assertThat(key).isNotNull().isEqualTo(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
     }
 
+    @Test
+    void testResolveAuthenticationReturnsTheCachedAuthentication() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Optional<Authentication> authentication = tokenProvider.resolveAuthentication(token);
+
+        assertThat(authentication).isPresent();
+        assertThat(authentication.get().getName()).isEqualTo("anonymous");
+        assertThat(authentication.get().getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ANONYMOUS);
+        assertThat(tokenProvider.resolveAuthentication(token)).containsSame(authentication.get());
+    }
+
+    @Test
+    void testResolveAuthenticationRejectsInvalidToken() {
+        String token = createTokenWithDifferentSignature();
+
+        assertThat(tokenProvider.resolveAuthentication(token)).isEmpty();
+        assertThat(tokenProvider.resolveAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    void testResolveAuthenticationRejectsExpiredToken() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.resolveAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    void testResolveAuthenticationRejectsRevokedToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenProvider.resolveAuthentication(token)).isPresent();
+
+        Mockito.when(tokenRevocationStore.isRevoked(Mockito.eq("anonymous"), Mockito.any())).thenReturn(true);
+
+        assertThat(tokenProvider.resolveAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    void testTokenIssuedInTheSecondOfARevocationIsOnlyRevokedIfIssuedBeforeIt() throws InterruptedException {
+        TokenRevocationRepository tokenRevocationRepository = Mockito.mock(TokenRevocationRepository.class);
+        TokenRevocationStore store = new TokenRevocationStore(tokenRevocationRepository, jHipsterProperties, 0.01);
+        TokenProvider tokenProvider = tokenProviderWith(store);
+        // Far enough from the end of a second for the tokens and the revocation to share it
+        while (System.currentTimeMillis() % 1000 > 800) {
+            Thread.sleep(10);
+        }
+        String tokenBefore = tokenProvider.createToken(createAuthentication(), false);
+        Thread.sleep(2);
+        store.revokeTokens("anonymous");
+        ArgumentCaptor<TokenRevocation> revocation = ArgumentCaptor.forClass(TokenRevocation.class);
+        Mockito.verify(tokenRevocationRepository).save(revocation.capture());
+        Instant revokedAt = revocation.getValue().getRevokedAt();
+        Mockito.when(tokenRevocationRepository.findRevokedAtByLogin("anonymous")).thenReturn(Optional.of(revokedAt));
+        Thread.sleep(2);
+        // A login right after a password change
+        String tokenAfter = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(tokenAfter).getBody().getIssuedAt().toInstant())
+            .isBefore(revokedAt);
+        assertThat(tokenProvider.resolveAuthentication(tokenBefore)).isEmpty();
+        assertThat(tokenProvider.resolveAuthentication(tokenAfter)).isPresent();
+    }
+
+    @Test
+    void testRevocationIsLookedUpOncePerLoginUntilTheNextRebuild() throws InterruptedException {
+        TokenRevocationRepository tokenRevocationRepository = Mockito.mock(TokenRevocationRepository.class);
+        Mockito
+            .when(tokenRevocationRepository.findRevokedAtByLogin("anonymous"))
+            .thenReturn(Optional.of(Instant.now().minusSeconds(ONE_MINUTE / 1000)));
+        Mockito.when(tokenRevocationRepository.findAllLogins()).thenReturn(List.of("anonymous"));
+        TokenRevocationStore store = new TokenRevocationStore(tokenRevocationRepository, jHipsterProperties, 0.01);
+        TokenProvider tokenProvider = tokenProviderWith(store);
+        // A user logging in again after a password change
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        String otherToken = tokenProvider.createToken(createAuthentication(), true);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(tokenProvider.resolveAuthentication(token)).isPresent();
+            assertThat(tokenProvider.resolveAuthentication(otherToken)).isPresent();
+        }
+        Mockito.verify(tokenRevocationRepository, Mockito.times(1)).findRevokedAtByLogin("anonymous");
+
+        store.rebuild();
+        assertThat(tokenProvider.resolveAuthentication(token)).isPresent();
+        Mockito.verify(tokenRevocationRepository, Mockito.times(2)).findRevokedAtByLogin("anonymous");
+
+        Thread.sleep(2);
+        store.revokeTokens("anonymous");
+        assertThat(tokenProvider.resolveAuthentication(token)).isEmpty();
+        Mockito.verify(tokenRevocationRepository, Mockito.times(2)).findRevokedAtByLogin("anonymous");
+    }
+
+    private TokenProvider tokenProviderWith(TokenRevocationStore store) {
+        TokenProvider tokenProvider = new TokenProvider(
+            jHipsterProperties,
+            new SecurityMetersService(new SimpleMeterRegistry()),
+            verifiedTokenCache(),
+            store
+        );
+        ReflectionTestUtils.setField(tokenProvider, "key", key);
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", ONE_MINUTE);
+        return tokenProvider;
+    }
+
+    static Cache<String, TokenProvider.VerifiedToken> verifiedTokenCache() {
+        MutableConfiguration<String, TokenProvider.VerifiedToken> configuration = new MutableConfiguration<
+            String,
+            TokenProvider.VerifiedToken
+        >()
+            .setTypes(String.class, TokenProvider.VerifiedToken.class)
+            .setStoreByValue(false);
+        return Caching.getCachingProvider().getCacheManager().createCache(UUID.randomUUID().toString(), configuration);
+    }
+
     private Authentication createAuthentication() {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
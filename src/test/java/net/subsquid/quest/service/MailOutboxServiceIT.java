@@ -0,0 +1,265 @@
+package net.subsquid.quest.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+import javax.mail.Multipart;
+import javax.mail.internet.MimeMessage;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.domain.OutboxMail;
+import net.subsquid.quest.domain.enumeration.MailStatus;
+import net.subsquid.quest.management.MailOutboxMetersService;
+import net.subsquid.quest.repository.OutboxMailRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.MessageSource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Integration tests for {@link MailOutboxService}, delivering to a {@link SmtpServerStandIn}.
+ * <p>
+ * Not transactional: the mails are committed to the outbox before they are delivered, as they would be in production.
+ */
+@IntegrationTest
+class MailOutboxServiceIT {
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(30);
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private OutboxMailRepository outboxMailRepository;
+
+    @Autowired
+    private JHipsterProperties jHipsterProperties;
+
+    @Autowired
+    private MailOutboxMetersService mailOutboxMetersService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MessageSource messageSource;
+
+    @Autowired
+    private SpringTemplateEngine templateEngine;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("mailDeliveryExecutor")
+    private Executor mailDeliveryExecutor;
+
+    private SmtpServerStandIn smtpServer;
+
+    private MailOutboxService mailOutboxService;
+
+    private Instant now;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        smtpServer = SmtpServerStandIn.start();
+        JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
+        javaMailSender.setHost("localhost");
+        javaMailSender.setPort(smtpServer.getPort());
+        mailOutboxService =
+            new MailOutboxService(
+                outboxMailRepository,
+                javaMailSender,
+                jHipsterProperties,
+                mailOutboxMetersService,
+                transactionManager,
+                mailDeliveryExecutor,
+                2,
+                MAX_ATTEMPTS,
+                INITIAL_BACKOFF,
+                MAX_BACKOFF,
+                Duration.ofDays(7)
+            );
+        now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        smtpServer.close();
+        outboxMailRepository.deleteAll();
+    }
+
+    private OutboxMail enqueue(String subject, boolean isMultipart, boolean isHtml) {
+        return new TransactionTemplate(transactionManager).execute(transaction ->
+            outboxMailRepository.save(new OutboxMail("john.doe@example.com", subject, "testContent", isMultipart, isHtml))
+        );
+    }
+
+    @Test
+    void testDeliverPendingMailsInBatches() {
+        double sentBefore = deliveries("sent");
+        IntStream.range(0, 5).forEach(i -> enqueue("testSubject" + i, false, false));
+
+        assertThat(mailOutboxService.deliverPendingMails(now)).isEqualTo(5);
+
+        assertThat(smtpServer.getMessages()).hasSize(5);
+        assertThat(outboxMailRepository.findAll())
+            .allSatisfy(mail -> {
+                assertThat(mail.getStatus()).isEqualTo(MailStatus.SENT);
+                assertThat(mail.getAttempts()).isEqualTo(1);
+                assertThat(mail.getSentAt()).isNotNull();
+            });
+        assertThat(deliveries("sent") - sentBefore).isEqualTo(5);
+        assertThat(mailOutboxService.deliverPendingMails(now)).isZero();
+        assertThat(smtpServer.getMessages()).hasSize(5);
+    }
+
+    @Test
+    void testSendEmail() throws Exception {
+        enqueue("testSubject", false, false);
+
+        mailOutboxService.deliverPendingMails(now);
+
+        MimeMessage message = smtpServer.getMessages().get(0);
+        assertThat(message.getSubject()).isEqualTo("testSubject");
+        assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
+        assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
+        assertThat(message.getContent()).isInstanceOf(String.class);
+        assertThat(message.getContent().toString()).isEqualToNormalizingNewlines("testContent\n");
+        assertThat(message.getContentType()).isEqualTo("text/plain; charset=UTF-8");
+    }
+
+    @Test
+    void testSendHtmlEmail() throws Exception {
+        enqueue("testSubject", false, true);
+
+        mailOutboxService.deliverPendingMails(now);
+
+        MimeMessage message = smtpServer.getMessages().get(0);
+        assertThat(message.getSubject()).isEqualTo("testSubject");
+        assertThat(message.getContent()).isInstanceOf(String.class);
+        assertThat(message.getContentType()).isEqualTo("text/html;charset=UTF-8");
+    }
+
+    @Test
+    void testSendMultipartEmail() throws Exception {
+        enqueue("testSubject", true, false);
+
+        mailOutboxService.deliverPendingMails(now);
+
+        MimeMessage message = smtpServer.getMessages().get(0);
+        assertThat(message.getSubject()).isEqualTo("testSubject");
+        assertThat(message.getContent()).isInstanceOf(Multipart.class);
+        Multipart related = (Multipart) ((Multipart) message.getContent()).getBodyPart(0).getContent();
+        assertThat(related.getBodyPart(0).getContent().toString()).isEqualToNormalizingNewlines("testContent\n");
+        assertThat(related.getBodyPart(0).getContentType()).isEqualTo("text/plain; charset=UTF-8");
+    }
+
+    @Test
+    void testFailedMailIsRetriedWithBackoff() {
+        double failedBefore = deliveries("failed");
+        smtpServer.rejectNextMails(1);
+        OutboxMail mail = enqueue("testSubject", false, false);
+
+        assertThat(mailOutboxService.deliverPendingMails(now)).isZero();
+
+        OutboxMail failed = outboxMailRepository.findById(mail.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(failed.getNextAttemptAt()).isEqualTo(now.plus(INITIAL_BACKOFF));
+        assertThat(failed.getLastError()).isNotBlank();
+        assertThat(deliveries("failed") - failedBefore).isEqualTo(1);
+
+        assertThat(mailOutboxService.deliverPendingMails(now.plus(INITIAL_BACKOFF).minusMillis(1))).isZero();
+        assertThat(mailOutboxService.deliverPendingMails(now.plus(INITIAL_BACKOFF))).isEqualTo(1);
+
+        OutboxMail sent = outboxMailRepository.findById(mail.getId()).orElseThrow();
+        assertThat(sent.getStatus()).isEqualTo(MailStatus.SENT);
+        assertThat(sent.getAttempts()).isEqualTo(2);
+        assertThat(sent.getLastError()).isNull();
+        assertThat(smtpServer.getMessages()).hasSize(1);
+    }
+
+    @Test
+    void testMailIsDeadAfterMaxAttempts() {
+        double deadBefore = deliveries("dead");
+        smtpServer.rejectNextMails(Integer.MAX_VALUE);
+        OutboxMail mail = enqueue("testSubject", false, false);
+
+        mailOutboxService.deliverPendingMails(now);
+        assertThat(outboxMailRepository.findById(mail.getId()).orElseThrow().getNextAttemptAt()).isEqualTo(now.plus(INITIAL_BACKOFF));
+        mailOutboxService.deliverPendingMails(now.plus(INITIAL_BACKOFF));
+        // Doubled, then capped by the max backoff
+        assertThat(outboxMailRepository.findById(mail.getId()).orElseThrow().getNextAttemptAt())
+            .isEqualTo(now.plus(INITIAL_BACKOFF).plus(MAX_BACKOFF));
+        mailOutboxService.deliverPendingMails(now.plus(INITIAL_BACKOFF).plus(MAX_BACKOFF));
+
+        OutboxMail dead = outboxMailRepository.findById(mail.getId()).orElseThrow();
+        assertThat(dead.getStatus()).isEqualTo(MailStatus.DEAD);
+        assertThat(dead.getAttempts()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(deliveries("dead") - deadBefore).isEqualTo(1);
+
+        smtpServer.rejectNextMails(0);
+        assertThat(mailOutboxService.deliverPendingMails(now.plus(1, ChronoUnit.DAYS))).isZero();
+        assertThat(smtpServer.getMessages()).isEmpty();
+    }
+
+    @Test
+    void testRemoveSentMails() {
+        OutboxMail old = enqueue("old", false, false);
+        OutboxMail recent = enqueue("recent", false, false);
+        mailOutboxService.deliverPendingMails(now);
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction ->
+            outboxMailRepository.markSent(old.getId(), now.minus(8, ChronoUnit.DAYS))
+        );
+
+        mailOutboxService.removeSentMails();
+
+        assertThat(outboxMailRepository.findById(old.getId())).isEmpty();
+        assertThat(outboxMailRepository.findById(recent.getId())).isPresent();
+    }
+
+    @Test
+    void testMailIsOnlyWrittenIfTheTransactionCommits() {
+        MailService mailService = new MailService(
+            jHipsterProperties,
+            outboxMailRepository,
+            mailOutboxMetersService,
+            messageSource,
+            templateEngine,
+            true
+        );
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction -> {
+            mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+            transaction.setRollbackOnly();
+        });
+        assertThat(outboxMailRepository.count()).isZero();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction ->
+            mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false)
+        );
+        assertThat(outboxMailRepository.count()).isEqualTo(1);
+    }
+
+    private double deliveries(String result) {
+        return meterRegistry
+            .get(MailOutboxMetersService.DELIVERIES_METER_NAME)
+            .tag(MailOutboxMetersService.DELIVERIES_METER_RESULT_DIMENSION, result)
+            .counter()
+            .count();
+    }
+}
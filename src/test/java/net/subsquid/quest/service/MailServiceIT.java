@@ -4,38 +4,42 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
-import java.io.ByteArrayOutputStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import javax.mail.Multipart;
-import javax.mail.internet.MimeBodyPart;
-import javax.mail.internet.MimeMessage;
-import javax.mail.internet.MimeMultipart;
+import java.util.stream.IntStream;
 import net.subsquid.quest.IntegrationTest;
 import net.subsquid.quest.config.Constants;
+import net.subsquid.quest.domain.OutboxMail;
 import net.subsquid.quest.domain.User;
+import net.subsquid.quest.domain.enumeration.MailStatus;
+import net.subsquid.quest.management.MailOutboxMetersService;
+import net.subsquid.quest.repository.OutboxMailRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.mockito.Spy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
-import org.springframework.mail.MailSendException;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.thymeleaf.context.Context;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 import tech.jhipster.config.JHipsterProperties;
 
 /**
- * Integration tests for {@link MailService}.
+ * Integration tests for {@link MailService}, writing the mails to a mocked outbox.
  */
 @IntegrationTest
 class MailServiceIT {
@@ -46,6 +50,8 @@ class MailServiceIT {
     private static final Pattern PATTERN_LOCALE_3 = Pattern.compile("([a-z]{2})-([a-zA-Z]{4})-([a-z]{2})");
     private static final Pattern PATTERN_LOCALE_2 = Pattern.compile("([a-z]{2})-([a-z]{2})");
 
+    private final Logger log = LoggerFactory.getLogger(MailServiceIT.class);
+
     @Autowired
     private JHipsterProperties jHipsterProperties;
 
@@ -55,152 +61,222 @@ class MailServiceIT {
     @Autowired
     private SpringTemplateEngine templateEngine;
 
-    @Spy
-    private JavaMailSenderImpl javaMailSender;
+    @Mock
+    private OutboxMailRepository outboxMailRepository;
 
     @Captor
-    private ArgumentCaptor<MimeMessage> messageCaptor;
+    private ArgumentCaptor<OutboxMail> mailCaptor;
 
     private MailService mailService;
 
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        doNothing().when(javaMailSender).send(any(MimeMessage.class));
-        mailService = new MailService(jHipsterProperties, javaMailSender, messageSource, templateEngine);
+        mailService =
+            new MailService(
+                jHipsterProperties,
+                outboxMailRepository,
+                new MailOutboxMetersService(new SimpleMeterRegistry()),
+                messageSource,
+                templateEngine,
+                true
+            );
     }
 
     @Test
-    void testSendEmail() throws Exception {
+    void testSendEmail() {
         mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
-        assertThat(message.getSubject()).isEqualTo("testSubject");
-        assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
-        assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
-        assertThat(message.getContent()).isInstanceOf(String.class);
-        assertThat(message.getContent()).hasToString("testContent");
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/plain; charset=UTF-8");
+        verify(outboxMailRepository).save(mailCaptor.capture());
+        OutboxMail mail = mailCaptor.getValue();
+        assertThat(mail.getSubject()).isEqualTo("testSubject");
+        assertThat(mail.getRecipient()).isEqualTo("john.doe@example.com");
+        assertThat(mail.getContent()).isEqualTo("testContent");
+        assertThat(mail.isMultipart()).isFalse();
+        assertThat(mail.isHtml()).isFalse();
+        assertThat(mail.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(mail.getAttempts()).isZero();
+        assertThat(mail.getNextAttemptAt()).isEqualTo(mail.getCreatedAt());
     }
 
     @Test
-    void testSendHtmlEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, true);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
-        assertThat(message.getSubject()).isEqualTo("testSubject");
-        assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
-        assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
-        assertThat(message.getContent()).isInstanceOf(String.class);
-        assertThat(message.getContent()).hasToString("testContent");
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+    void testSendMultipartHtmlEmail() {
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, true);
+        verify(outboxMailRepository).save(mailCaptor.capture());
+        OutboxMail mail = mailCaptor.getValue();
+        assertThat(mail.isMultipart()).isTrue();
+        assertThat(mail.isHtml()).isTrue();
     }
 
     @Test
-    void testSendMultipartEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, false);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
-        MimeMultipart mp = (MimeMultipart) message.getContent();
-        MimeBodyPart part = (MimeBodyPart) ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
-        ByteArrayOutputStream aos = new ByteArrayOutputStream();
-        part.writeTo(aos);
-        assertThat(message.getSubject()).isEqualTo("testSubject");
-        assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
-        assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
-        assertThat(message.getContent()).isInstanceOf(Multipart.class);
-        assertThat(aos).hasToString("\r\ntestContent");
-        assertThat(part.getDataHandler().getContentType()).isEqualTo("text/plain; charset=UTF-8");
+    void testSendEmailFromTemplate() {
+        User user = new User();
+        user.setLogin("john");
+        user.setEmail("john.doe@example.com");
+        user.setLangKey("en");
+        mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
+        verify(outboxMailRepository).save(mailCaptor.capture());
+        OutboxMail mail = mailCaptor.getValue();
+        assertThat(mail.getSubject()).isEqualTo("test title");
+        assertThat(mail.getRecipient()).isEqualTo(user.getEmail());
+        assertThat(mail.getContent()).isEqualToNormalizingNewlines("<html>test title, http://127.0.0.1:8080, john</html>\n");
+        assertThat(mail.isHtml()).isTrue();
     }
 
     @Test
-    void testSendMultipartHtmlEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, true);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
-        MimeMultipart mp = (MimeMultipart) message.getContent();
-        MimeBodyPart part = (MimeBodyPart) ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
-        ByteArrayOutputStream aos = new ByteArrayOutputStream();
-        part.writeTo(aos);
-        assertThat(message.getSubject()).isEqualTo("testSubject");
-        assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
-        assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
-        assertThat(message.getContent()).isInstanceOf(Multipart.class);
-        assertThat(aos).hasToString("\r\ntestContent");
-        assertThat(part.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+    void testSendEmailFromTemplateWithoutEmail() {
+        User user = new User();
+        user.setLogin("john");
+        user.setLangKey("en");
+        mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
+        verify(outboxMailRepository, never()).save(any());
     }
 
     @Test
-    void testSendEmailFromTemplate() throws Exception {
+    void testSendEmailFromTemplateWithoutLangKey() {
         User user = new User();
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
-        user.setLangKey("en");
         mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
-        assertThat(message.getSubject()).isEqualTo("test title");
-        assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
-        assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
-        assertThat(message.getContent().toString()).isEqualToNormalizingNewlines("<html>test title, http://127.0.0.1:8080, john</html>\n");
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+        verify(outboxMailRepository).save(mailCaptor.capture());
+        OutboxMail mail = mailCaptor.getValue();
+        assertThat(mail.getSubject()).isEqualTo("test title");
+        assertThat(mail.getContent()).isEqualToNormalizingNewlines("<html>test title, http://127.0.0.1:8080, john</html>\n");
+    }
+
+    @Test
+    void testSendEmailFromTemplateInUnsupportedLanguage() {
+        User user = new User();
+        user.setLogin("john");
+        user.setEmail("john.doe@example.com");
+        user.setLangKey("xx-unsupported");
+        mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
+        verify(outboxMailRepository).save(mailCaptor.capture());
+        OutboxMail mail = mailCaptor.getValue();
+        assertThat(mail.getSubject()).isEqualTo("test title");
+        assertThat(mail.getContent()).isEqualToNormalizingNewlines("<html>test title, http://127.0.0.1:8080, john</html>\n");
     }
 
     @Test
-    void testSendActivationEmail() throws Exception {
+    void testSendActivationEmail() {
         User user = new User();
         user.setLangKey(Constants.DEFAULT_LANGUAGE);
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         mailService.sendActivationEmail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
-        assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
-        assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
-        assertThat(message.getContent().toString()).isNotEmpty();
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+        verify(outboxMailRepository).save(mailCaptor.capture());
+        OutboxMail mail = mailCaptor.getValue();
+        assertThat(mail.getRecipient()).isEqualTo(user.getEmail());
+        assertThat(mail.getContent()).isNotEmpty();
+        assertThat(mail.isHtml()).isTrue();
     }
 
     @Test
-    void testCreationEmail() throws Exception {
+    void testCreationEmail() {
         User user = new User();
         user.setLangKey(Constants.DEFAULT_LANGUAGE);
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         mailService.sendCreationEmail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
-        assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
-        assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
-        assertThat(message.getContent().toString()).isNotEmpty();
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+        verify(outboxMailRepository).save(mailCaptor.capture());
+        OutboxMail mail = mailCaptor.getValue();
+        assertThat(mail.getRecipient()).isEqualTo(user.getEmail());
+        assertThat(mail.getContent()).isNotEmpty();
+        assertThat(mail.isHtml()).isTrue();
     }
 
     @Test
-    void testSendPasswordResetMail() throws Exception {
+    void testSendPasswordResetMail() {
         User user = new User();
         user.setLangKey(Constants.DEFAULT_LANGUAGE);
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         mailService.sendPasswordResetMail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
-        assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
-        assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
-        assertThat(message.getContent().toString()).isNotEmpty();
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+        verify(outboxMailRepository).save(mailCaptor.capture());
+        OutboxMail mail = mailCaptor.getValue();
+        assertThat(mail.getRecipient()).isEqualTo(user.getEmail());
+        assertThat(mail.getContent()).isNotEmpty();
+        assertThat(mail.isHtml()).isTrue();
     }
 
     @Test
-    void testSendEmailWithException() {
-        doThrow(MailSendException.class).when(javaMailSender).send(any(MimeMessage.class));
-        try {
-            mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
-        } catch (Exception e) {
-            fail("Exception shouldn't have been thrown");
+    void testTemplateRenderedOnceMatchesTemplateRenderedPerMail() {
+        for (String templateName : List.of("mail/activationEmail", "mail/creationEmail", "mail/passwordResetEmail")) {
+            for (String login : List.of("john", "jane<&>'\"")) {
+                User user = new User();
+                user.setLangKey(Constants.DEFAULT_LANGUAGE);
+                user.setLogin(login);
+                user.setEmail(login + "@example.com");
+                user.setActivationKey("activation" + login.length());
+                user.setResetKey("reset" + login.length());
+                clearInvocations(outboxMailRepository);
+
+                mailService.sendEmailFromTemplate(user, templateName, "email.activation.title");
+
+                verify(outboxMailRepository).save(mailCaptor.capture());
+                assertThat(mailCaptor.getValue().getContent()).isEqualTo(templateEngine.process(templateName, context(user)));
+            }
         }
     }
 
+    /**
+     * Stands in for a benchmark: the cost of rendering a mail once its template is rendered for the locale, against
+     * rendering the whole template per mail.
+     */
+    @Test
+    void testTemplateRenderedOnceIsCheaperPerMail() {
+        int mails = 2_000;
+        User user = new User();
+        user.setLangKey(Constants.DEFAULT_LANGUAGE);
+        user.setLogin("john");
+        user.setEmail("john.doe@example.com");
+        user.setActivationKey("activationKey");
+        // Not recording the mails, which would weigh on both
+        OutboxMailRepository stubRepository = mock(OutboxMailRepository.class, withSettings().stubOnly());
+        MailOutboxMetersService mailOutboxMetersService = new MailOutboxMetersService(new SimpleMeterRegistry());
+        MailService cachedMailService = new MailService(
+            jHipsterProperties,
+            stubRepository,
+            mailOutboxMetersService,
+            messageSource,
+            templateEngine,
+            true
+        );
+        MailService uncachedMailService = new MailService(
+            jHipsterProperties,
+            stubRepository,
+            mailOutboxMetersService,
+            messageSource,
+            templateEngine,
+            false
+        );
+        // Warm up both paths before timing them
+        IntStream.range(0, mails).forEach(i -> {
+            cachedMailService.sendActivationEmail(user);
+            uncachedMailService.sendActivationEmail(user);
+        });
+
+        long cached = nanosPerMail(cachedMailService, user, mails);
+        long uncached = nanosPerMail(uncachedMailService, user, mails);
+        log.info("Rendered an activation mail in {} ns once its template is rendered, {} ns otherwise", cached, uncached);
+
+        assertThat(cached).isLessThan(uncached);
+    }
+
+    private static long nanosPerMail(MailService mailService, User user, int mails) {
+        long start = System.nanoTime();
+        for (int i = 0; i < mails; i++) {
+            mailService.sendActivationEmail(user);
+        }
+        return (System.nanoTime() - start) / mails;
+    }
+
+    private Context context(User user) {
+        Context context = new Context(Locale.forLanguageTag(user.getLangKey()));
+        context.setVariable("user", user);
+        context.setVariable("baseUrl", jHipsterProperties.getMail().getBaseUrl());
+        return context;
+    }
+
     @Test
     void testSendLocalizedEmailForAllSupportedLanguages() throws Exception {
         User user = new User();
@@ -209,8 +285,8 @@ class MailServiceIT {
         for (String langKey : languages) {
             user.setLangKey(langKey);
             mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
-            verify(javaMailSender, atLeastOnce()).send(messageCaptor.capture());
-            MimeMessage message = messageCaptor.getValue();
+            verify(outboxMailRepository, atLeastOnce()).save(mailCaptor.capture());
+            OutboxMail mail = mailCaptor.getValue();
 
             String propertyFilePath = "i18n/messages_" + getJavaLocale(langKey) + ".properties";
             URL resource = this.getClass().getClassLoader().getResource(propertyFilePath);
@@ -219,8 +295,8 @@ class MailServiceIT {
             properties.load(new InputStreamReader(new FileInputStream(file), Charset.forName("UTF-8")));
 
             String emailTitle = (String) properties.get("email.test.title");
-            assertThat(message.getSubject()).isEqualTo(emailTitle);
-            assertThat(message.getContent().toString())
+            assertThat(mail.getSubject()).isEqualTo(emailTitle);
+            assertThat(mail.getContent())
                 .isEqualToNormalizingNewlines("<html>" + emailTitle + ", http://127.0.0.1:8080, john</html>\n");
         }
     }
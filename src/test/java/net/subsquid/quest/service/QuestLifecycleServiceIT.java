@@ -0,0 +1,205 @@
+package net.subsquid.quest.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.enumeration.QuestStatus;
+import net.subsquid.quest.management.QuestLifecycleMetersService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link QuestLifecycleService}.
+ * <p>
+ * Not transactional: each chunk commits as it would in production. The quests are seeded and removed with plain JDBC
+ * batches in their own transactions, with ids far above those drawn from the sequence.
+ */
+@IntegrationTest
+class QuestLifecycleServiceIT {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    private static final long FIRST_ID = 1_000_000_000L;
+
+    private static final int QUESTS = 100_000;
+
+    private final Logger log = LoggerFactory.getLogger(QuestLifecycleServiceIT.class);
+
+    @Autowired
+    private QuestLifecycleService questLifecycleService;
+
+    @Autowired
+    private QuestService questService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void init() {
+        long start = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction -> seed());
+        log.info("Seeded {} quests in {} ms", QUESTS, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction ->
+            jdbcTemplate.update("delete from quest where id >= ?", FIRST_ID)
+        );
+        entityManagerFactory.getCache().evict(Quest.class);
+    }
+
+    private void seed() {
+        jdbcTemplate.batchUpdate(
+            "insert into quest (id, title, reward, expires_on, review_start_date, max_applicants, status, applicant_count, version) " +
+            "values (?, 'quest', 'reward', ?, ?, 1, ?, 0, 0)",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, FIRST_ID + i);
+                    ps.setDate(2, Date.valueOf(expiresOn(i)));
+                    ps.setDate(3, Date.valueOf(reviewStartDate(i)));
+                    ps.setString(4, status(i).name());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return QUESTS;
+                }
+            }
+        );
+    }
+
+    /**
+     * Out of every 10 quests, 4 are claimed and 4 are open, 1 is closed, and 1 is open; all expired but the 4th claimed
+     * and the last one.
+     */
+    private static QuestStatus status(int i) {
+        switch (i % 10) {
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+                return QuestStatus.CLAIMED;
+            case 8:
+                return QuestStatus.CLOSED;
+            default:
+                return QuestStatus.OPEN;
+        }
+    }
+
+    private static LocalDate expiresOn(int i) {
+        if (i % 10 == 3) {
+            return TODAY.plusDays(30);
+        }
+        return i % 10 == 9 ? TODAY : TODAY.minusDays(1 + i % 7);
+    }
+
+    /**
+     * The review of half the not expired claimed quests, and of the not expired open ones, starts today; the other
+     * reviews start later.
+     */
+    private static LocalDate reviewStartDate(int i) {
+        return i % 20 == 3 || i % 10 == 9 ? TODAY : TODAY.plusDays(1 + i % 7);
+    }
+
+    @Test
+    void moveExpiredQuests() {
+        double inReviewBefore = transitions(QuestStatus.INREVIEW);
+        double closedBefore = transitions(QuestStatus.CLOSED);
+        long runsBefore = meterRegistry.get(QuestLifecycleMetersService.DURATION_METER_NAME).timer().count();
+
+        Map<QuestStatus, Integer> counts = questLifecycleService.moveExpiredQuests(TODAY);
+
+        assertThat(counts).containsEntry(QuestStatus.INREVIEW, 35_000).containsEntry(QuestStatus.CLOSED, 40_000);
+        assertThat(countByStatus(QuestStatus.CLAIMED)).isEqualTo(5_000);
+        assertThat(countByStatus(QuestStatus.INREVIEW)).isEqualTo(35_000);
+        assertThat(countByStatus(QuestStatus.OPEN)).isEqualTo(10_000);
+        assertThat(countByStatus(QuestStatus.CLOSED)).isEqualTo(50_000);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from quest where id >= ? and version = 1", Long.class, FIRST_ID))
+            .isEqualTo(75_000);
+        assertThat(transitions(QuestStatus.INREVIEW) - inReviewBefore).isEqualTo(35_000);
+        assertThat(transitions(QuestStatus.CLOSED) - closedBefore).isEqualTo(40_000);
+        assertThat(meterRegistry.get(QuestLifecycleMetersService.DURATION_METER_NAME).timer().count()).isEqualTo(runsBefore + 1);
+    }
+
+    @Test
+    void claimedQuestsGoInReviewOnTheirReviewStartDate() {
+        questLifecycleService.moveExpiredQuests(TODAY);
+
+        // Not expired, review starting today
+        assertThat(statusOf(FIRST_ID + 3)).isEqualTo(QuestStatus.INREVIEW);
+        // Not expired, review starting later
+        assertThat(statusOf(FIRST_ID + 13)).isEqualTo(QuestStatus.CLAIMED);
+        // Not expired and open, review starting today
+        assertThat(statusOf(FIRST_ID + 9)).isEqualTo(QuestStatus.OPEN);
+
+        // Still not expired once its review starts
+        questLifecycleService.moveExpiredQuests(reviewStartDate(13));
+
+        assertThat(statusOf(FIRST_ID + 13)).isEqualTo(QuestStatus.INREVIEW);
+    }
+
+    @Test
+    void moveExpiredQuestsAgainMovesNothing() {
+        questLifecycleService.moveExpiredQuests(TODAY);
+
+        assertThat(questLifecycleService.moveExpiredQuests(TODAY))
+            .containsEntry(QuestStatus.INREVIEW, 0)
+            .containsEntry(QuestStatus.CLOSED, 0);
+    }
+
+    @Test
+    void moveExpiredQuestsEvictsCachedQuests() {
+        assertThat(questService.findOne(FIRST_ID)).get().extracting(Quest::getStatus).isEqualTo(QuestStatus.CLAIMED);
+        assertThat(entityManagerFactory.getCache().contains(Quest.class, FIRST_ID)).isTrue();
+
+        questLifecycleService.moveExpiredQuests(TODAY);
+
+        assertThat(entityManagerFactory.getCache().contains(Quest.class, FIRST_ID)).isFalse();
+        Quest quest = questService.findOne(FIRST_ID).orElseThrow();
+        assertThat(quest.getStatus()).isEqualTo(QuestStatus.INREVIEW);
+        assertThat(quest.getVersion()).isEqualTo(1L);
+    }
+
+    private QuestStatus statusOf(long id) {
+        return QuestStatus.valueOf(jdbcTemplate.queryForObject("select status from quest where id = ?", String.class, id));
+    }
+
+    private long countByStatus(QuestStatus status) {
+        return jdbcTemplate.queryForObject("select count(*) from quest where id >= ? and status = ?", Long.class, FIRST_ID, status.name());
+    }
+
+    private double transitions(QuestStatus status) {
+        return meterRegistry
+            .get(QuestLifecycleMetersService.TRANSITIONS_METER_NAME)
+            .tag(QuestLifecycleMetersService.TRANSITIONS_METER_STATUS_DIMENSION, status.name())
+            .counter()
+            .count();
+    }
+}
@@ -0,0 +1,124 @@
+package net.subsquid.quest.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import javax.persistence.EntityManager;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.enumeration.QuestStatus;
+import net.subsquid.quest.management.SqlStatementRecorder;
+import net.subsquid.quest.management.SqlStatementRecorder.Recording;
+import net.subsquid.quest.service.criteria.QuestCriteria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link QuestQueryService}, checking that the filtered queries are served by the quest indexes.
+ */
+@IntegrationTest
+@Transactional
+class QuestQueryServiceIT {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    @Autowired
+    private QuestQueryService questQueryService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void init() {
+        QuestStatus[] statuses = QuestStatus.values();
+        for (int i = 0; i < 200; i++) {
+            em.persist(
+                new Quest()
+                    .title("quest")
+                    .reward("reward")
+                    .expiresOn(TODAY.plusDays(i % 20 - 10))
+                    .reviewStartDate(TODAY)
+                    .maxApplicants(1)
+                    .assignee(i % 10 == 0 ? "assignee#" + i : null)
+                    .status(statuses[i % statuses.length])
+            );
+        }
+        em.flush();
+    }
+
+    @Test
+    void statusAndExpiresOnRangeUseTheCompositeIndex() {
+        QuestCriteria criteria = new QuestCriteria();
+        criteria.status().setEquals(QuestStatus.OPEN);
+        criteria.expiresOn().setLessThan(TODAY);
+
+        assertThat(explainQuery(criteria, QuestStatus.OPEN.name(), Date.valueOf(TODAY)))
+            .containsIgnoringCase("ix_quest__status_expires_on");
+        assertThat(questQueryService.findByCriteria(criteria))
+            .isNotEmpty()
+            .allMatch(quest -> quest.getStatus() == QuestStatus.OPEN && quest.getExpiresOn().isBefore(TODAY));
+    }
+
+    @Test
+    void statusAloneUsesTheCompositeIndexPrefix() {
+        QuestCriteria criteria = new QuestCriteria();
+        criteria.status().setEquals(QuestStatus.OPEN);
+
+        assertThat(explainQuery(criteria, QuestStatus.OPEN.name())).containsIgnoringCase("ix_quest__status_expires_on");
+    }
+
+    @Test
+    void assigneeUsesItsIndex() {
+        QuestCriteria criteria = new QuestCriteria();
+        criteria.assignee().setEquals("assignee#10");
+
+        assertThat(explainQuery(criteria, "assignee#10")).containsIgnoringCase("ix_quest__assignee");
+        assertThat(questQueryService.findByCriteria(criteria)).extracting(Quest::getAssignee).containsExactly("assignee#10");
+    }
+
+    @Test
+    void keysetSliceAppliesTheCriteria() {
+        QuestCriteria criteria = new QuestCriteria();
+        criteria.status().setEquals(QuestStatus.OPEN);
+        long matching = questQueryService.countByCriteria(criteria);
+
+        Slice<Quest> first = questQueryService.findByCriteriaAfter(criteria, null, 5);
+        List<Quest> content = first.getContent();
+        Slice<Quest> next = questQueryService.findByCriteriaAfter(criteria, content.get(content.size() - 1).getId(), (int) matching);
+
+        assertThat(first.hasNext()).isTrue();
+        assertThat(content).hasSize(5).allMatch(quest -> quest.getStatus() == QuestStatus.OPEN);
+        assertThat(content).extracting(Quest::getId).isSorted();
+        assertThat(next.getContent()).hasSize((int) matching - 5);
+        assertThat(next.hasNext()).isFalse();
+    }
+
+    /**
+     * Explain the statement Hibernate prepares for the criteria, with its parameters bound.
+     */
+    private String explainQuery(QuestCriteria criteria, Object... parameters) {
+        String sql;
+        try (Recording recording = SqlStatementRecorder.start()) {
+            questQueryService.findByCriteria(criteria);
+            sql =
+                recording
+                    .getStatements()
+                    .keySet()
+                    .stream()
+                    .filter(statement -> statement.startsWith("select") && statement.contains(" from quest "))
+                    .findFirst()
+                    .orElseThrow();
+        }
+        assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(parameters.length);
+        return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, parameters));
+    }
+}
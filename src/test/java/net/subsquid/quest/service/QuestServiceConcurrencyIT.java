@@ -0,0 +1,137 @@
+package net.subsquid.quest.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.domain.Applicant;
+import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.enumeration.QuestStatus;
+import net.subsquid.quest.repository.ApplicantRepository;
+import net.subsquid.quest.repository.QuestApplicationRepository;
+import net.subsquid.quest.repository.QuestRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for {@link QuestService#apply(Long, Long)} under contention.
+ * <p>
+ * Not transactional: every apply runs and commits in its own transaction, as it would from concurrent requests.
+ */
+@IntegrationTest
+class QuestServiceConcurrencyIT {
+
+    private static final int MAX_APPLICANTS = 50;
+
+    private static final int APPLICANTS = 400;
+
+    private static final int THREADS = 16;
+
+    private final Logger log = LoggerFactory.getLogger(QuestServiceConcurrencyIT.class);
+
+    @Autowired
+    private QuestService questService;
+
+    @Autowired
+    private QuestRepository questRepository;
+
+    @Autowired
+    private ApplicantRepository applicantRepository;
+
+    @Autowired
+    private QuestApplicationRepository questApplicationRepository;
+
+    private Quest quest;
+
+    private List<Applicant> applicants;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() {
+        quest =
+            questRepository.saveAndFlush(
+                new Quest()
+                    .title("contended")
+                    .reward("reward")
+                    .expiresOn(LocalDate.now())
+                    .reviewStartDate(LocalDate.now())
+                    .maxApplicants(MAX_APPLICANTS)
+                    .status(QuestStatus.OPEN)
+            );
+        applicants =
+            applicantRepository.saveAll(
+                IntStream.range(0, APPLICANTS).mapToObj(i -> new Applicant().discordHandle("contender#" + i)).collect(Collectors.toList())
+            );
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        executor.shutdownNow();
+        questService.delete(quest.getId());
+        applicantRepository.deleteAllInBatch(applicants);
+    }
+
+    @Test
+    void parallelAppliesNeverExceedMaxApplicants() throws Exception {
+        List<Callable<Boolean>> applies = new ArrayList<>();
+        for (Applicant applicant : applicants) {
+            applies.add(() -> {
+                try {
+                    return questService.apply(quest.getId(), applicant.getId()).isPresent();
+                } catch (QuestFullException e) {
+                    return false;
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        List<Future<Boolean>> results = executor.invokeAll(applies);
+        long elapsedNanos = System.nanoTime() - start;
+
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                accepted++;
+            }
+        }
+        log.info(
+            "{} parallel applies on {} threads in {} ms ({} applies/s)",
+            APPLICANTS,
+            THREADS,
+            elapsedNanos / 1_000_000,
+            APPLICANTS * 1_000_000_000L / elapsedNanos
+        );
+        assertThat(accepted).isEqualTo(MAX_APPLICANTS);
+        assertThat(questApplicationRepository.countByQuestId(quest.getId())).isEqualTo(MAX_APPLICANTS);
+        assertThat(questRepository.findById(quest.getId()).get().getApplicantCount()).isEqualTo(MAX_APPLICANTS);
+    }
+
+    @Test
+    void parallelAppliesOfOneApplicantCreateASingleApplication() throws Exception {
+        Applicant applicant = applicants.get(0);
+        List<Callable<Boolean>> applies = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            applies.add(() -> questService.apply(quest.getId(), applicant.getId()).isPresent());
+        }
+
+        for (Future<Boolean> result : executor.invokeAll(applies)) {
+            assertThat(result.get()).isTrue();
+        }
+        assertThat(questApplicationRepository.countByQuestId(quest.getId())).isEqualTo(1);
+        assertThat(questRepository.findById(quest.getId()).get().getApplicantCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,173 @@
+package net.subsquid.quest.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.domain.Applicant;
+import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.QuestApplication;
+import net.subsquid.quest.domain.QuestApplicationId;
+import net.subsquid.quest.domain.enumeration.ApplicationState;
+import net.subsquid.quest.domain.enumeration.QuestStatus;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link QuestService}.
+ */
+@IntegrationTest
+@Transactional
+class QuestServiceIT {
+
+    private static final int QUESTS_WITH_APPLICANTS = 10;
+
+    private static final int APPLICANTS_PER_QUEST = 100;
+
+    @Autowired
+    private QuestService questService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void init() {
+        // Older quests without applicants, left out of the pages of the newest quests
+        for (int i = 0; i < 5; i++) {
+            em.persist(createQuest());
+        }
+        for (int i = 0; i < QUESTS_WITH_APPLICANTS; i++) {
+            Quest quest = createQuest().applicantCount(APPLICANTS_PER_QUEST);
+            em.persist(quest);
+            for (int j = 0; j < APPLICANTS_PER_QUEST; j++) {
+                Applicant applicant = new Applicant().discordHandle("applicant#" + i + "-" + j);
+                em.persist(applicant);
+                em.persist(new QuestApplication(quest, applicant));
+            }
+        }
+        em.flush();
+        em.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void pageExposesApplicantCountWithoutReadingApplications() {
+        statistics.clear();
+        Page<Quest> page = questService.findAll(PageRequest.of(0, QUESTS_WITH_APPLICANTS, Sort.by("id").descending()));
+
+        assertThat(page.getContent()).extracting(Quest::getApplicantCount).containsOnly(APPLICANTS_PER_QUEST);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(QUESTS_WITH_APPLICANTS);
+    }
+
+    @Test
+    void applyWritesASingleRowWithoutLoadingApplications() {
+        Quest quest = createQuest();
+        em.persist(quest);
+        Applicant applicant = new Applicant().discordHandle("applicant#new");
+        em.persist(applicant);
+        em.flush();
+        em.clear();
+
+        statistics.clear();
+        Optional<QuestApplication> application = questService.apply(quest.getId(), applicant.getId());
+        em.flush();
+
+        assertThat(application).get().extracting(QuestApplication::getState).isEqualTo(ApplicationState.APPLIED);
+        assertThat(application.get().getAppliedAt()).isNotNull();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(Hibernate.isInitialized(application.get().getQuest().getApplications())).isFalse();
+        assertThat(application.get().getQuest().getApplicantCount()).isEqualTo(1);
+
+        assertThat(questService.apply(quest.getId(), applicant.getId())).isEqualTo(application);
+        em.flush();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+    }
+
+    @Test
+    void applyToAMissingQuestOrApplicant() {
+        Quest quest = createQuest();
+        em.persist(quest);
+        Applicant applicant = new Applicant().discordHandle("applicant#new");
+        em.persist(applicant);
+
+        assertThat(questService.apply(Long.MAX_VALUE, applicant.getId())).isEmpty();
+        assertThat(questService.apply(quest.getId(), Long.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void withdrawDeletesASingleRowWithoutLoadingApplications() {
+        Quest quest = createQuest();
+        em.persist(quest.applicantCount(1));
+        Applicant applicant = new Applicant().discordHandle("applicant#new");
+        em.persist(applicant);
+        em.persist(new QuestApplication(quest, applicant));
+        em.flush();
+        em.clear();
+
+        statistics.clear();
+        assertThat(questService.withdraw(quest.getId(), applicant.getId())).isTrue();
+        em.flush();
+
+        assertThat(statistics.getEntityDeleteCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(questService.withdraw(quest.getId(), applicant.getId())).isFalse();
+        assertThat(em.find(QuestApplication.class, new QuestApplicationId(quest.getId(), applicant.getId()))).isNull();
+        assertThat(em.find(Quest.class, quest.getId()).getApplicantCount()).isZero();
+    }
+
+    @Test
+    void exportKeepsASingleQuestInThePersistenceContext() {
+        long quests = em.createQuery("select count(quest) from Quest quest", Long.class).getSingleResult();
+        List<Long> exportedIds = new ArrayList<>();
+        AtomicInteger managedEntities = new AtomicInteger();
+        questService.exportAll(quest -> {
+            exportedIds.add(quest.getId());
+            managedEntities.accumulateAndGet(em.unwrap(Session.class).getStatistics().getEntityCount(), Math::max);
+        });
+
+        assertThat(exportedIds).hasSize((int) quests);
+        assertThat(exportedIds).isSorted();
+        assertThat(managedEntities.get()).isEqualTo(1);
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    private static Quest createQuest() {
+        return new Quest()
+            .title("quest")
+            .reward("reward")
+            .expiresOn(LocalDate.now())
+            .reviewStartDate(LocalDate.now())
+            .maxApplicants(APPLICANTS_PER_QUEST)
+            .status(QuestStatus.OPEN);
+    }
+}
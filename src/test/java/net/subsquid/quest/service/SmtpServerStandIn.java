@@ -0,0 +1,173 @@
+package net.subsquid.quest.service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+
+/**
+ * A local SMTP server standing in for the real one in tests: it accepts the mails, or rejects the next ones on demand,
+ * and keeps the accepted ones. It may delay its greeting, standing in for the handshake of a real connection.
+ */
+public final class SmtpServerStandIn implements Closeable {
+
+    private final ServerSocket serverSocket;
+
+    private final Duration greetingDelay;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Session session = Session.getInstance(new Properties());
+
+    private final List<MimeMessage> messages = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicInteger rejections = new AtomicInteger();
+
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+    private SmtpServerStandIn(Duration greetingDelay) throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.greetingDelay = greetingDelay;
+        executor.execute(this::accept);
+    }
+
+    public static SmtpServerStandIn start() throws IOException {
+        return new SmtpServerStandIn(Duration.ZERO);
+    }
+
+    public static SmtpServerStandIn start(Duration greetingDelay) throws IOException {
+        return new SmtpServerStandIn(greetingDelay);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<MimeMessage> getMessages() {
+        return messages;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Reject the next mails with a transient error.
+     *
+     * @param count the number of mails to reject.
+     */
+    public void rejectNextMails(int count) {
+        rejections.set(count);
+    }
+
+    /**
+     * Drop the open connections, as a server timing them out would.
+     */
+    public void dropConnections() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                sockets.add(socket);
+                executor.execute(() -> converse(socket));
+            } catch (IOException e) {
+                // The server was closed
+            }
+        }
+    }
+
+    private void converse(Socket socket) {
+        try (
+            socket;
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1)
+        ) {
+            Thread.sleep(greetingDelay.toMillis());
+            reply(out, "220 localhost SMTP stand-in");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line : line.substring(0, 4);
+                switch (command.toUpperCase()) {
+                    case "EHLO":
+                    case "HELO":
+                        reply(out, "250 localhost");
+                        break;
+                    case "MAIL":
+                    case "RCPT":
+                    case "RSET":
+                    case "NOOP":
+                        reply(out, "250 OK");
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        byte[] data = readData(in);
+                        if (rejections.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                            reply(out, "451 Requested action aborted: local error in processing");
+                        } else {
+                            messages.add(new MimeMessage(session, new ByteArrayInputStream(data)));
+                            reply(out, "250 OK");
+                        }
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    default:
+                        reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException | MessagingException e) {
+            // The client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private static byte[] readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !".".equals(line)) {
+            data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+        }
+        return data.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static void reply(Writer out, String reply) throws IOException {
+        out.write(reply + "\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,149 @@
+package net.subsquid.quest.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.management.UserCleanupMetersService;
+import net.subsquid.quest.security.AuthoritiesConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link UserCleanupService}.
+ * <p>
+ * Not transactional: each chunk commits as it would in production. The users are seeded and removed with plain JDBC
+ * batches in their own transactions, with ids far above those drawn from the sequence.
+ */
+@IntegrationTest
+class UserCleanupServiceIT {
+
+    private static final long FIRST_ID = 1_000_000_000L;
+
+    private static final int USERS = 2_500;
+
+    private static final Instant NOW = Instant.now();
+
+    @Autowired
+    private UserCleanupService userCleanupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void init() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction -> seed());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction -> {
+            jdbcTemplate.update("delete from jhi_user_authority where user_id >= ?", FIRST_ID);
+            jdbcTemplate.update("delete from jhi_user where id >= ?", FIRST_ID);
+        });
+    }
+
+    private void seed() {
+        jdbcTemplate.batchUpdate(
+            "insert into jhi_user (id, login, email, activated, activation_key, created_by, created_date) " +
+            "values (?, ?, ?, false, ?, 'system', ?)",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, FIRST_ID + i);
+                    ps.setString(2, "cleanup-" + i);
+                    ps.setString(3, "cleanup-" + i + "@localhost");
+                    ps.setString(4, i % 5 == 4 ? null : "key" + i);
+                    ps.setTimestamp(5, Timestamp.from(createdDate(i)));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return USERS;
+                }
+            }
+        );
+        jdbcTemplate.update(
+            "insert into jhi_user_authority (user_id, authority_name) select id, ? from jhi_user where id >= ?",
+            AuthoritiesConstants.USER,
+            FIRST_ID
+        );
+    }
+
+    /**
+     * Out of every 5 users, 3 have an activation key and were created 4 days ago, 1 has one and was created today, and
+     * 1 has none and was created 4 days ago.
+     */
+    private static Instant createdDate(int i) {
+        return i % 5 == 3 ? NOW : NOW.minus(4, ChronoUnit.DAYS);
+    }
+
+    @Test
+    void assertThatNotActivatedUsersWithNotNullActivationKeyCreatedBefore3DaysAreDeleted() {
+        double usersBefore = deleted("jhi_user");
+        double authoritiesBefore = deleted("jhi_user_authority");
+        long runsBefore = meterRegistry.get(UserCleanupMetersService.DURATION_METER_NAME).timer().count();
+
+        int removed = userCleanupService.removeNotActivatedUsers(NOW.minus(3, ChronoUnit.DAYS));
+
+        assertThat(removed).isEqualTo(1_500);
+        assertThat(countUsers()).isEqualTo(1_000);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_user_authority where user_id >= ?", Long.class, FIRST_ID))
+            .isEqualTo(1_000);
+        assertThat(deleted("jhi_user") - usersBefore).isEqualTo(1_500);
+        assertThat(deleted("jhi_user_authority") - authoritiesBefore).isEqualTo(1_500);
+        assertThat(meterRegistry.get(UserCleanupMetersService.DURATION_METER_NAME).timer().count()).isEqualTo(runsBefore + 1);
+    }
+
+    @Test
+    void assertThatNotActivatedUsersWithNullActivationKeyCreatedBefore3DaysAreNotDeleted() {
+        userCleanupService.removeNotActivatedUsers(NOW.minus(3, ChronoUnit.DAYS));
+
+        assertThat(
+            jdbcTemplate.queryForObject(
+                "select count(*) from jhi_user where id >= ? and activation_key is null and created_date < ?",
+                Long.class,
+                FIRST_ID,
+                Timestamp.from(NOW.minus(3, ChronoUnit.DAYS))
+            )
+        )
+            .isEqualTo(500);
+    }
+
+    @Test
+    void removeNotActivatedUsersAgainRemovesNothing() {
+        userCleanupService.removeNotActivatedUsers(NOW.minus(3, ChronoUnit.DAYS));
+
+        assertThat(userCleanupService.removeNotActivatedUsers(NOW.minus(3, ChronoUnit.DAYS))).isZero();
+        assertThat(countUsers()).isEqualTo(1_000);
+    }
+
+    private long countUsers() {
+        return jdbcTemplate.queryForObject("select count(*) from jhi_user where id >= ?", Long.class, FIRST_ID);
+    }
+
+    private double deleted(String table) {
+        return meterRegistry
+            .get(UserCleanupMetersService.DELETED_METER_NAME)
+            .tag(UserCleanupMetersService.DELETED_METER_TABLE_DIMENSION, table)
+            .counter()
+            .count();
+    }
+}
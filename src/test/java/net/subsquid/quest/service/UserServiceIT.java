@@ -6,12 +6,12 @@ import static org.mockito.Mockito.when;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.Optional;
 import net.subsquid.quest.IntegrationTest;
 import net.subsquid.quest.config.Constants;
 import net.subsquid.quest.domain.User;
 import net.subsquid.quest.repository.UserRepository;
+import net.subsquid.quest.security.jwt.TokenRevocationStore;
 import net.subsquid.quest.service.dto.AdminUserDTO;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -50,6 +50,9 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
     @Autowired
     private AuditingHandler auditingHandler;
 
@@ -150,36 +153,29 @@ class UserServiceIT {
 
     @Test
     @Transactional
-    void assertThatNotActivatedUsersWithNotNullActivationKeyCreatedBefore3DaysAreDeleted() {
-        Instant now = Instant.now();
-        when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
-        user.setActivated(false);
-        user.setActivationKey(RandomStringUtils.random(20));
-        User dbUser = userRepository.saveAndFlush(user);
-        dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
+    void assertThatDeactivatingUserRevokesItsTokens() {
         userRepository.saveAndFlush(user);
-        Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
-        assertThat(users).isNotEmpty();
-        userService.removeNotActivatedUsers();
-        users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
-        assertThat(users).isEmpty();
+        Instant issuedBefore = Instant.now().minusSeconds(1);
+        assertThat(tokenRevocationStore.isRevoked(user.getLogin(), issuedBefore)).isFalse();
+
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setActivated(false);
+        userService.updateUser(userDTO);
+
+        assertThat(tokenRevocationStore.isRevoked(user.getLogin(), issuedBefore)).isTrue();
+        assertThat(tokenRevocationStore.isRevoked(user.getLogin(), Instant.now().plusSeconds(1))).isFalse();
     }
 
     @Test
     @Transactional
-    void assertThatNotActivatedUsersWithNullActivationKeyCreatedBefore3DaysAreNotDeleted() {
-        Instant now = Instant.now();
-        when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
-        user.setActivated(false);
-        User dbUser = userRepository.saveAndFlush(user);
-        dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
+    void assertThatDeletingUserRevokesItsTokens() {
         userRepository.saveAndFlush(user);
-        Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
-        assertThat(users).isEmpty();
-        userService.removeNotActivatedUsers();
-        Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
-        assertThat(maybeDbUser).contains(dbUser);
+        Instant issuedBefore = Instant.now().minusSeconds(1);
+        assertThat(tokenRevocationStore.isRevoked(user.getLogin(), issuedBefore)).isFalse();
+
+        userService.deleteUser(user.getLogin());
+
+        assertThat(userRepository.findOneByLogin(user.getLogin())).isEmpty();
+        assertThat(tokenRevocationStore.isRevoked(user.getLogin(), issuedBefore)).isTrue();
     }
 }
@@ -0,0 +1,216 @@
+package net.subsquid.quest.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import net.subsquid.quest.security.AuthoritiesConstants;
+import net.subsquid.quest.security.RateLimiter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Test class for the {@link RateLimitFilter}.
+ */
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    public void setup() {
+        filter =
+            new RateLimitFilter(
+                new RateLimiter(),
+                List.of(
+                    new RateLimitFilter.Route(
+                        "authenticate",
+                        Set.of("POST"),
+                        List.of("/api/authenticate"),
+                        new RateLimiter.Limit(1, Duration.ofMinutes(1)),
+                        "username"
+                    ),
+                    new RateLimitFilter.Route(
+                        "writes",
+                        Set.of("POST"),
+                        List.of("/api/**"),
+                        new RateLimiter.Limit(2, Duration.ofMinutes(1)),
+                        null
+                    )
+                ),
+                new ObjectMapper()
+            );
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void requestOverLimitIsRejectedWithRetryAfter() throws Exception {
+        MockHttpServletResponse allowed = filter("POST", "/api/authenticate", "10.0.0.1");
+        MockHttpServletResponse rejected = filter("POST", "/api/authenticate", "10.0.0.1");
+
+        assertThat(allowed.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("60");
+    }
+
+    @Test
+    void anonymousClientsAreLimitedByAddress() throws Exception {
+        filter("POST", "/api/authenticate", "10.0.0.1");
+
+        assertThat(filter("POST", "/api/authenticate", "10.0.0.2").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void authenticationsAreLimitedByAttemptedLoginWhateverTheAddress() throws Exception {
+        assertThat(attemptAuthentication("10.0.0.1", "admin").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        MockHttpServletResponse rejected = attemptAuthentication("10.0.0.2", "ADMIN");
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("60");
+        assertThat(attemptAuthentication("10.0.0.3", "user").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void authenticationsAreLimitedByAddressWhateverTheLogin() throws Exception {
+        attemptAuthentication("10.0.0.1", "admin");
+
+        assertThat(attemptAuthentication("10.0.0.1", "user").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Test
+    void authenticationBodyIsReadableDownstream() throws Exception {
+        MockHttpServletRequest request = authenticationRequest("10.0.0.1", "admin");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(StreamUtils.copyToString(chain.getRequest().getInputStream(), StandardCharsets.UTF_8))
+            .isEqualTo(new String(request.getContentAsByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void authenticationBodyIsReadableDownstreamWithAReadListener() throws Exception {
+        MockHttpServletRequest request = authenticationRequest("10.0.0.1", "admin");
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        ServletInputStream in = chain.getRequest().getInputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+
+        in.setReadListener(
+            new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (in.isReady() && !in.isFinished()) {
+                        body.write(in.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allDataRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            }
+        );
+
+        assertThat(body.toByteArray()).isEqualTo(request.getContentAsByteArray());
+        assertThat(allDataRead).isTrue();
+    }
+
+    @Test
+    void oversizedAuthenticationBodyIsRejected() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/authenticate");
+        request.setRemoteAddr("10.0.0.1");
+        request.setContent(new byte[RateLimitFilter.MAX_LOGIN_BODY_SIZE + 1]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void authenticatedClientsAreLimitedByLogin() throws Exception {
+        authenticate("user");
+        filter("POST", "/api/quests", "10.0.0.1");
+        filter("POST", "/api/quests", "10.0.0.2");
+
+        assertThat(filter("POST", "/api/quests", "10.0.0.3").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+
+        authenticate("other-user");
+        assertThat(filter("POST", "/api/quests", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void onlyTheFirstMatchingRouteApplies() throws Exception {
+        filter("POST", "/api/authenticate", "10.0.0.1");
+
+        assertThat(filter("POST", "/api/quests", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(filter("POST", "/api/quests", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void unmatchedRequestsAreNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(filter("GET", "/api/quests", "10.0.0.1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+    }
+
+    private MockHttpServletResponse filter(String method, String uri, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletResponse attemptAuthentication(String remoteAddr, String username) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(authenticationRequest(remoteAddr, username), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest authenticationRequest(String remoteAddr, String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/authenticate");
+        request.setRemoteAddr(remoteAddr);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(("{\"username\":\"" + username + "\",\"password\":\"wrong\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static void authenticate(String login) {
+        SecurityContextHolder
+            .getContext()
+            .setAuthentication(new UsernamePasswordAuthenticationToken(login, "", List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER))));
+    }
+}
@@ -0,0 +1,101 @@
+package net.subsquid.quest.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.servlet.FilterChain;
+import javax.sql.DataSource;
+import net.subsquid.quest.management.SqlStatementCountingDataSource;
+import net.subsquid.quest.management.SqlStatementMetersService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Test class for the {@link SqlStatementBudgetFilter}.
+ */
+class SqlStatementBudgetFilterTest {
+
+    private static final String URI = "/api/quests/{id}";
+
+    private MeterRegistry meterRegistry;
+
+    private SqlStatementBudgetFilter filter;
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new SqlStatementBudgetFilter(new SqlStatementMetersService(meterRegistry), 2);
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:sql-statement-budget-filter");
+        dataSource = new SqlStatementCountingDataSource(h2DataSource);
+    }
+
+    @Test
+    void requestWithinBudgetIsMeasured() throws Exception {
+        filter.doFilter(request(), new MockHttpServletResponse(), executing(2));
+
+        assertThat(statements().count()).isEqualTo(1);
+        assertThat(statements().totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.find(SqlStatementMetersService.OVER_BUDGET_METER_NAME).counter()).isNull();
+    }
+
+    @Test
+    void requestOverBudgetIsCounted() throws Exception {
+        filter.doFilter(request(), new MockHttpServletResponse(), executing(3));
+
+        assertThat(statements().totalAmount()).isEqualTo(3);
+        assertThat(
+            meterRegistry
+                .get(SqlStatementMetersService.OVER_BUDGET_METER_NAME)
+                .tag(SqlStatementMetersService.METHOD_DIMENSION, "GET")
+                .tag(SqlStatementMetersService.URI_DIMENSION, URI)
+                .counter()
+                .count()
+        )
+            .isEqualTo(1);
+    }
+
+    @Test
+    void unmappedRequestWithoutStatementsIsIgnored() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/index.html"), new MockHttpServletResponse(), executing(0));
+
+        assertThat(meterRegistry.find(SqlStatementMetersService.STATEMENTS_METER_NAME).summary()).isNull();
+    }
+
+    private DistributionSummary statements() {
+        return meterRegistry
+            .get(SqlStatementMetersService.STATEMENTS_METER_NAME)
+            .tag(SqlStatementMetersService.METHOD_DIMENSION, "GET")
+            .tag(SqlStatementMetersService.URI_DIMENSION, URI)
+            .summary();
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/quests/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, URI);
+        return request;
+    }
+
+    private FilterChain executing(int statements) {
+        return (request, response) -> {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                for (int i = 0; i < statements; i++) {
+                    statement.execute("select 1");
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
@@ -9,8 +9,10 @@ import java.time.Instant;
 import java.util.*;
 import net.subsquid.quest.IntegrationTest;
 import net.subsquid.quest.config.Constants;
+import net.subsquid.quest.domain.OutboxMail;
 import net.subsquid.quest.domain.User;
 import net.subsquid.quest.repository.AuthorityRepository;
+import net.subsquid.quest.repository.OutboxMailRepository;
 import net.subsquid.quest.repository.UserRepository;
 import net.subsquid.quest.security.AuthoritiesConstants;
 import net.subsquid.quest.service.UserService;
@@ -45,6 +47,9 @@ class AccountResourceIT {
     @Autowired
     private AuthorityRepository authorityRepository;
 
+    @Autowired
+    private OutboxMailRepository outboxMailRepository;
+
     @Autowired
     private UserService userService;
 
@@ -134,6 +139,25 @@ class AccountResourceIT {
         assertThat(userRepository.findOneByLogin("test-register-valid")).isPresent();
     }
 
+    @Test
+    @Transactional
+    void testRegisterWithoutLangKey() throws Exception {
+        ManagedUserVM validUser = new ManagedUserVM();
+        validUser.setLogin("test-register-no-lang-key");
+        validUser.setPassword("password");
+        validUser.setFirstName("Alice");
+        validUser.setLastName("Test");
+        validUser.setEmail("test-register-no-lang-key@example.com");
+        validUser.setAuthorities(Collections.singleton(AuthoritiesConstants.USER));
+
+        restAccountMockMvc
+            .perform(post("/api/register").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(validUser)))
+            .andExpect(status().isCreated());
+
+        assertThat(userRepository.findOneByLogin("test-register-no-lang-key")).map(User::getLangKey).contains(Constants.DEFAULT_LANGUAGE);
+        assertThat(outboxMailRepository.findAll()).extracting(OutboxMail::getRecipient).contains("test-register-no-lang-key@example.com");
+    }
+
     @Test
     @Transactional
     void testRegisterInvalidLogin() throws Exception {
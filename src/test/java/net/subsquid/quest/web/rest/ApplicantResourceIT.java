@@ -1,20 +1,28 @@
 package net.subsquid.quest.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.jayway.jsonpath.JsonPath;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.persistence.EntityManager;
 import net.subsquid.quest.IntegrationTest;
 import net.subsquid.quest.domain.Applicant;
+import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.QuestApplication;
 import net.subsquid.quest.repository.ApplicantRepository;
+import net.subsquid.quest.repository.QuestRepository;
 import net.subsquid.quest.service.ApplicantService;
+import net.subsquid.quest.web.rest.util.KeysetPaginationUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,9 +32,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -50,6 +60,9 @@ class ApplicantResourceIT {
     @Autowired
     private ApplicantRepository applicantRepository;
 
+    @Autowired
+    private QuestRepository questRepository;
+
     @Mock
     private ApplicantRepository applicantRepositoryMock;
 
@@ -157,6 +170,39 @@ class ApplicantResourceIT {
             .andExpect(jsonPath("$.[*].discordHandle").value(hasItem(DEFAULT_DISCORD_HANDLE)));
     }
 
+    @Test
+    @Transactional
+    void getAllApplicantsWithCursor() throws Exception {
+        // Initialize the database
+        applicantRepository.saveAndFlush(applicant);
+        Applicant nextApplicant = applicantRepository.saveAndFlush(createEntity(em));
+
+        // Seek from just before the first applicant, one row at a time
+        MvcResult result = restApplicantMockMvc
+            .perform(get(ENTITY_API_URL + "?size=1&after=" + KeysetPaginationUtil.encodeCursor(applicant.getId() - 1)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(applicant.getId().intValue()))
+            .andReturn();
+
+        // Follow the next link to the last applicant
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        restApplicantMockMvc
+            .perform(get(link.substring(link.indexOf('<') + 1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(nextApplicant.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getAllApplicantsWithInvalidCursor() throws Exception {
+        restApplicantMockMvc.perform(get(ENTITY_API_URL + "?after=not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
     @SuppressWarnings({ "unchecked" })
     void getAllApplicantsWithEagerRelationshipsIsEnabled() throws Exception {
         when(applicantServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
@@ -197,6 +243,51 @@ class ApplicantResourceIT {
         restApplicantMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
     }
 
+    @Test
+    void bulkSaveApplicants() throws Exception {
+        // Initialize the database, committed as every chunk is saved in its own transaction
+        Applicant existingApplicant = applicantRepository.saveAndFlush(createEntity(em));
+
+        List<Applicant> applicants = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            applicants.add(new Applicant().discordHandle("bulk#" + i));
+        }
+        applicants.add(createUpdatedEntity(em).id(existingApplicant.getId()));
+        applicants.add(new Applicant());
+
+        List<Long> ids = new ArrayList<>();
+        try {
+            MvcResult result = restApplicantMockMvc
+                .perform(
+                    post(ENTITY_API_URL + "/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(applicants))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(applicants.size()))
+                .andExpect(jsonPath("$.[120].status").value("UPDATED"))
+                .andExpect(jsonPath("$.[121].status").value("INVALID"))
+                .andReturn();
+            String body = result.getResponse().getContentAsString();
+            JsonPath
+                .<List<Number>>read(body, "$.[*].id")
+                .stream()
+                .filter(Objects::nonNull)
+                .map(Number::longValue)
+                .forEach(ids::add);
+
+            assertThat(JsonPath.<List<String>>read(body, "$.[0:120].status")).containsOnly("CREATED");
+            assertThat(ids).doesNotHaveDuplicates().hasSize(121);
+            assertThat(applicantRepository.findById(existingApplicant.getId()))
+                .get()
+                .extracting(Applicant::getDiscordHandle)
+                .isEqualTo(UPDATED_DISCORD_HANDLE);
+        } finally {
+            ids.add(existingApplicant.getId());
+            applicantRepository.deleteAllById(new HashSet<>(ids));
+        }
+    }
+
     @Test
     @Transactional
     void putNewApplicant() throws Exception {
@@ -226,6 +317,36 @@ class ApplicantResourceIT {
         assertThat(testApplicant.getDiscordHandle()).isEqualTo(UPDATED_DISCORD_HANDLE);
     }
 
+    @Test
+    @Transactional
+    void getApplicantNotModified() throws Exception {
+        // Initialize the database
+        applicantRepository.saveAndFlush(applicant);
+
+        restApplicantMockMvc
+            .perform(get(ENTITY_API_URL_ID, applicant.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"" + applicant.getVersion() + "\""))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @Transactional
+    void putApplicantWithStaleVersion() throws Exception {
+        // Initialize the database
+        applicantRepository.saveAndFlush(applicant);
+
+        Applicant updatedApplicant = applicantRepository.findById(applicant.getId()).get();
+        em.detach(updatedApplicant);
+        updatedApplicant.discordHandle(UPDATED_DISCORD_HANDLE).version(applicant.getVersion() + 1);
+
+        restApplicantMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedApplicant.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedApplicant))
+            )
+            .andExpect(status().isConflict());
+    }
+
     @Test
     @Transactional
     void putNonExistingApplicant() throws Exception {
@@ -396,6 +517,35 @@ class ApplicantResourceIT {
         assertThat(applicantList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    void exportApplicants() throws Exception {
+        // Initialize the database, committed as the export runs in its own transaction
+        applicantRepository.saveAndFlush(applicant);
+
+        try {
+            MvcResult result = restApplicantMockMvc
+                .perform(get(ENTITY_API_URL + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            String body = restApplicantMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+            assertThat(body.lines()).hasSize((int) applicantRepository.count());
+            assertThat(body.lines())
+                .filteredOn(line -> line.startsWith("{\"id\":" + applicant.getId() + ","))
+                .singleElement()
+                .asString()
+                .contains("\"discordHandle\":\"" + DEFAULT_DISCORD_HANDLE + "\"");
+        } finally {
+            applicantRepository.deleteById(applicant.getId());
+        }
+    }
+
     @Test
     @Transactional
     void deleteApplicant() throws Exception {
@@ -413,4 +563,22 @@ class ApplicantResourceIT {
         List<Applicant> applicantList = applicantRepository.findAll();
         assertThat(applicantList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void deleteApplicantReleasesItsPlaces() throws Exception {
+        // Initialize the database
+        applicantRepository.saveAndFlush(applicant);
+        Quest quest = QuestResourceIT.createEntity(em).applicantCount(1);
+        em.persist(quest);
+        em.persist(new QuestApplication(quest, applicant));
+        em.flush();
+
+        restApplicantMockMvc
+            .perform(delete(ENTITY_API_URL_ID, applicant.getId()).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        em.clear();
+        assertThat(questRepository.findById(quest.getId()).get().getApplicantCount()).isZero();
+    }
 }
@@ -0,0 +1,121 @@
+package net.subsquid.quest.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.jayway.jsonpath.JsonPath;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.repository.QuestRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Compares {@code POST /api/quests/bulk} with as many single {@code POST /api/quests}.
+ * <p>
+ * Not transactional: each request commits as it would in production. The time of each approach is logged, the number of
+ * JDBC statements is asserted.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class QuestResourceBulkBenchmarkIT {
+
+    private static final int QUESTS = 500;
+
+    private final Logger log = LoggerFactory.getLogger(QuestResourceBulkBenchmarkIT.class);
+
+    @Autowired
+    private QuestRepository questRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc restQuestMockMvc;
+
+    private Statistics statistics;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @BeforeEach
+    public void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        statistics.setStatisticsEnabled(false);
+        questRepository.deleteAllById(createdIds);
+    }
+
+    @Test
+    void bulkPostUsesFewerStatementsThanSinglePosts() throws Exception {
+        List<Quest> quests = IntStream.range(0, QUESTS).mapToObj(i -> QuestResourceIT.createEntity(em)).collect(Collectors.toList());
+
+        statistics.clear();
+        long start = System.nanoTime();
+        for (Quest quest : quests) {
+            String body = restQuestMockMvc
+                .perform(post("/api/quests").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(quest)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+            createdIds.add(JsonPath.<Number>read(body, "$.id").longValue());
+        }
+        long singleMillis = (System.nanoTime() - start) / 1_000_000;
+        long singleStatements = statistics.getPrepareStatementCount();
+        long singleTransactions = statistics.getTransactionCount();
+
+        statistics.clear();
+        start = System.nanoTime();
+        String body = restQuestMockMvc
+            .perform(post("/api/quests/bulk").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(quests)))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        long bulkMillis = (System.nanoTime() - start) / 1_000_000;
+        long bulkStatements = statistics.getPrepareStatementCount();
+        long bulkTransactions = statistics.getTransactionCount();
+        JsonPath.<List<Number>>read(body, "$.[*].id").forEach(id -> createdIds.add(id.longValue()));
+
+        log.info(
+            "{} quests: single POSTs took {} ms, {} statements, {} transactions; bulk POST took {} ms, {} statements, {} transactions",
+            QUESTS,
+            singleMillis,
+            singleStatements,
+            singleTransactions,
+            bulkMillis,
+            bulkStatements,
+            bulkTransactions
+        );
+        assertThat(JsonPath.<List<String>>read(body, "$.[*].status")).hasSize(QUESTS).containsOnly("CREATED");
+        assertThat(singleStatements).isGreaterThanOrEqualTo(QUESTS);
+        // One insert batch per hibernate.jdbc.batch_size quests, and one sequence call per 50 ids
+        assertThat(bulkStatements).isLessThanOrEqualTo(QUESTS / 25 + QUESTS / 50 + 2);
+        assertThat(bulkTransactions).isEqualTo(QUESTS / 50);
+    }
+}
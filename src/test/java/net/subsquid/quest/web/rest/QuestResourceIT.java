@@ -1,42 +1,54 @@
 package net.subsquid.quest.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
-import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.jayway.jsonpath.JsonPath;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.domain.Applicant;
 import net.subsquid.quest.domain.Quest;
+import net.subsquid.quest.domain.QuestApplication;
+import net.subsquid.quest.domain.enumeration.ApplicationState;
 import net.subsquid.quest.domain.enumeration.QuestStatus;
+import net.subsquid.quest.repository.QuestApplicationRepository;
 import net.subsquid.quest.repository.QuestRepository;
-import net.subsquid.quest.service.QuestService;
+import net.subsquid.quest.web.rest.util.KeysetPaginationUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Integration tests for the {@link QuestResource} REST controller.
  */
 @IntegrationTest
-@ExtendWith(MockitoExtension.class)
 @AutoConfigureMockMvc
 @WithMockUser
 class QuestResourceIT {
@@ -52,9 +64,11 @@ class QuestResourceIT {
 
     private static final LocalDate DEFAULT_EXPIRES_ON = LocalDate.ofEpochDay(0L);
     private static final LocalDate UPDATED_EXPIRES_ON = LocalDate.now(ZoneId.systemDefault());
+    private static final LocalDate SMALLER_EXPIRES_ON = LocalDate.ofEpochDay(-1L);
 
     private static final LocalDate DEFAULT_REVIEW_START_DATE = LocalDate.ofEpochDay(0L);
     private static final LocalDate UPDATED_REVIEW_START_DATE = LocalDate.now(ZoneId.systemDefault());
+    private static final LocalDate SMALLER_REVIEW_START_DATE = LocalDate.ofEpochDay(-1L);
 
     private static final Integer DEFAULT_MAX_APPLICANTS = 1;
     private static final Integer UPDATED_MAX_APPLICANTS = 2;
@@ -77,18 +91,23 @@ class QuestResourceIT {
     @Autowired
     private QuestRepository questRepository;
 
-    @Mock
-    private QuestRepository questRepositoryMock;
-
-    @Mock
-    private QuestService questServiceMock;
+    @Autowired
+    private QuestApplicationRepository questApplicationRepository;
 
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private MockMvc restQuestMockMvc;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
     private Quest quest;
 
     /**
@@ -134,6 +153,13 @@ class QuestResourceIT {
     @BeforeEach
     public void initTest() {
         quest = createEntity(em);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    public void cleanupStatistics() {
+        statistics.setStatisticsEnabled(false);
     }
 
     @Test
@@ -300,25 +326,78 @@ class QuestResourceIT {
             .andExpect(jsonPath("$.[*].maxApplicants").value(hasItem(DEFAULT_MAX_APPLICANTS)))
             .andExpect(jsonPath("$.[*].assignee").value(hasItem(DEFAULT_ASSIGNEE)))
             .andExpect(jsonPath("$.[*].status").value(hasItem(DEFAULT_STATUS.toString())))
-            .andExpect(jsonPath("$.[*].privateNotes").value(hasItem(DEFAULT_PRIVATE_NOTES)));
+            .andExpect(jsonPath("$.[*].privateNotes").value(hasItem(DEFAULT_PRIVATE_NOTES)))
+            .andExpect(jsonPath("$.[*].applicantCount").value(hasItem(0)));
     }
 
-    @SuppressWarnings({ "unchecked" })
-    void getAllQuestsWithEagerRelationshipsIsEnabled() throws Exception {
-        when(questServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
+    @Test
+    @Transactional
+    void getAllQuestsWithCursor() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+        Quest nextQuest = questRepository.saveAndFlush(createEntity(em));
 
-        restQuestMockMvc.perform(get(ENTITY_API_URL + "?eagerload=true")).andExpect(status().isOk());
+        // Seek from just before the first quest, one row at a time
+        MvcResult result = restQuestMockMvc
+            .perform(get(ENTITY_API_URL + "?size=1&after=" + KeysetPaginationUtil.encodeCursor(quest.getId() - 1)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(quest.getId().intValue()))
+            .andReturn();
+
+        // Follow the next link to the last quest
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        restQuestMockMvc
+            .perform(get(link.substring(link.indexOf('<') + 1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(nextQuest.getId().intValue()));
+    }
 
-        verify(questServiceMock, times(1)).findAllWithEagerRelationships(any());
+    @Test
+    @Transactional
+    void getAllQuestsWithInvalidCursor() throws Exception {
+        restQuestMockMvc.perform(get(ENTITY_API_URL + "?after=not-a-cursor")).andExpect(status().isBadRequest());
     }
 
-    @SuppressWarnings({ "unchecked" })
-    void getAllQuestsWithEagerRelationshipsIsNotEnabled() throws Exception {
-        when(questServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
+    @Test
+    @Transactional
+    void getAllQuestsWithEagerRelationshipsCostsAConstantNumberOfStatements() throws Exception {
+        // Initialize the database
+        int quests = 10;
+        int applicantsPerQuest = 20;
+        for (int i = 0; i < quests; i++) {
+            Quest questWithApplicants = createEntity(em).applicantCount(applicantsPerQuest);
+            em.persist(questWithApplicants);
+            for (int j = 0; j < applicantsPerQuest; j++) {
+                Applicant applicant = new Applicant().discordHandle("applicant#" + i + "-" + j);
+                em.persist(applicant);
+                em.persist(new QuestApplication(questWithApplicants, applicant));
+            }
+        }
+        em.flush();
+        em.clear();
+
+        statistics.clear();
+        restQuestMockMvc
+            .perform(get(ENTITY_API_URL + "?eagerload=true&sort=id,desc&size=" + quests))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(quests));
+        long statementsForFullPage = statistics.getPrepareStatementCount();
+        // page, count and a single fetch of the quests with their applications and applicants
+        assertThat(statementsForFullPage).isEqualTo(3);
 
-        restQuestMockMvc.perform(get(ENTITY_API_URL + "?eagerload=true")).andExpect(status().isOk());
+        em.clear();
+        statistics.clear();
+        restQuestMockMvc
+            .perform(get(ENTITY_API_URL + "?eagerload=true&sort=id,desc&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2));
 
-        verify(questServiceMock, times(1)).findAllWithEagerRelationships(any());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsForFullPage);
     }
 
     @Test
@@ -344,6 +423,309 @@ class QuestResourceIT {
             .andExpect(jsonPath("$.privateNotes").value(DEFAULT_PRIVATE_NOTES));
     }
 
+    @Test
+    @Transactional
+    void getQuestsByIdFiltering() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        Long id = quest.getId();
+
+        defaultQuestShouldBeFound("id.equals=" + id);
+        defaultQuestShouldNotBeFound("id.notEquals=" + id);
+
+        defaultQuestShouldBeFound("id.greaterThanOrEqual=" + id);
+        defaultQuestShouldNotBeFound("id.greaterThan=" + id);
+
+        defaultQuestShouldBeFound("id.lessThanOrEqual=" + id);
+        defaultQuestShouldNotBeFound("id.lessThan=" + id);
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByStatusIsEqualToSomething() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        // Get all the questList where status equals to DEFAULT_STATUS
+        defaultQuestShouldBeFound("status.equals=" + DEFAULT_STATUS);
+
+        // Get all the questList where status equals to UPDATED_STATUS
+        defaultQuestShouldNotBeFound("status.equals=" + UPDATED_STATUS);
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByStatusIsInShouldWork() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        // Get all the questList where status in DEFAULT_STATUS or UPDATED_STATUS
+        defaultQuestShouldBeFound("status.in=" + DEFAULT_STATUS + "," + UPDATED_STATUS);
+
+        // Get all the questList where status equals to UPDATED_STATUS
+        defaultQuestShouldNotBeFound("status.in=" + UPDATED_STATUS);
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByExpiresOnIsEqualToSomething() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        // Get all the questList where expiresOn equals to DEFAULT_EXPIRES_ON
+        defaultQuestShouldBeFound("expiresOn.equals=" + DEFAULT_EXPIRES_ON);
+
+        // Get all the questList where expiresOn equals to UPDATED_EXPIRES_ON
+        defaultQuestShouldNotBeFound("expiresOn.equals=" + UPDATED_EXPIRES_ON);
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByExpiresOnIsLessThanSomething() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        // Get all the questList where expiresOn is less than DEFAULT_EXPIRES_ON
+        defaultQuestShouldNotBeFound("expiresOn.lessThan=" + DEFAULT_EXPIRES_ON);
+
+        // Get all the questList where expiresOn is less than UPDATED_EXPIRES_ON
+        defaultQuestShouldBeFound("expiresOn.lessThan=" + UPDATED_EXPIRES_ON);
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByExpiresOnIsGreaterThanSomething() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        // Get all the questList where expiresOn is greater than DEFAULT_EXPIRES_ON
+        defaultQuestShouldNotBeFound("expiresOn.greaterThan=" + DEFAULT_EXPIRES_ON);
+
+        // Get all the questList where expiresOn is greater than SMALLER_EXPIRES_ON
+        defaultQuestShouldBeFound("expiresOn.greaterThan=" + SMALLER_EXPIRES_ON);
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByStatusAndExpiresOnRange() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        // Get all the questList where status equals to DEFAULT_STATUS and expiresOn is within the range
+        defaultQuestShouldBeFound(
+            "status.equals=" + DEFAULT_STATUS + "&expiresOn.greaterThan=" + SMALLER_EXPIRES_ON + "&expiresOn.lessThan=" + UPDATED_EXPIRES_ON
+        );
+
+        // Get all the questList where status equals to UPDATED_STATUS and expiresOn is within the range
+        defaultQuestShouldNotBeFound(
+            "status.equals=" + UPDATED_STATUS + "&expiresOn.greaterThan=" + SMALLER_EXPIRES_ON + "&expiresOn.lessThan=" + UPDATED_EXPIRES_ON
+        );
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByReviewStartDateIsGreaterThanOrEqualToSomething() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        // Get all the questList where reviewStartDate is greater than or equal to DEFAULT_REVIEW_START_DATE
+        defaultQuestShouldBeFound("reviewStartDate.greaterThanOrEqual=" + DEFAULT_REVIEW_START_DATE);
+
+        // Get all the questList where reviewStartDate is greater than or equal to UPDATED_REVIEW_START_DATE
+        defaultQuestShouldNotBeFound("reviewStartDate.greaterThanOrEqual=" + UPDATED_REVIEW_START_DATE);
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByReviewStartDateIsLessThanOrEqualToSomething() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        // Get all the questList where reviewStartDate is less than or equal to DEFAULT_REVIEW_START_DATE
+        defaultQuestShouldBeFound("reviewStartDate.lessThanOrEqual=" + DEFAULT_REVIEW_START_DATE);
+
+        // Get all the questList where reviewStartDate is less than or equal to SMALLER_REVIEW_START_DATE
+        defaultQuestShouldNotBeFound("reviewStartDate.lessThanOrEqual=" + SMALLER_REVIEW_START_DATE);
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByAssigneeIsEqualToSomething() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        // Get all the questList where assignee equals to DEFAULT_ASSIGNEE
+        defaultQuestShouldBeFound("assignee.equals=" + DEFAULT_ASSIGNEE);
+
+        // Get all the questList where assignee equals to UPDATED_ASSIGNEE
+        defaultQuestShouldNotBeFound("assignee.equals=" + UPDATED_ASSIGNEE);
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByAssigneeIsNullOrNotNull() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        // Get all the questList where assignee is not null
+        defaultQuestShouldBeFound("assignee.specified=true");
+
+        // Get all the questList where assignee is null
+        defaultQuestShouldNotBeFound("assignee.specified=false");
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByApplicantIsEqualToSomething() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest.applicantCount(1));
+        Applicant applicant = ApplicantResourceIT.createEntity(em);
+        em.persist(applicant);
+        em.persist(new QuestApplication(quest, applicant));
+        em.flush();
+        Long applicantId = applicant.getId();
+
+        // Get all the questList where applicant equals to applicantId
+        defaultQuestShouldBeFound("applicantId.equals=" + applicantId);
+
+        // Get all the questList where applicant equals to (applicantId + 1)
+        defaultQuestShouldNotBeFound("applicantId.equals=" + (applicantId + 1));
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsByStatusWithCursor() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+        questRepository.saveAndFlush(createEntity(em).status(UPDATED_STATUS));
+        Quest nextQuest = questRepository.saveAndFlush(createEntity(em));
+
+        // Seek from just before the first quest, skipping the quest with another status
+        MvcResult result = restQuestMockMvc
+            .perform(
+                get(ENTITY_API_URL + "?size=1&status.equals=" + DEFAULT_STATUS)
+                    .param(KeysetPaginationUtil.AFTER_PARAMETER, KeysetPaginationUtil.encodeCursor(quest.getId() - 1))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(quest.getId().intValue()))
+            .andReturn();
+
+        // The next link keeps the filter
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        restQuestMockMvc
+            .perform(get(link.substring(link.indexOf('<') + 1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(nextQuest.getId().intValue()));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is returned.
+     */
+    private void defaultQuestShouldBeFound(String filter) throws Exception {
+        restQuestMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(quest.getId().intValue())))
+            .andExpect(jsonPath("$.[*].title").value(hasItem(DEFAULT_TITLE)))
+            .andExpect(jsonPath("$.[*].description").value(hasItem(DEFAULT_DESCRIPTION)))
+            .andExpect(jsonPath("$.[*].reward").value(hasItem(DEFAULT_REWARD)))
+            .andExpect(jsonPath("$.[*].expiresOn").value(hasItem(DEFAULT_EXPIRES_ON.toString())))
+            .andExpect(jsonPath("$.[*].reviewStartDate").value(hasItem(DEFAULT_REVIEW_START_DATE.toString())))
+            .andExpect(jsonPath("$.[*].maxApplicants").value(hasItem(DEFAULT_MAX_APPLICANTS)))
+            .andExpect(jsonPath("$.[*].assignee").value(hasItem(DEFAULT_ASSIGNEE)))
+            .andExpect(jsonPath("$.[*].status").value(hasItem(DEFAULT_STATUS.toString())))
+            .andExpect(jsonPath("$.[*].privateNotes").value(hasItem(DEFAULT_PRIVATE_NOTES)));
+
+        // Check, that the count call also returns 1
+        restQuestMockMvc
+            .perform(get(ENTITY_API_URL + "/count?sort=id,desc&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(content().string("1"));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is not returned.
+     */
+    private void defaultQuestShouldNotBeFound(String filter) throws Exception {
+        restQuestMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$").isArray())
+            .andExpect(jsonPath("$").isEmpty());
+
+        // Check, that the count call also returns 0
+        restQuestMockMvc
+            .perform(get(ENTITY_API_URL + "/count?sort=id,desc&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(content().string("0"));
+    }
+
+    @Test
+    @Transactional
+    void getQuestNotModified() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        String eTag = restQuestMockMvc
+            .perform(get(ENTITY_API_URL_ID, quest.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + quest.getVersion() + "\""))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        restQuestMockMvc
+            .perform(get(ENTITY_API_URL_ID, quest.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // An applicant embedded in the response changes the tag
+        Applicant applicant = ApplicantResourceIT.createEntity(em);
+        em.persist(applicant);
+        em.persist(new QuestApplication(quest, applicant));
+        em.flush();
+        em.clear();
+
+        restQuestMockMvc
+            .perform(get(ENTITY_API_URL_ID, quest.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, containsString("\"" + quest.getVersion() + "-")));
+    }
+
+    @Test
+    @Transactional
+    void getAllQuestsNotModified() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        String eTag = restQuestMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+
+        restQuestMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+
+        quest.setTitle(UPDATED_TITLE);
+        questRepository.saveAndFlush(quest);
+
+        restQuestMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk());
+    }
+
     @Test
     @Transactional
     void getNonExistingQuest() throws Exception {
@@ -351,6 +733,61 @@ class QuestResourceIT {
         restQuestMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
     }
 
+    @Test
+    void bulkSaveQuests() throws Exception {
+        // Initialize the database, committed as every chunk is saved in its own transaction
+        Quest existingQuest = questRepository.saveAndFlush(createEntity(em));
+        Quest staleQuest = questRepository.saveAndFlush(createEntity(em));
+        Long staleVersion = staleQuest.getVersion();
+        questRepository.saveAndFlush(staleQuest.title(UPDATED_TITLE));
+
+        List<Quest> quests = List.of(
+            createEntity(em),
+            createEntity(em).title(null),
+            createUpdatedEntity(em).id(existingQuest.getId()),
+            createUpdatedEntity(em).id(staleQuest.getId()).version(staleVersion),
+            createEntity(em).id(Long.MAX_VALUE),
+            createEntity(em).title("A".repeat(256))
+        );
+
+        List<Long> createdIds = new ArrayList<>();
+        try {
+            MvcResult result = restQuestMockMvc
+                .perform(
+                    post(ENTITY_API_URL + "/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(quests))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].index").value(contains(0, 1, 2, 3, 4, 5)))
+                .andExpect(jsonPath("$.[*].status").value(contains("CREATED", "INVALID", "UPDATED", "CONFLICT", "NOT_FOUND", "FAILED")))
+                .andExpect(jsonPath("$.[1].message").value("title: must not be null"))
+                .andExpect(jsonPath("$.[2].id").value(existingQuest.getId().intValue()))
+                .andExpect(jsonPath("$.[5].id").doesNotExist())
+                .andReturn();
+            createdIds.add(JsonPath.<Number>read(result.getResponse().getContentAsString(), "$.[0].id").longValue());
+
+            assertThat(questRepository.findById(createdIds.get(0))).get().extracting(Quest::getTitle).isEqualTo(DEFAULT_TITLE);
+            assertThat(questRepository.findById(existingQuest.getId())).get().extracting(Quest::getTitle).isEqualTo(UPDATED_TITLE);
+            assertThat(questRepository.findById(staleQuest.getId())).get().extracting(Quest::getReward).isEqualTo(DEFAULT_REWARD);
+        } finally {
+            createdIds.add(existingQuest.getId());
+            createdIds.add(staleQuest.getId());
+            questRepository.deleteAllById(createdIds);
+        }
+    }
+
+    @Test
+    void bulkSaveQuestsAboveTheLimit() throws Exception {
+        List<Quest> quests = Collections.nCopies(1001, createEntity(em));
+
+        restQuestMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(quests))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void putNewQuest() throws Exception {
@@ -397,20 +834,103 @@ class QuestResourceIT {
         assertThat(testQuest.getPrivateNotes()).isEqualTo(UPDATED_PRIVATE_NOTES);
     }
 
+    @Test
+    @Transactional
+    void putQuestKeepsApplicantCount() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest.applicantCount(1));
+
+        Quest updatedQuest = questRepository.findById(quest.getId()).get();
+        em.detach(updatedQuest);
+        updatedQuest.title(UPDATED_TITLE).applicantCount(5);
+
+        restQuestMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedQuest.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedQuest))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.applicantCount").value(1));
+
+        assertThat(questRepository.findById(quest.getId()).get().getApplicantCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    void putQuestWithIfMatch() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        Long version = quest.getVersion();
+        Quest updatedQuest = questRepository.findById(quest.getId()).get();
+        em.detach(updatedQuest);
+        updatedQuest.title(UPDATED_TITLE).version(null);
+
+        restQuestMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedQuest.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedQuest))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG));
+
+        assertThat(questRepository.findById(quest.getId()).get().getTitle()).isEqualTo(UPDATED_TITLE);
+    }
+
+    @Test
+    @Transactional
+    void putQuestWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        Quest updatedQuest = questRepository.findById(quest.getId()).get();
+        em.detach(updatedQuest);
+        updatedQuest.title(UPDATED_TITLE);
+
+        restQuestMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedQuest.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (quest.getVersion() + 1) + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedQuest))
+            )
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("error.concurrencyFailure"));
+    }
+
+    @Test
+    @Transactional
+    void putQuestWithInvalidIfMatch() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        restQuestMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, quest.getId())
+                    .header(HttpHeaders.IF_MATCH, "W/\"0\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(quest))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void putNonExistingQuest() throws Exception {
         int databaseSizeBeforeUpdate = questRepository.findAll().size();
         quest.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // No row is updated, so the quest is not found
         restQuestMockMvc
             .perform(
                 put(ENTITY_API_URL_ID, quest.getId())
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(TestUtil.convertObjectToJsonBytes(quest))
             )
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
 
         // Validate the Quest in the database
         List<Quest> questList = questRepository.findAll();
@@ -542,26 +1062,202 @@ class QuestResourceIT {
         assertThat(testQuest.getPrivateNotes()).isEqualTo(UPDATED_PRIVATE_NOTES);
     }
 
+    @Test
+    @Transactional
+    void patchQuestWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        Quest partialUpdatedQuest = new Quest();
+        partialUpdatedQuest.setId(quest.getId());
+        partialUpdatedQuest.title(UPDATED_TITLE);
+
+        restQuestMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedQuest.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (quest.getVersion() + 1) + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedQuest))
+            )
+            .andExpect(status().isConflict());
+
+        em.clear();
+        assertThat(questRepository.findById(quest.getId()).get().getTitle()).isEqualTo(DEFAULT_TITLE);
+    }
+
     @Test
     @Transactional
     void patchNonExistingQuest() throws Exception {
         int databaseSizeBeforeUpdate = questRepository.findAll().size();
         quest.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // No row is updated, so the quest is not found
         restQuestMockMvc
             .perform(
                 patch(ENTITY_API_URL_ID, quest.getId())
                     .contentType("application/merge-patch+json")
                     .content(TestUtil.convertObjectToJsonBytes(quest))
             )
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
 
         // Validate the Quest in the database
         List<Quest> questList = questRepository.findAll();
         assertThat(questList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void patchQuestWithInvalidValue() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+
+        Quest partialUpdatedQuest = new Quest();
+        partialUpdatedQuest.setId(quest.getId());
+        partialUpdatedQuest.maxApplicants(0);
+
+        restQuestMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedQuest.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedQuest))
+            )
+            .andExpect(status().isBadRequest());
+
+        em.clear();
+        assertThat(questRepository.findById(quest.getId()).get().getMaxApplicants()).isEqualTo(DEFAULT_MAX_APPLICANTS);
+    }
+
+    @Test
+    void patchQuestRunsOneUpdateAndOneSelectInOneTransaction() throws Exception {
+        // Initialize the database, committed so that the request runs its own transaction
+        questRepository.saveAndFlush(quest);
+
+        try {
+            Quest partialUpdatedQuest = new Quest();
+            partialUpdatedQuest.setId(quest.getId());
+            partialUpdatedQuest.title(UPDATED_TITLE);
+
+            statistics.clear();
+            restQuestMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, partialUpdatedQuest.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"" + quest.getVersion() + "\"")
+                        .contentType("application/merge-patch+json")
+                        .content(TestUtil.convertObjectToJsonBytes(partialUpdatedQuest))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value(UPDATED_TITLE))
+                .andExpect(jsonPath("$.reward").value(DEFAULT_REWARD))
+                .andExpect(jsonPath("$.version").value(quest.getVersion().intValue() + 1));
+
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            assertThat(statistics.getTransactionCount()).isEqualTo(1);
+        } finally {
+            questRepository.deleteById(quest.getId());
+        }
+    }
+
+    @Test
+    void putQuestRunsOneUpdateAndOneSelectInOneTransaction() throws Exception {
+        // Initialize the database, committed so that the request runs its own transaction
+        questRepository.saveAndFlush(quest);
+
+        try {
+            Quest updatedQuest = createUpdatedEntity(em).id(quest.getId()).version(quest.getVersion());
+
+            statistics.clear();
+            restQuestMockMvc
+                .perform(
+                    put(ENTITY_API_URL_ID, updatedQuest.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(updatedQuest))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value(UPDATED_TITLE))
+                .andExpect(jsonPath("$.version").value(quest.getVersion().intValue() + 1));
+
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            assertThat(statistics.getTransactionCount()).isEqualTo(1);
+        } finally {
+            questRepository.deleteById(quest.getId());
+        }
+    }
+
+    @Test
+    void patchNonExistingQuestRunsOneUpdate() throws Exception {
+        Quest partialUpdatedQuest = new Quest();
+        partialUpdatedQuest.setId(count.incrementAndGet());
+        partialUpdatedQuest.title(UPDATED_TITLE);
+
+        statistics.clear();
+        restQuestMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedQuest.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedQuest))
+            )
+            .andExpect(status().isNotFound());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getTransactionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void patchQuestKeepsTheOtherCachedQuests() throws Exception {
+        // Initialize the database, committed so that the quests are cached
+        Quest otherQuest = questRepository.saveAndFlush(createEntity(em));
+        questRepository.saveAndFlush(quest);
+
+        try {
+            questRepository.findById(otherQuest.getId());
+            questRepository.findById(quest.getId());
+            assertThat(entityManagerFactory.getCache().contains(Quest.class, otherQuest.getId())).isTrue();
+
+            Quest partialUpdatedQuest = new Quest();
+            partialUpdatedQuest.setId(quest.getId());
+            partialUpdatedQuest.title(UPDATED_TITLE);
+
+            restQuestMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, partialUpdatedQuest.getId())
+                        .contentType("application/merge-patch+json")
+                        .content(TestUtil.convertObjectToJsonBytes(partialUpdatedQuest))
+                )
+                .andExpect(status().isOk());
+
+            assertThat(entityManagerFactory.getCache().contains(Quest.class, otherQuest.getId())).isTrue();
+            assertThat(entityManagerFactory.getCache().contains(Quest.class, quest.getId())).isFalse();
+            assertThat(questRepository.findById(quest.getId()).get().getTitle()).isEqualTo(UPDATED_TITLE);
+        } finally {
+            questRepository.deleteAllById(List.of(otherQuest.getId(), quest.getId()));
+        }
+    }
+
+    @Test
+    void updatedQuestIsReadFreshWhenCachedAgainByAConcurrentRead() throws Exception {
+        // Initialize the database, committed so that the quest is cached
+        questRepository.saveAndFlush(quest);
+
+        try {
+            Quest updatedQuest = new Quest();
+            updatedQuest.setId(quest.getId());
+            updatedQuest.title(UPDATED_TITLE);
+
+            Quest freshQuest = new TransactionTemplate(transactionManager).execute(transaction -> {
+                assertThat(questRepository.updateColumns(updatedQuest, true)).isEqualTo(1);
+                // Another transaction reads the committed quest, caching it again
+                CompletableFuture.runAsync(() -> questRepository.findById(quest.getId())).join();
+                assertThat(entityManagerFactory.getCache().contains(Quest.class, quest.getId())).isTrue();
+                return questRepository.findFreshById(quest.getId());
+            });
+
+            assertThat(freshQuest.getTitle()).isEqualTo(UPDATED_TITLE);
+            assertThat(freshQuest.getVersion()).isEqualTo(quest.getVersion() + 1);
+        } finally {
+            questRepository.deleteById(quest.getId());
+        }
+    }
+
     @Test
     @Transactional
     void patchWithIdMismatchQuest() throws Exception {
@@ -598,6 +1294,86 @@ class QuestResourceIT {
         assertThat(questList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    void exportQuestsAsNdjson() throws Exception {
+        // Initialize the database, committed as the export runs in its own transaction
+        questRepository.saveAndFlush(quest);
+
+        try {
+            MvcResult result = restQuestMockMvc
+                .perform(get(ENTITY_API_URL + "/export").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            String body = restQuestMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+            assertThat(body.lines()).hasSize((int) questRepository.count());
+            assertThat(body.lines())
+                .filteredOn(line -> line.startsWith("{\"id\":" + quest.getId() + ","))
+                .singleElement()
+                .asString()
+                .contains("\"title\":\"" + DEFAULT_TITLE + "\"", "\"status\":\"" + DEFAULT_STATUS + "\"");
+        } finally {
+            questRepository.deleteById(quest.getId());
+        }
+    }
+
+    @Test
+    void exportQuestsAsCsv() throws Exception {
+        // Initialize the database, committed as the export runs in its own transaction
+        questRepository.saveAndFlush(quest.title("A \"quoted\", title"));
+
+        try {
+            MvcResult result = restQuestMockMvc
+                .perform(get(ENTITY_API_URL + "/export").accept("text/csv;q=0.9, application/json;q=0.5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            String body = restQuestMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+            List<String> lines = body.lines().collect(Collectors.toList());
+            assertThat(lines).hasSize((int) questRepository.count() + 1);
+            assertThat(lines.get(0))
+                .isEqualTo(
+                    "id,title,description,reward,expiresOn,reviewStartDate,maxApplicants,assignee,status,privateNotes," +
+                    "applicantCount,version"
+                );
+            assertThat(lines)
+                .contains(
+                    quest.getId() +
+                    ",\"A \"\"quoted\"\", title\"," +
+                    DEFAULT_DESCRIPTION +
+                    "," +
+                    DEFAULT_REWARD +
+                    "," +
+                    DEFAULT_EXPIRES_ON +
+                    "," +
+                    DEFAULT_REVIEW_START_DATE +
+                    "," +
+                    DEFAULT_MAX_APPLICANTS +
+                    "," +
+                    DEFAULT_ASSIGNEE +
+                    "," +
+                    DEFAULT_STATUS +
+                    "," +
+                    DEFAULT_PRIVATE_NOTES +
+                    ",0,0"
+                );
+        } finally {
+            questRepository.deleteById(quest.getId());
+        }
+    }
+
     @Test
     @Transactional
     void deleteQuest() throws Exception {
@@ -615,4 +1391,88 @@ class QuestResourceIT {
         List<Quest> questList = questRepository.findAll();
         assertThat(questList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void applyToQuest() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest);
+        Applicant applicant = ApplicantResourceIT.createEntity(em);
+        em.persist(applicant);
+        em.flush();
+
+        restQuestMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/apply", quest.getId()).param("applicantId", applicant.getId().toString()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.id.questId").value(quest.getId().intValue()))
+            .andExpect(jsonPath("$.id.applicantId").value(applicant.getId().intValue()))
+            .andExpect(jsonPath("$.state").value(ApplicationState.APPLIED.toString()))
+            .andExpect(jsonPath("$.appliedAt").isNotEmpty());
+
+        // Applying twice returns the existing application
+        restQuestMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/apply", quest.getId()).param("applicantId", applicant.getId().toString()))
+            .andExpect(status().isOk());
+
+        assertThat(questApplicationRepository.countByQuestId(quest.getId())).isEqualTo(1);
+        assertThat(questRepository.findById(quest.getId()).get().getApplicantCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    void applyToFullQuest() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest.applicantCount(DEFAULT_MAX_APPLICANTS));
+        for (int i = 0; i < DEFAULT_MAX_APPLICANTS; i++) {
+            Applicant applicant = ApplicantResourceIT.createEntity(em);
+            em.persist(applicant);
+            em.persist(new QuestApplication(quest, applicant));
+        }
+        Applicant applicant = ApplicantResourceIT.createEntity(em);
+        em.persist(applicant);
+        em.flush();
+
+        restQuestMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/apply", quest.getId()).param("applicantId", applicant.getId().toString()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.questfull"));
+
+        assertThat(questApplicationRepository.countByQuestId(quest.getId())).isEqualTo(DEFAULT_MAX_APPLICANTS.longValue());
+        assertThat(questRepository.findById(quest.getId()).get().getApplicantCount()).isEqualTo(DEFAULT_MAX_APPLICANTS);
+    }
+
+    @Test
+    @Transactional
+    void applyToNonExistingQuest() throws Exception {
+        Applicant applicant = ApplicantResourceIT.createEntity(em);
+        em.persist(applicant);
+        em.flush();
+
+        restQuestMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/apply", Long.MAX_VALUE).param("applicantId", applicant.getId().toString()))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void withdrawFromQuest() throws Exception {
+        // Initialize the database
+        questRepository.saveAndFlush(quest.applicantCount(1));
+        Applicant applicant = ApplicantResourceIT.createEntity(em);
+        em.persist(applicant);
+        em.persist(new QuestApplication(quest, applicant));
+        em.flush();
+
+        restQuestMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/withdraw", quest.getId()).param("applicantId", applicant.getId().toString()))
+            .andExpect(status().isNoContent());
+
+        assertThat(questApplicationRepository.countByQuestId(quest.getId())).isZero();
+        assertThat(questRepository.findById(quest.getId()).get().getApplicantCount()).isZero();
+
+        restQuestMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/withdraw", quest.getId()).param("applicantId", applicant.getId().toString()))
+            .andExpect(status().isNotFound());
+    }
 }
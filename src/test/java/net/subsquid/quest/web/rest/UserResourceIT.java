@@ -10,9 +10,12 @@ import java.time.Instant;
 import java.util.*;
 import java.util.function.Consumer;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import net.subsquid.quest.IntegrationTest;
+import net.subsquid.quest.SqlStatementCountExtension;
 import net.subsquid.quest.domain.Authority;
 import net.subsquid.quest.domain.User;
+import net.subsquid.quest.management.SqlStatementRecorder;
 import net.subsquid.quest.repository.UserRepository;
 import net.subsquid.quest.security.AuthoritiesConstants;
 import net.subsquid.quest.service.dto.AdminUserDTO;
@@ -22,6 +25,7 @@ import net.subsquid.quest.web.rest.vm.ManagedUserVM;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
@@ -35,6 +39,7 @@ import org.springframework.transaction.annotation.Transactional;
 @AutoConfigureMockMvc
 @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
 @IntegrationTest
+@ExtendWith(SqlStatementCountExtension.class)
 class UserResourceIT {
 
     private static final String DEFAULT_LOGIN = "johndoe";
@@ -69,6 +74,9 @@ class UserResourceIT {
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private MockMvc restUserMockMvc;
 
@@ -249,6 +257,28 @@ class UserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    @Transactional
+    void getAllUsersExecutesAFixedNumberOfStatements(SqlStatementRecorder.Recording statements) throws Exception {
+        // Initialize the database with more users than a batch of authorities, none of them cached
+        Authority authority = new Authority();
+        authority.setName(AuthoritiesConstants.USER);
+        for (int i = 0; i < 30; i++) {
+            User otherUser = createEntity(em);
+            otherUser.setAuthorities(Set.of(authority));
+            userRepository.save(otherUser);
+        }
+        userRepository.flush();
+        em.clear();
+        entityManagerFactory.getCache().evictAll();
+
+        statements.reset();
+        restUserMockMvc.perform(get("/api/admin/users?sort=id,desc&size=30")).andExpect(status().isOk());
+
+        // The page, the count, and the authorities of the users in batches of 20
+        assertThat(statements.getExecutions()).isEqualTo(4);
+    }
+
     @Test
     @Transactional
     void getUser() throws Exception {
@@ -35,6 +35,24 @@ class ExceptionTranslatorIT {
             .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_CONCURRENCY_FAILURE));
     }
 
+    @Test
+    void testLoginOverloaded() throws Exception {
+        mockMvc
+            .perform(get("/api/exception-translator-test/login-overloaded"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_OVERLOADED));
+    }
+
+    @Test
+    void testRejectedExecution() throws Exception {
+        mockMvc
+            .perform(get("/api/exception-translator-test/rejected-execution"))
+            .andExpect(status().isInternalServerError())
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+            .andExpect(jsonPath("$.message").value("error.http.500"));
+    }
+
     @Test
     void testMethodArgumentNotValid() throws Exception {
         mockMvc
@@ -0,0 +1,43 @@
+package net.subsquid.quest.web.rest.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ETagUtilTest {
+
+    @Test
+    void entityTagIsTheVersionWithoutRelatedEntities() {
+        assertThat(ETagUtil.entityTag(3L, List.of())).isEqualTo("\"3\"");
+    }
+
+    @Test
+    void entityTagDependsOnRelatedVersionsButNotTheirOrder() {
+        String tag = ETagUtil.entityTag(3L, List.of("1:0", "2:0"));
+
+        assertThat(tag).startsWith("\"3-").endsWith("\"");
+        assertThat(ETagUtil.entityTag(3L, List.of("2:0", "1:0"))).isEqualTo(tag);
+        assertThat(ETagUtil.entityTag(3L, List.of("1:1", "2:0"))).isNotEqualTo(tag);
+    }
+
+    @Test
+    void collectionTagDependsOnPaging() {
+        assertThat(ETagUtil.collectionTag(List.of("\"1\""), 10L)).isNotEqualTo(ETagUtil.collectionTag(List.of("\"1\""), 11L));
+    }
+
+    @Test
+    void versionOfReadsTheLeadingVersion() {
+        assertThat(ETagUtil.versionOf("\"3\"")).isEqualTo(3L);
+        assertThat(ETagUtil.versionOf(ETagUtil.entityTag(3L, List.of("1:0")))).isEqualTo(3L);
+        assertThat(ETagUtil.versionOf("*")).isNull();
+    }
+
+    @Test
+    void versionOfRejectsWeakOrMalformedTags() {
+        assertThatIllegalArgumentException().isThrownBy(() -> ETagUtil.versionOf("W/\"3\""));
+        assertThatIllegalArgumentException().isThrownBy(() -> ETagUtil.versionOf("3"));
+        assertThatIllegalArgumentException().isThrownBy(() -> ETagUtil.versionOf("\"abc\""));
+    }
+}
@@ -0,0 +1,63 @@
+package net.subsquid.quest.web.rest.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+class ExportUtilTest {
+
+    private static final Map<String, Function<List<String>, Object>> COLUMNS = new LinkedHashMap<>();
+
+    static {
+        COLUMNS.put("first", row -> row.get(0));
+        COLUMNS.put("second", row -> row.get(1));
+    }
+
+    @Test
+    void exportMediaTypeDefaultsToNdjson() {
+        assertThat(ExportUtil.exportMediaType(null)).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(ExportUtil.exportMediaType("*/*")).isEqualTo(MediaType.APPLICATION_NDJSON);
+    }
+
+    @Test
+    void exportMediaTypeFollowsQuality() {
+        assertThat(ExportUtil.exportMediaType("text/csv")).isEqualTo(ExportUtil.TEXT_CSV);
+        assertThat(ExportUtil.exportMediaType("application/x-ndjson;q=0.5, text/csv")).isEqualTo(ExportUtil.TEXT_CSV);
+        assertThat(ExportUtil.exportMediaType("text/*, application/x-ndjson;q=0.1")).isEqualTo(ExportUtil.TEXT_CSV);
+    }
+
+    @Test
+    void writesOneJsonValuePerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (
+            ExportUtil.RowWriter<List<String>> writer = ExportUtil.rowWriter(MediaType.APPLICATION_NDJSON, out, new ObjectMapper(), COLUMNS)
+        ) {
+            writer.accept(List.of("a", "b"));
+            writer.accept(List.of("c\nd", "e"));
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("[\"a\",\"b\"]\n[\"c\\nd\",\"e\"]\n");
+    }
+
+    @Test
+    void writesCsvWithHeaderAndQuoting() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (
+            ExportUtil.RowWriter<List<String>> writer = ExportUtil.rowWriter(ExportUtil.TEXT_CSV, out, new ObjectMapper(), COLUMNS)
+        ) {
+            writer.accept(List.of("plain", "with, comma"));
+            writer.accept(List.of("with \"quotes\"", "with\nnewline"));
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8))
+            .isEqualTo("first,second\r\nplain,\"with, comma\"\r\n\"with \"\"quotes\"\"\",\"with\nnewline\"\r\n");
+    }
+}